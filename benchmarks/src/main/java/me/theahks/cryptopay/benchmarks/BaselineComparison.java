@@ -0,0 +1,104 @@
+package me.theahks.cryptopay.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Сравнивает два JSON-результата JMH: время на операцию и объем аллокаций на операцию.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar me.theahks.cryptopay.benchmarks.BaselineComparison old.json new.json
+ * </pre>
+ */
+public final class BaselineComparison {
+    private static final String ALLOC_RATE_NORM = "gc.alloc.rate.norm";
+
+    private BaselineComparison() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Использование: BaselineComparison <baseline.json> <current.json>");
+            System.exit(2);
+        }
+        compare(Paths.get(args[0]), Paths.get(args[1]), System.out);
+    }
+
+    /**
+     * Печатает таблицу сравнения двух результатов.
+     *
+     * @param baseline файл базового результата
+     * @param current файл текущего результата
+     * @param out поток вывода
+     * @throws IOException если не удалось прочитать результаты
+     */
+    public static void compare(Path baseline, Path current, PrintStream out) throws IOException {
+        Map<String, JsonNode> before = load(baseline);
+        Map<String, JsonNode> after = load(current);
+
+        out.printf("%-70s %14s %14s %9s %14s %14s%n",
+                "Benchmark", "Baseline", "Current", "Delta", "Alloc B/op", "Alloc B/op");
+        for (Map.Entry<String, JsonNode> entry : after.entrySet()) {
+            JsonNode now = entry.getValue();
+            JsonNode was = before.get(entry.getKey());
+            double score = now.path("primaryMetric").path("score").asDouble();
+            String unit = now.path("primaryMetric").path("scoreUnit").asText();
+            double alloc = allocation(now);
+            if (was == null) {
+                out.printf("%-70s %14s %14.3f %9s %14s %14.1f  %s%n",
+                        entry.getKey(), "-", score, "new", "-", alloc, unit);
+                continue;
+            }
+            double baseScore = was.path("primaryMetric").path("score").asDouble();
+            double delta = baseScore == 0 ? 0 : (score - baseScore) / baseScore * 100;
+            out.printf("%-70s %14.3f %14.3f %+8.1f%% %14.1f %14.1f  %s%n",
+                    entry.getKey(), baseScore, score, delta, allocation(was), alloc, unit);
+        }
+        for (String key : before.keySet()) {
+            if (!after.containsKey(key)) {
+                out.printf("%-70s %14s %14s %9s%n", key, "", "-", "removed");
+            }
+        }
+    }
+
+    private static Map<String, JsonNode> load(Path file) throws IOException {
+        JsonNode root = new ObjectMapper().readTree(file.toFile());
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode run : root) {
+            results.put(key(run), run);
+        }
+        return results;
+    }
+
+    private static String key(JsonNode run) {
+        String name = run.path("benchmark").asText();
+        name = name.substring(name.lastIndexOf('.', name.lastIndexOf('.') - 1) + 1);
+        StringBuilder key = new StringBuilder(name);
+        Iterator<Map.Entry<String, JsonNode>> params = run.path("params").fields();
+        while (params.hasNext()) {
+            Map.Entry<String, JsonNode> param = params.next();
+            key.append(key.length() == name.length() ? " [" : ", ")
+                    .append(param.getKey()).append('=').append(param.getValue().asText());
+        }
+        return key.length() == name.length() ? key.toString() : key.append(']').toString();
+    }
+
+    private static double allocation(JsonNode run) {
+        Iterator<Map.Entry<String, JsonNode>> metrics = run.path("secondaryMetrics").fields();
+        while (metrics.hasNext()) {
+            Map.Entry<String, JsonNode> metric = metrics.next();
+            // Старые версии JMH добавляют к имени префикс "·"
+            if (metric.getKey().endsWith(ALLOC_RATE_NORM)) {
+                return metric.getValue().path("score").asDouble();
+            }
+        }
+        return Double.NaN;
+    }
+}
@@ -0,0 +1,55 @@
+package me.theahks.cryptopay.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Запускает бенчмарки с профилировщиком GC и, при наличии базового результата, печатает сравнение.
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar [--result new.json] [--baseline old.json] [regex]
+ * </pre>
+ */
+public final class BenchmarkRunner {
+    private static final String DEFAULT_RESULT = "jmh-result.json";
+
+    private BenchmarkRunner() {}
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        Path result = Paths.get(DEFAULT_RESULT);
+        Path baseline = null;
+        String include = BenchmarkRunner.class.getPackage().getName() + ".*";
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--result":
+                    result = Paths.get(args[++i]);
+                    break;
+                case "--baseline":
+                    baseline = Paths.get(args[++i]);
+                    break;
+                default:
+                    include = args[i];
+            }
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(result.toString());
+        new Runner(options.build()).run();
+
+        if (baseline != null) {
+            BaselineComparison.compare(baseline, result, System.out);
+        }
+    }
+}
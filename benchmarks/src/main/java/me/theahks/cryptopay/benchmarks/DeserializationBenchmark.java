@@ -0,0 +1,73 @@
+package me.theahks.cryptopay.benchmarks;
+
+import me.theahks.cryptopay.json.LazyInvoice;
+import me.theahks.cryptopay.model.ApiResponse;
+import me.theahks.cryptopay.model.Invoice;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Десериализация страниц {@code ApiResponse<List<Invoice>>} разного размера
+ * потоковыми десериализаторами клиента и рефлексивным путем databind, а также просмотр
+ * страницы с чтением нескольких полей через полные и ленивые счета.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeserializationBenchmark {
+    private static final TypeReference<ApiResponse<List<Invoice>>> INVOICE_PAGE =
+            new TypeReference<ApiResponse<List<Invoice>>>() {};
+
+    @Param({"1", "100", "1000"})
+    private int pageSize;
+
+    @Param({"codecs", "databind"})
+    private String mapper;
+
+    private ObjectMapper objectMapper;
+    private byte[] json;
+
+    @Setup
+    public void setUp() {
+        objectMapper = "codecs".equals(mapper) ? Fixtures.objectMapper() : Fixtures.databindObjectMapper();
+        json = Fixtures.invoicePage(pageSize);
+    }
+
+    @Benchmark
+    public ApiResponse<List<Invoice>> invoicePage() throws IOException {
+        return objectMapper.readValue(json, INVOICE_PAGE);
+    }
+
+    /**
+     * Просмотр страницы с чтением идентификатора, статуса и суммы через полностью построенные счета.
+     */
+    @Benchmark
+    public void scanFull(Blackhole blackhole) throws IOException {
+        for (Invoice invoice : objectMapper.readValue(json, INVOICE_PAGE).getResult()) {
+            blackhole.consume(invoice.getInvoiceId());
+            blackhole.consume(invoice.getStatus());
+            blackhole.consume(invoice.getAmount());
+        }
+    }
+
+    /**
+     * Тот же просмотр через ленивые счета.
+     */
+    @Benchmark
+    public void scanLazy(Blackhole blackhole) throws IOException {
+        for (LazyInvoice invoice : LazyInvoice.parsePage(objectMapper, json).getResult()) {
+            blackhole.consume(invoice.getInvoiceId());
+            blackhole.consume(invoice.getStatus());
+            blackhole.consume(invoice.getAmount());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package me.theahks.cryptopay.benchmarks;
+
+import me.theahks.cryptopay.model.ApiResponse;
+import me.theahks.cryptopay.model.Invoice;
+import me.theahks.cryptopay.util.JsonUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Тестовые данные для бенчмарков.
+ */
+final class Fixtures {
+
+    private Fixtures() {}
+
+    /**
+     * Создает ObjectMapper, настроенный так же, как в клиенте.
+     *
+     * @return настроенный ObjectMapper
+     */
+    static ObjectMapper objectMapper() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonUtils.configureObjectMapper(objectMapper);
+        return objectMapper;
+    }
+
+    /**
+     * Создает ObjectMapper без потоковых десериализаторов моделей, использующий рефлексивный путь databind.
+     *
+     * @return ObjectMapper для сравнения
+     */
+    static ObjectMapper databindObjectMapper() {
+        return new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    /**
+     * Создает правдоподобный счет с заполненными полями.
+     *
+     * @param id идентификатор счета
+     * @return счет
+     */
+    static Invoice invoice(long id) {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(id);
+        boolean paid = id % 3 == 0;
+        return Invoice.builder()
+                .invoiceId(id)
+                .hash("IVx" + Long.toHexString(id * 2654435761L))
+                .asset("USDT")
+                .amount(new BigDecimal("10.50").add(BigDecimal.valueOf(id % 100)))
+                .description("Заказ №" + id)
+                .botInvoiceUrl("https://t.me/CryptoBot?start=IVx" + id)
+                .payUrl("https://t.me/CryptoBot?start=IVx" + id)
+                .status(paid ? "paid" : "active")
+                .createdAt(createdAt)
+                .expirationDate(createdAt.plusHours(1))
+                .paidAt(paid ? createdAt.plusMinutes(5) : null)
+                .paidBtnUser(paid ? Invoice.PaidBtnUser.builder()
+                        .userId(100_000L + id)
+                        .firstName("Иван")
+                        .username("user" + id)
+                        .build() : null)
+                .allowedPaymentMethods(Arrays.asList("USDT", "TON", "BTC"))
+                .build();
+    }
+
+    /**
+     * Создает страницу счетов в формате ответа API.
+     *
+     * @param size количество счетов на странице
+     * @return JSON-ответ в байтах
+     */
+    static byte[] invoicePage(int size) {
+        List<Invoice> invoices = new ArrayList<>(size);
+        for (int i = size; i > 0; i--) {
+            invoices.add(invoice(i));
+        }
+        try {
+            return objectMapper().writeValueAsBytes(new ApiResponse<>(true, invoices, null, null, null));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
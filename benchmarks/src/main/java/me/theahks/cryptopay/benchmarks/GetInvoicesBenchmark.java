@@ -0,0 +1,70 @@
+package me.theahks.cryptopay.benchmarks;
+
+import me.theahks.cryptopay.api.CryptoPay;
+import me.theahks.cryptopay.model.Invoice;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Полный цикл {@link CryptoPay#getInvoices} против локального HTTP-сервера в том же процессе.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GetInvoicesBenchmark {
+
+    @Param({"1", "100"})
+    private int pageSize;
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private CryptoPay cryptoPay;
+    private CryptoPay.GetInvoicesParams params;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Без TCP_NODELAY встроенный сервер добавляет задержку ~40 мс на каждый ответ
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        byte[] page = Fixtures.invoicePage(pageSize);
+        executor = Executors.newFixedThreadPool(4);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/api/", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, page.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(page);
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+
+        cryptoPay = CryptoPay.builder()
+                .apiToken("benchmark")
+                .hostUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/api/")
+                .build();
+        params = CryptoPay.GetInvoicesParams.builder().count(pageSize).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public List<Invoice> getInvoices() {
+        return cryptoPay.getInvoices(params);
+    }
+}
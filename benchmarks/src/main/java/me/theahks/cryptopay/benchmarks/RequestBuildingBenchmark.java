@@ -0,0 +1,67 @@
+package me.theahks.cryptopay.benchmarks;
+
+import me.theahks.cryptopay.api.CryptoPay;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.HttpUrl;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Подготовка запросов: сериализация параметров и построение URL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestBuildingBenchmark {
+    private static final String BASE_URL = "https://pay.crypt.bot/api/";
+
+    private ObjectMapper objectMapper;
+    private CryptoPay.CreateInvoiceParams createInvoiceParams;
+    private CryptoPay.GetInvoicesParams getInvoicesParams;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Fixtures.objectMapper();
+        createInvoiceParams = CryptoPay.CreateInvoiceParams.builder()
+                .asset("USDT")
+                .amount(new BigDecimal("125.50"))
+                .description("Заказ №123456")
+                .expiresIn(Duration.ofHours(1))
+                .allowedPaymentMethods(Arrays.asList("USDT", "TON"))
+                .build();
+        getInvoicesParams = CryptoPay.GetInvoicesParams.builder()
+                .status(Arrays.asList("active", "paid"))
+                .asset("USDT")
+                .offset(1000)
+                .count(100)
+                .build();
+    }
+
+    @Benchmark
+    public byte[] serializeCreateInvoiceParams() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(createInvoiceParams);
+    }
+
+    @Benchmark
+    public Map<String, String> toQueryParams() {
+        return getInvoicesParams.toQueryParams();
+    }
+
+    @Benchmark
+    public HttpUrl toQueryParamsAndUrl() {
+        // Повторяет построение URL в HttpClient.get
+        HttpUrl.Builder urlBuilder = Objects.requireNonNull(HttpUrl.parse(BASE_URL + "getInvoices")).newBuilder();
+        getInvoicesParams.toQueryParams().forEach(urlBuilder::addQueryParameter);
+        return urlBuilder.build();
+    }
+}
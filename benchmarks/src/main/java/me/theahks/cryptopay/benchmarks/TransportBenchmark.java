@@ -0,0 +1,74 @@
+package me.theahks.cryptopay.benchmarks;
+
+import me.theahks.cryptopay.api.CryptoPay;
+import me.theahks.cryptopay.model.Invoice;
+import me.theahks.cryptopay.simulator.CryptoPaySimulator;
+import me.theahks.cryptopay.transport.JdkHttpTransport;
+import me.theahks.cryptopay.transport.OkHttpTransport;
+import me.theahks.cryptopay.transport.Transport;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.http.HttpClient;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение транспортов на одном и том же вызове {@link CryptoPay#getInvoices} против симулятора.
+ * Транспорт {@code in-process} показывает накладные расходы клиента без сети.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransportBenchmark {
+
+    @Param({"okhttp", "jdk-http1", "jdk-http2", "in-process"})
+    private String transport;
+
+    private CryptoPaySimulator simulator;
+    private CryptoPay cryptoPay;
+    private CryptoPay.GetInvoicesParams params;
+
+    @Setup
+    public void setUp() throws IOException {
+        simulator = CryptoPaySimulator.builder().paymentProbability(0.0).build().start();
+        cryptoPay = CryptoPay.builder()
+                .apiToken("benchmark")
+                .hostUrl(simulator.getBaseUrl())
+                .transport(createTransport())
+                .build();
+        for (int i = 0; i < 100; i++) {
+            cryptoPay.createInvoice("USDT", new BigDecimal("10.50"), "Заказ №" + i);
+        }
+        params = CryptoPay.GetInvoicesParams.builder().count(20).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        simulator.close();
+    }
+
+    @Benchmark
+    public List<Invoice> getInvoices() {
+        return cryptoPay.getInvoices(params);
+    }
+
+    private Transport createTransport() {
+        switch (transport) {
+            case "okhttp":
+                return new OkHttpTransport(false);
+            case "jdk-http1":
+                return new JdkHttpTransport(HttpClient.Version.HTTP_1_1);
+            case "jdk-http2":
+                return new JdkHttpTransport(HttpClient.Version.HTTP_2);
+            case "in-process":
+                return simulator.asTransport();
+            default:
+                throw new IllegalArgumentException(transport);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package me.theahks.cryptopay.analytics;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Суммы в виде long с фиксированной точностью 9 знаков после запятой.
+ */
+final class FixedPoint {
+    static final int SCALE = 9;
+
+    private FixedPoint() {
+    }
+
+    /**
+     * Переводит сумму в единицы 10^-9 с банковским округлением.
+     *
+     * @param amount сумма
+     * @return количество единиц
+     * @throws ArithmeticException если сумма не помещается в long
+     */
+    static long toUnits(BigDecimal amount) {
+        if (amount.scale() <= SCALE) {
+            // Без округления: сдвиг дает целое число без промежуточного BigInteger
+            return amount.movePointRight(SCALE).longValueExact();
+        }
+        return amount.setScale(SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Переводит единицы 10^-9 обратно в сумму без незначащих нулей.
+     *
+     * @param units количество единиц
+     * @return сумма
+     */
+    static BigDecimal toAmount(long units) {
+        return BigDecimal.valueOf(units, SCALE).stripTrailingZeros();
+    }
+}
@@ -0,0 +1,134 @@
+package me.theahks.cryptopay.analytics;
+
+import me.theahks.cryptopay.api.CryptoPay;
+import me.theahks.cryptopay.model.ExchangeRate;
+import com.google.common.base.Preconditions;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * История обменных курсов по валютным парам.
+ * <p>
+ * Каждое обновление через {@link CryptoPay#getAllExchangeRates()} добавляет по отсчету в
+ * {@link RateSeries} каждой пары с актуальным положительным курсом. Агрегаты пар читаются без
+ * блокировок из любых потоков.
+ */
+@Slf4j
+public class RateHistory implements AutoCloseable {
+    private static final int DEFAULT_CAPACITY = 360;
+    private static final Duration DEFAULT_REFRESH_INTERVAL = Duration.ofSeconds(10);
+
+    private final CryptoPay cryptoPay;
+    private final int capacity;
+    private final Duration refreshInterval;
+    private final ConcurrentMap<String, RateSeries> series = new ConcurrentHashMap<>();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Создает историю курсов.
+     *
+     * @param cryptoPay клиент API (не нужен, если отсчеты добавляются через {@link #record(List, long)})
+     * @param capacity количество хранимых отсчетов каждой пары (по умолчанию 360)
+     * @param refreshInterval интервал обновления после {@link #start()} (по умолчанию 10 секунд)
+     */
+    @Builder
+    public RateHistory(CryptoPay cryptoPay, int capacity, Duration refreshInterval) {
+        Preconditions.checkArgument(capacity == 0 || capacity >= 2, "Размер истории должен быть не меньше 2");
+        this.cryptoPay = cryptoPay;
+        this.capacity = capacity > 0 ? capacity : DEFAULT_CAPACITY;
+        this.refreshInterval = refreshInterval != null ? refreshInterval : DEFAULT_REFRESH_INTERVAL;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cryptopay-rate-history");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Запускает периодическое обновление в фоновом потоке. Повторный вызов ничего не делает.
+     */
+    public void start() {
+        Preconditions.checkState(cryptoPay != null, "Для обновления курсов необходимо указать CryptoPay");
+        if (started.compareAndSet(false, true)) {
+            scheduler.scheduleWithFixedDelay(this::refreshSafely, 0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Запрашивает текущие курсы и добавляет их в историю.
+     */
+    public void refresh() {
+        Preconditions.checkState(cryptoPay != null, "Для обновления курсов необходимо указать CryptoPay");
+        record(cryptoPay.getAllExchangeRates(), System.currentTimeMillis());
+    }
+
+    /**
+     * Добавляет курсы в историю. Неактуальные и неположительные курсы пропускаются.
+     *
+     * @param rates курсы
+     * @param timestampMillis время получения курсов в миллисекундах
+     */
+    public void record(List<ExchangeRate> rates, long timestampMillis) {
+        for (ExchangeRate rate : rates) {
+            if (!rate.isValid() || rate.getRate() == null || rate.getRate().signum() <= 0) {
+                continue;
+            }
+            series.computeIfAbsent(key(rate.getSource(), rate.getTarget()),
+                            key -> new RateSeries(rate.getSource(), rate.getTarget(), capacity))
+                    .add(timestampMillis, rate.getRate().doubleValue());
+        }
+    }
+
+    /**
+     * Возвращает историю курса пары.
+     *
+     * @param source код исходной валюты
+     * @param target код целевой валюты
+     * @return история или пустой Optional, если курс пары еще не получен
+     */
+    public Optional<RateSeries> getSeries(String source, String target) {
+        return Optional.ofNullable(series.get(key(source, target)));
+    }
+
+    /**
+     * Возвращает истории всех пар, для которых получен хотя бы один курс.
+     *
+     * @return неизменяемое представление историй
+     */
+    public Collection<RateSeries> getSeries() {
+        return Collections.unmodifiableCollection(series.values());
+    }
+
+    /**
+     * Останавливает периодическое обновление.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void refreshSafely() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Ошибка при обновлении истории курсов", e);
+        }
+    }
+
+    private static String key(String source, String target) {
+        return source + "/" + target;
+    }
+}
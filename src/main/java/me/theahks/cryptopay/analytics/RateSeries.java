@@ -0,0 +1,274 @@
+package me.theahks.cryptopay.analytics;
+
+import com.google.common.base.Preconditions;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * История курса одной валютной пары в кольцевом буфере фиксированного размера.
+ * <p>
+ * Отсчеты (время, курс) хранятся в примитивных массивах. Суммы для среднего и волатильности, а также
+ * минимум и максимум окна обновляются при каждой записи за амортизированное O(1): минимум и максимум
+ * поддерживаются монотонными очередями. Волатильность считается как стандартное отклонение
+ * логарифмических доходностей между соседними отсчетами окна.
+ * <p>
+ * Запись выполняется одним потоком за раз. Чтение не блокируется: агрегаты публикуются под счетчиком
+ * версий (seqlock), и читатель повторяет чтение, если во время него произошла запись.
+ */
+public final class RateSeries {
+    private static final VarHandle VERSION;
+
+    static {
+        try {
+            VERSION = MethodHandles.lookup().findVarHandle(RateSeries.class, "version", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Getter
+    private final String source;
+    @Getter
+    private final String target;
+    private final int capacity;
+
+    // Состояние писателя
+    private final long[] timestamps;
+    private final double[] rates;
+    private final double[] returns;
+    private final long[] minQueue;
+    private final long[] maxQueue;
+    private long minHead;
+    private long minTail;
+    private long maxHead;
+    private long maxTail;
+    private long appended;
+    private double sum;
+    private double returnSum;
+    private double returnSumOfSquares;
+
+    // Агрегаты, публикуемые для читателей
+    private volatile long version;
+    private int publishedSize;
+    private long publishedFirstTimestamp;
+    private long publishedTimestamp;
+    private double publishedLast;
+    private double publishedMean;
+    private double publishedMin;
+    private double publishedMax;
+    private double publishedVolatility;
+
+    RateSeries(String source, String target, int capacity) {
+        Preconditions.checkArgument(capacity >= 2, "Размер истории должен быть не меньше 2");
+        this.source = source;
+        this.target = target;
+        this.capacity = capacity;
+        this.timestamps = new long[capacity];
+        this.rates = new double[capacity];
+        this.returns = new double[capacity];
+        this.minQueue = new long[capacity];
+        this.maxQueue = new long[capacity];
+    }
+
+    /**
+     * Добавляет отсчет. Курс должен быть положительным.
+     *
+     * @param timestampMillis время отсчета в миллисекундах
+     * @param rate курс
+     */
+    synchronized void add(long timestampMillis, double rate) {
+        Preconditions.checkArgument(rate > 0, "Курс должен быть положительным");
+        long seq = appended;
+        int slot = (int) (seq % capacity);
+
+        if (seq >= capacity) {
+            double evicted = rates[slot];
+            sum -= evicted;
+            // Первый отсчет окна теряет доходность к предыдущему
+            double dropped = returns[(int) ((seq + 1) % capacity)];
+            returnSum -= dropped;
+            returnSumOfSquares -= dropped * dropped;
+        }
+        if (minHead < minTail && minQueue[(int) (minHead % capacity)] <= seq - capacity) {
+            minHead++;
+        }
+        if (maxHead < maxTail && maxQueue[(int) (maxHead % capacity)] <= seq - capacity) {
+            maxHead++;
+        }
+
+        if (seq > 0) {
+            double logReturn = Math.log(rate / rates[(int) ((seq - 1) % capacity)]);
+            returns[slot] = logReturn;
+            returnSum += logReturn;
+            returnSumOfSquares += logReturn * logReturn;
+        }
+        timestamps[slot] = timestampMillis;
+        rates[slot] = rate;
+        sum += rate;
+        appended = seq + 1;
+
+        while (minHead < minTail && rates[(int) (minQueue[(int) ((minTail - 1) % capacity)] % capacity)] >= rate) {
+            minTail--;
+        }
+        minQueue[(int) (minTail++ % capacity)] = seq;
+        while (maxHead < maxTail && rates[(int) (maxQueue[(int) ((maxTail - 1) % capacity)] % capacity)] <= rate) {
+            maxTail--;
+        }
+        maxQueue[(int) (maxTail++ % capacity)] = seq;
+
+        if (appended % capacity == 0) {
+            recomputeSums();
+        }
+        publish(timestampMillis, rate);
+    }
+
+    /**
+     * Возвращает согласованный снимок агрегатов окна.
+     *
+     * @return снимок; при пустой истории все значения равны 0
+     */
+    public Stats getStats() {
+        while (true) {
+            long before = (long) VERSION.getAcquire(this);
+            if ((before & 1) == 0) {
+                Stats stats = Stats.builder()
+                        .size(publishedSize)
+                        .firstTimestamp(publishedFirstTimestamp)
+                        .timestamp(publishedTimestamp)
+                        .last(publishedLast)
+                        .mean(publishedMean)
+                        .min(publishedMin)
+                        .max(publishedMax)
+                        .volatility(publishedVolatility)
+                        .build();
+                VarHandle.loadLoadFence();
+                if ((long) VERSION.getOpaque(this) == before) {
+                    return stats;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Среднее значение курса в окне.
+     *
+     * @return среднее или 0 для пустой истории
+     */
+    public double getMean() {
+        return getStats().getMean();
+    }
+
+    /**
+     * Минимальный курс в окне.
+     *
+     * @return минимум или 0 для пустой истории
+     */
+    public double getMin() {
+        return getStats().getMin();
+    }
+
+    /**
+     * Максимальный курс в окне.
+     *
+     * @return максимум или 0 для пустой истории
+     */
+    public double getMax() {
+        return getStats().getMax();
+    }
+
+    /**
+     * Стандартное отклонение логарифмических доходностей между соседними отсчетами окна.
+     *
+     * @return волатильность или 0, если отсчетов меньше трех
+     */
+    public double getVolatility() {
+        return getStats().getVolatility();
+    }
+
+    /**
+     * Максимальное количество хранимых отсчетов.
+     *
+     * @return размер кольцевого буфера
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private void publish(long timestampMillis, double rate) {
+        int size = (int) Math.min(appended, capacity);
+        int returnCount = size - 1;
+        double volatility = 0;
+        if (returnCount > 1) {
+            double variance = (returnSumOfSquares - returnSum * returnSum / returnCount) / (returnCount - 1);
+            volatility = variance > 0 ? Math.sqrt(variance) : 0;
+        }
+
+        long current = version;
+        VERSION.setOpaque(this, current + 1);
+        VarHandle.storeStoreFence();
+        publishedSize = size;
+        publishedFirstTimestamp = timestamps[(int) ((appended - size) % capacity)];
+        publishedTimestamp = timestampMillis;
+        publishedLast = rate;
+        publishedMean = sum / size;
+        publishedMin = rates[(int) (minQueue[(int) (minHead % capacity)] % capacity)];
+        publishedMax = rates[(int) (maxQueue[(int) (maxHead % capacity)] % capacity)];
+        publishedVolatility = volatility;
+        VERSION.setRelease(this, current + 2);
+    }
+
+    /**
+     * Пересчитывает суммы по буферу, чтобы ошибка округления не накапливалась при скользящем вычитании.
+     */
+    private void recomputeSums() {
+        int size = (int) Math.min(appended, capacity);
+        long first = appended - size;
+        sum = 0;
+        returnSum = 0;
+        returnSumOfSquares = 0;
+        for (long seq = first; seq < appended; seq++) {
+            int slot = (int) (seq % capacity);
+            sum += rates[slot];
+            if (seq > first) {
+                returnSum += returns[slot];
+                returnSumOfSquares += returns[slot] * returns[slot];
+            }
+        }
+    }
+
+    /**
+     * Агрегаты окна истории курса.
+     */
+    @Getter
+    @Builder
+    public static class Stats {
+        /**
+         * Количество отсчетов в окне.
+         */
+        private final int size;
+
+        /**
+         * Время первого отсчета окна в миллисекундах.
+         */
+        private final long firstTimestamp;
+
+        /**
+         * Время последнего отсчета в миллисекундах.
+         */
+        private final long timestamp;
+
+        /**
+         * Последний курс.
+         */
+        private final double last;
+
+        private final double mean;
+        private final double min;
+        private final double max;
+        private final double volatility;
+    }
+}
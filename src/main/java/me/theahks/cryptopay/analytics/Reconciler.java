@@ -0,0 +1,430 @@
+package me.theahks.cryptopay.analytics;
+
+import me.theahks.cryptopay.api.CryptoPay;
+import me.theahks.cryptopay.exception.CryptoPayApiException;
+import me.theahks.cryptopay.model.Invoice;
+import me.theahks.cryptopay.model.Transfer;
+import me.theahks.cryptopay.util.LongIntHashMap;
+import com.google.common.base.Preconditions;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Сверка локального учета с историей счетов или переводов в API.
+ * <p>
+ * Локальные и удаленные записи читаются одновременно: локальные в вызывающем потоке, удаленные в
+ * отдельном. По мере чтения записи раскладываются по разделам по хэшу идентификатора в примитивные
+ * массивы (идентификатор, сумма с точностью 9 знаков, код статуса). Затем разделы сверяются параллельно
+ * через хэш-таблицы {@link LongIntHashMap} без упаковки идентификаторов.
+ * <p>
+ * Идентификаторы локальных записей должны быть уникальны. Повторы удаленных записей (например, из-за
+ * сдвига страниц при появлении новых счетов во время чтения) учитываются один раз.
+ */
+public class Reconciler {
+    private static final int REMOTE_PAGE_SIZE = 1000;
+    private static final int NO_STATUS = -1;
+
+    private final int parallelism;
+
+    /**
+     * Создает сверку.
+     *
+     * @param parallelism количество разделов и потоков сверки (по умолчанию число процессоров)
+     */
+    @Builder
+    public Reconciler(int parallelism) {
+        Preconditions.checkArgument(parallelism >= 0, "Количество потоков не может быть отрицательным");
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Сверяет локальные записи с удаленными.
+     *
+     * @param local локальные записи
+     * @param remote удаленные записи
+     * @return результат сверки
+     * @throws CryptoPayApiException если чтение удаленных записей завершилось ошибкой API
+     */
+    public Report reconcile(Iterator<Record> local, Iterator<Record> remote) {
+        Map<String, Integer> statusCodes = new ConcurrentHashMap<>();
+        List<String> statuses = Collections.synchronizedList(new ArrayList<>());
+        Partitions localSide = new Partitions(parallelism, statusCodes, statuses);
+        Partitions remoteSide = new Partitions(parallelism, statusCodes, statuses);
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(2, parallelism), runnable -> {
+            Thread thread = new Thread(runnable, "cryptopay-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            CompletableFuture<Void> remoteRead = CompletableFuture.runAsync(() -> remoteSide.addAll(remote), executor);
+            localSide.addAll(local);
+            join(remoteRead);
+
+            List<CompletableFuture<PartitionResult>> results = new ArrayList<>(parallelism);
+            for (int partition = 0; partition < parallelism; partition++) {
+                int index = partition;
+                results.add(CompletableFuture.supplyAsync(
+                        () -> match(localSide.get(index), remoteSide.get(index), statuses), executor));
+            }
+            return merge(results, localSide.count(), remoteSide.count());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Возвращает удаленные записи счетов: идентификатор, сумма и статус. Счета в фиатной валюте
+     * сверяются по сумме в фиате. Страницы читаются по мере обхода.
+     *
+     * @param cryptoPay клиент API
+     * @param filter параметры фильтрации счетов (смещение и количество не используются)
+     * @return записи счетов
+     */
+    public static Iterator<Record> invoices(CryptoPay cryptoPay, CryptoPay.GetInvoicesParams filter) {
+        return new PageIterator<>(offset -> cryptoPay.getInvoices(CryptoPay.GetInvoicesParams.builder()
+                .status(filter.getStatus())
+                .asset(filter.getAsset())
+                .invoiceId(filter.getInvoiceId())
+                .invoiceIds(filter.getInvoiceIds())
+                .offset(offset)
+                .count(REMOTE_PAGE_SIZE)
+                .build()),
+                (Invoice invoice) -> Record.of(invoice.getInvoiceId(),
+                        invoice.getAsset() != null ? invoice.getAmount() : invoice.getFiatAmount(),
+                        invoice.getStatus()));
+    }
+
+    /**
+     * Возвращает удаленные записи переводов: идентификатор, сумма и статус. Страницы читаются по мере обхода.
+     *
+     * @param cryptoPay клиент API
+     * @param filter параметры фильтрации переводов (смещение и количество не используются)
+     * @return записи переводов
+     */
+    public static Iterator<Record> transfers(CryptoPay cryptoPay, CryptoPay.GetTransfersParams filter) {
+        return new PageIterator<>(offset -> cryptoPay.getTransfers(CryptoPay.GetTransfersParams.builder()
+                .asset(filter.getAsset())
+                .transferId(filter.getTransferId())
+                .offset(offset)
+                .count(REMOTE_PAGE_SIZE)
+                .build()),
+                (Transfer transfer) -> Record.of(transfer.getTransferId(), transfer.getAmount(), transfer.getStatus()));
+    }
+
+    private static PartitionResult match(Partition local, Partition remote, List<String> statuses) {
+        PartitionResult result = new PartitionResult();
+        LongIntHashMap index = new LongIntHashMap(local.size, -1);
+        for (int i = 0; i < local.size; i++) {
+            index.put(local.ids[i], i);
+        }
+        boolean[] matched = new boolean[local.size];
+        for (int j = 0; j < remote.size; j++) {
+            long id = remote.ids[j];
+            int i = index.get(id);
+            if (i < 0) {
+                // Найденные лишние записи помечаются в той же таблице, чтобы повторы не попадали в отчет
+                if (index.putIfAbsent(id, Integer.MIN_VALUE) == -1) {
+                    result.extra = append(result.extra, result.extraCount++, id);
+                }
+                continue;
+            }
+            if (matched[i]) {
+                continue;
+            }
+            matched[i] = true;
+            result.matched++;
+
+            long localUnits = local.units[i];
+            long remoteUnits = remote.units[j];
+            int localStatus = local.statuses[i];
+            int remoteStatus = remote.statuses[j];
+            boolean amountMismatch = localUnits != Long.MIN_VALUE && remoteUnits != Long.MIN_VALUE
+                    && localUnits != remoteUnits;
+            boolean statusMismatch = localStatus != NO_STATUS && remoteStatus != NO_STATUS
+                    && localStatus != remoteStatus;
+            if (amountMismatch || statusMismatch) {
+                result.mismatches.add(Mismatch.builder()
+                        .id(id)
+                        .localAmount(localUnits != Long.MIN_VALUE ? FixedPoint.toAmount(localUnits) : null)
+                        .remoteAmount(remoteUnits != Long.MIN_VALUE ? FixedPoint.toAmount(remoteUnits) : null)
+                        .localStatus(localStatus != NO_STATUS ? statuses.get(localStatus) : null)
+                        .remoteStatus(remoteStatus != NO_STATUS ? statuses.get(remoteStatus) : null)
+                        .amountMismatch(amountMismatch)
+                        .statusMismatch(statusMismatch)
+                        .build());
+            }
+        }
+        for (int i = 0; i < local.size; i++) {
+            if (!matched[i]) {
+                result.missing = append(result.missing, result.missingCount++, local.ids[i]);
+            }
+        }
+        return result;
+    }
+
+    private static Report merge(List<CompletableFuture<PartitionResult>> results, long localCount, long remoteCount) {
+        long[] missing = new long[0];
+        long[] extra = new long[0];
+        int missingCount = 0;
+        int extraCount = 0;
+        long matched = 0;
+        List<Mismatch> mismatches = new ArrayList<>();
+        for (CompletableFuture<PartitionResult> future : results) {
+            PartitionResult result = join(future);
+            missing = concat(missing, missingCount, result.missing, result.missingCount);
+            missingCount += result.missingCount;
+            extra = concat(extra, extraCount, result.extra, result.extraCount);
+            extraCount += result.extraCount;
+            matched += result.matched;
+            mismatches.addAll(result.mismatches);
+        }
+        Arrays.sort(missing);
+        Arrays.sort(extra);
+        mismatches.sort((left, right) -> Long.compare(left.getId(), right.getId()));
+        return new Report(localCount, remoteCount, matched, missing, extra, Collections.unmodifiableList(mismatches));
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static long[] append(long[] array, int size, long value) {
+        if (size == array.length) {
+            array = Arrays.copyOf(array, Math.max(16, size * 2));
+        }
+        array[size] = value;
+        return array;
+    }
+
+    private static long[] concat(long[] left, int leftSize, long[] right, int rightSize) {
+        long[] joined = Arrays.copyOf(left, leftSize + rightSize);
+        System.arraycopy(right, 0, joined, leftSize, rightSize);
+        return joined;
+    }
+
+    /**
+     * Запись для сверки.
+     */
+    @Getter
+    @AllArgsConstructor(staticName = "of")
+    public static class Record {
+        /**
+         * Идентификатор счета или перевода.
+         */
+        private final long id;
+
+        /**
+         * Сумма (null — не сверять).
+         */
+        private final BigDecimal amount;
+
+        /**
+         * Статус (null — не сверять).
+         */
+        private final String status;
+    }
+
+    /**
+     * Расхождение суммы или статуса записи, найденной с обеих сторон.
+     */
+    @Getter
+    @Builder
+    public static class Mismatch {
+        private final long id;
+        private final BigDecimal localAmount;
+        private final BigDecimal remoteAmount;
+        private final String localStatus;
+        private final String remoteStatus;
+        private final boolean amountMismatch;
+        private final boolean statusMismatch;
+    }
+
+    /**
+     * Результат сверки. Идентификаторы и расхождения упорядочены по возрастанию идентификатора.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Report {
+        /**
+         * Количество прочитанных локальных записей.
+         */
+        private final long localCount;
+
+        /**
+         * Количество прочитанных удаленных записей, включая повторы.
+         */
+        private final long remoteCount;
+
+        /**
+         * Количество записей, найденных с обеих сторон.
+         */
+        private final long matchedCount;
+
+        /**
+         * Идентификаторы записей, которых нет в API.
+         */
+        private final long[] missingIds;
+
+        /**
+         * Идентификаторы записей API, которых нет в локальном учете.
+         */
+        private final long[] extraIds;
+
+        /**
+         * Расхождения сумм и статусов.
+         */
+        private final List<Mismatch> mismatches;
+
+        /**
+         * Проверяет, что расхождений нет.
+         *
+         * @return true, если все записи совпали
+         */
+        public boolean isClean() {
+            return missingIds.length == 0 && extraIds.length == 0 && mismatches.isEmpty();
+        }
+    }
+
+    /**
+     * Записи одной стороны, разложенные по разделам.
+     */
+    private static final class Partitions {
+        private final Partition[] partitions;
+        private final Map<String, Integer> statusCodes;
+        private final List<String> statuses;
+        private long count;
+
+        Partitions(int parallelism, Map<String, Integer> statusCodes, List<String> statuses) {
+            this.partitions = new Partition[parallelism];
+            for (int i = 0; i < parallelism; i++) {
+                partitions[i] = new Partition();
+            }
+            this.statusCodes = statusCodes;
+            this.statuses = statuses;
+        }
+
+        void addAll(Iterator<Record> records) {
+            while (records.hasNext()) {
+                Record record = records.next();
+                long hash = record.getId() * 0x9E3779B97F4A7C15L;
+                partitions[(int) Math.floorMod(hash ^ (hash >>> 32), (long) partitions.length)].add(record.getId(),
+                        record.getAmount() != null ? FixedPoint.toUnits(record.getAmount()) : Long.MIN_VALUE,
+                        statusCode(record.getStatus()));
+                count++;
+            }
+        }
+
+        Partition get(int index) {
+            return partitions[index];
+        }
+
+        long count() {
+            return count;
+        }
+
+        private int statusCode(String status) {
+            if (status == null) {
+                return NO_STATUS;
+            }
+            return statusCodes.computeIfAbsent(status, key -> {
+                synchronized (statuses) {
+                    statuses.add(key);
+                    return statuses.size() - 1;
+                }
+            });
+        }
+    }
+
+    /**
+     * Столбцы записей одного раздела.
+     */
+    private static final class Partition {
+        private long[] ids = new long[16];
+        private long[] units = new long[16];
+        private int[] statuses = new int[16];
+        private int size;
+
+        void add(long id, long amountUnits, int status) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                units = Arrays.copyOf(units, size * 2);
+                statuses = Arrays.copyOf(statuses, size * 2);
+            }
+            ids[size] = id;
+            units[size] = amountUnits;
+            statuses[size] = status;
+            size++;
+        }
+    }
+
+    private static final class PartitionResult {
+        private long[] missing = new long[0];
+        private int missingCount;
+        private long[] extra = new long[0];
+        private int extraCount;
+        private long matched;
+        private final List<Mismatch> mismatches = new ArrayList<>();
+    }
+
+    /**
+     * Постраничный обход списка API по смещению.
+     */
+    private static final class PageIterator<T> implements Iterator<Record> {
+        private final IntFunction<List<T>> fetcher;
+        private final Function<T, Record> mapper;
+        private List<T> page = Collections.emptyList();
+        private int position;
+        private int offset;
+        private boolean exhausted;
+
+        PageIterator(IntFunction<List<T>> fetcher, Function<T, Record> mapper) {
+            this.fetcher = fetcher;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (position == page.size() && !exhausted) {
+                List<T> next = fetcher.apply(offset);
+                page = next != null ? next : Collections.emptyList();
+                position = 0;
+                offset += page.size();
+                exhausted = page.size() < REMOTE_PAGE_SIZE;
+            }
+            return position < page.size();
+        }
+
+        @Override
+        public Record next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return mapper.apply(page.get(position++));
+        }
+    }
+}
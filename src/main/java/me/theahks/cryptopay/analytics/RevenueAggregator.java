@@ -0,0 +1,424 @@
+package me.theahks.cryptopay.analytics;
+
+import me.theahks.cryptopay.events.CryptoPayEvent;
+import me.theahks.cryptopay.events.InvoiceStatusChangedEvent;
+import me.theahks.cryptopay.events.TransferCreatedEvent;
+import me.theahks.cryptopay.model.Invoice;
+import me.theahks.cryptopay.model.Transfer;
+import me.theahks.cryptopay.util.LongIntHashMap;
+import com.google.common.base.Preconditions;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Инкрементальная агрегация выручки по счетам и переводам.
+ * <p>
+ * Записи раскладываются по интервалам времени (по умолчанию по часам) и по валютам. Для каждой валюты
+ * хранятся примитивные массивы по интервалам: объем и количество оплат (по дате оплаты), количество
+ * созданных и впоследствии оплаченных счетов (по дате создания) и объем выплат (по дате перевода), а
+ * также выплаты по пользователям. Суммы хранятся в long с точностью до 9 знаков после запятой.
+ * <p>
+ * Повторная передача той же записи (например, при каждом изменении статуса счета) не приводит к
+ * повторному учету. Частичные агрегаты, построенные параллельно по непересекающимся наборам записей,
+ * объединяются через {@link #merge(RevenueAggregator)}. Экземпляр не потокобезопасен.
+ */
+public class RevenueAggregator {
+    private static final Duration DEFAULT_BUCKET_WIDTH = Duration.ofHours(1);
+    private static final int COUNTED_CREATED = 1;
+    private static final int COUNTED_PAID = 2;
+
+    @Getter
+    private final Duration bucketWidth;
+    private final long bucketSeconds;
+    private final Map<String, CurrencyTotals> currencies = new TreeMap<>();
+    private final LongIntHashMap invoiceFlags = new LongIntHashMap(0);
+    private final LongIntHashMap countedTransfers = new LongIntHashMap(0);
+
+    /**
+     * Создает агрегатор.
+     *
+     * @param bucketWidth ширина интервала в целых секундах (по умолчанию 1 час)
+     */
+    @Builder
+    public RevenueAggregator(Duration bucketWidth) {
+        this.bucketWidth = bucketWidth != null ? bucketWidth : DEFAULT_BUCKET_WIDTH;
+        this.bucketSeconds = this.bucketWidth.getSeconds();
+        Preconditions.checkArgument(bucketSeconds > 0 && this.bucketWidth.getNano() == 0,
+                "Ширина интервала должна быть целым положительным числом секунд");
+    }
+
+    /**
+     * Учитывает счет. Счет учитывается как созданный при первой передаче и как оплаченный при первой
+     * передаче в статусе paid. Счета в фиатной валюте учитываются по валюте и сумме в фиате.
+     *
+     * @param invoice счет
+     */
+    public void addInvoice(Invoice invoice) {
+        String currency = invoice.getAsset() != null ? invoice.getAsset() : invoice.getFiatCurrency();
+        BigDecimal amount = invoice.getAsset() != null ? invoice.getAmount() : invoice.getFiatAmount();
+        if (invoice.getInvoiceId() == null || currency == null || invoice.getCreatedAt() == null) {
+            return;
+        }
+        long id = invoice.getInvoiceId();
+        int flags = invoiceFlags.get(id);
+        CurrencyTotals totals = totals(currency);
+        long createdBucket = bucket(invoice.getCreatedAt());
+
+        if ((flags & COUNTED_CREATED) == 0) {
+            int index = totals.index(createdBucket);
+            totals.created[index]++;
+            totals.totalCreated++;
+            flags |= COUNTED_CREATED;
+        }
+        if ((flags & COUNTED_PAID) == 0 && "paid".equals(invoice.getStatus()) && invoice.getPaidAt() != null
+                && amount != null) {
+            long units = FixedPoint.toUnits(amount);
+            long paidBucket = bucket(invoice.getPaidAt());
+            // Расширение массивов вниз сдвигает индексы, поэтому оба интервала резервируются заранее
+            totals.reserve(Math.min(createdBucket, paidBucket), Math.max(createdBucket, paidBucket));
+            int paid = totals.index(paidBucket);
+            int index = totals.index(createdBucket);
+            totals.paidUnits[paid] = Math.addExact(totals.paidUnits[paid], units);
+            totals.paidCount[paid]++;
+            totals.converted[index]++;
+            totals.totalPaidUnits = Math.addExact(totals.totalPaidUnits, units);
+            totals.totalConverted++;
+            flags |= COUNTED_PAID;
+        }
+        invoiceFlags.put(id, flags);
+    }
+
+    /**
+     * Учитывает завершенный перевод. Переводы в других статусах и повторные передачи пропускаются.
+     *
+     * @param transfer перевод
+     */
+    public void addTransfer(Transfer transfer) {
+        if (transfer.getTransferId() == null || transfer.getAsset() == null || transfer.getAmount() == null
+                || transfer.getCompletedAt() == null || !"completed".equals(transfer.getStatus())) {
+            return;
+        }
+        if (countedTransfers.putIfAbsent(transfer.getTransferId(), 1) != 0) {
+            return;
+        }
+        CurrencyTotals totals = totals(transfer.getAsset());
+        long units = FixedPoint.toUnits(transfer.getAmount());
+        int index = totals.index(bucket(transfer.getCompletedAt()));
+        totals.payoutUnits[index] = Math.addExact(totals.payoutUnits[index], units);
+        if (transfer.getUserId() != null) {
+            totals.addUserPayout(transfer.getUserId(), units);
+        }
+    }
+
+    /**
+     * Учитывает счета.
+     *
+     * @param invoices счета
+     */
+    public void addInvoices(Iterable<Invoice> invoices) {
+        for (Invoice invoice : invoices) {
+            addInvoice(invoice);
+        }
+    }
+
+    /**
+     * Учитывает переводы.
+     *
+     * @param transfers переводы
+     */
+    public void addTransfers(Iterable<Transfer> transfers) {
+        for (Transfer transfer : transfers) {
+            addTransfer(transfer);
+        }
+    }
+
+    /**
+     * Учитывает событие ленты изменений. События чеков пропускаются.
+     *
+     * @param event событие
+     */
+    public void accept(CryptoPayEvent event) {
+        if (event instanceof InvoiceStatusChangedEvent) {
+            addInvoice(((InvoiceStatusChangedEvent) event).getInvoice());
+        } else if (event instanceof TransferCreatedEvent) {
+            addTransfer(((TransferCreatedEvent) event).getTransfer());
+        }
+    }
+
+    /**
+     * Добавляет к этому агрегату данные другого. Агрегаты должны иметь одинаковую ширину интервала и
+     * строиться по непересекающимся наборам записей; после объединения повторные передачи записей
+     * другого агрегата также не учитываются.
+     *
+     * @param other другой агрегат
+     * @return этот агрегат
+     */
+    public RevenueAggregator merge(RevenueAggregator other) {
+        Preconditions.checkArgument(bucketSeconds == other.bucketSeconds,
+                "Ширина интервалов объединяемых агрегатов должна совпадать");
+        for (Map.Entry<String, CurrencyTotals> entry : other.currencies.entrySet()) {
+            totals(entry.getKey()).merge(entry.getValue());
+        }
+        other.invoiceFlags.forEach((id, flags) -> invoiceFlags.put(id, invoiceFlags.get(id) | flags));
+        other.countedTransfers.forEach(countedTransfers::put);
+        return this;
+    }
+
+    /**
+     * Возвращает валюты, по которым есть данные.
+     *
+     * @return коды валют в алфавитном порядке
+     */
+    public Set<String> getCurrencies() {
+        return Collections.unmodifiableSet(currencies.keySet());
+    }
+
+    /**
+     * Возвращает общий объем оплаченных счетов в валюте.
+     *
+     * @param currency код валюты
+     * @return объем или 0
+     */
+    public BigDecimal getPaidVolume(String currency) {
+        CurrencyTotals totals = currencies.get(currency);
+        return FixedPoint.toAmount(totals != null ? totals.totalPaidUnits : 0);
+    }
+
+    /**
+     * Возвращает долю оплаченных счетов среди созданных в валюте.
+     *
+     * @param currency код валюты
+     * @return доля от 0 до 1 или 0, если счетов не было
+     */
+    public double getConversionRate(String currency) {
+        CurrencyTotals totals = currencies.get(currency);
+        return totals == null || totals.totalCreated == 0 ? 0 : totals.totalConverted / (double) totals.totalCreated;
+    }
+
+    /**
+     * Возвращает непустые интервалы валюты в хронологическом порядке.
+     *
+     * @param currency код валюты
+     * @return интервалы
+     */
+    public List<Bucket> getBuckets(String currency) {
+        CurrencyTotals totals = currencies.get(currency);
+        if (totals == null) {
+            return Collections.emptyList();
+        }
+        List<Bucket> buckets = new ArrayList<>();
+        for (int i = 0; i < totals.capacity(); i++) {
+            if (totals.isEmpty(i)) {
+                continue;
+            }
+            buckets.add(Bucket.builder()
+                    .start(LocalDateTime.ofEpochSecond((totals.firstBucket + i) * bucketSeconds, 0, ZoneOffset.UTC))
+                    .paidVolume(FixedPoint.toAmount(totals.paidUnits[i]))
+                    .paidCount(totals.paidCount[i])
+                    .createdCount(totals.created[i])
+                    .convertedCount(totals.converted[i])
+                    .payoutVolume(FixedPoint.toAmount(totals.payoutUnits[i]))
+                    .build());
+        }
+        return buckets;
+    }
+
+    /**
+     * Возвращает сумму выплат пользователю в валюте.
+     *
+     * @param currency код валюты
+     * @param userId идентификатор пользователя Telegram
+     * @return сумма или 0
+     */
+    public BigDecimal getPayout(String currency, long userId) {
+        CurrencyTotals totals = currencies.get(currency);
+        if (totals == null) {
+            return FixedPoint.toAmount(0);
+        }
+        int slot = totals.userSlots.get(userId);
+        return FixedPoint.toAmount(slot >= 0 ? totals.userPayoutUnits[slot] : 0);
+    }
+
+    /**
+     * Возвращает суммы выплат по пользователям в валюте.
+     *
+     * @param currency код валюты
+     * @return суммы по идентификаторам пользователей
+     */
+    public Map<Long, BigDecimal> getPayouts(String currency) {
+        CurrencyTotals totals = currencies.get(currency);
+        if (totals == null) {
+            return Collections.emptyMap();
+        }
+        Map<Long, BigDecimal> payouts = new HashMap<>();
+        totals.userSlots.forEach((userId, slot) -> payouts.put(userId, FixedPoint.toAmount(totals.userPayoutUnits[slot])));
+        return payouts;
+    }
+
+    private CurrencyTotals totals(String currency) {
+        return currencies.computeIfAbsent(currency, key -> new CurrencyTotals());
+    }
+
+    private long bucket(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), bucketSeconds);
+    }
+
+    /**
+     * Данные одного интервала времени.
+     */
+    @Getter
+    @Builder
+    public static class Bucket {
+        /**
+         * Начало интервала (UTC).
+         */
+        private final LocalDateTime start;
+
+        /**
+         * Объем оплат в интервале.
+         */
+        private final BigDecimal paidVolume;
+
+        /**
+         * Количество оплат в интервале.
+         */
+        private final int paidCount;
+
+        /**
+         * Количество счетов, созданных в интервале.
+         */
+        private final int createdCount;
+
+        /**
+         * Количество счетов, созданных в интервале и оплаченных.
+         */
+        private final int convertedCount;
+
+        /**
+         * Объем завершенных переводов в интервале.
+         */
+        private final BigDecimal payoutVolume;
+
+        /**
+         * Доля оплаченных счетов среди созданных в интервале.
+         *
+         * @return доля от 0 до 1 или 0, если счетов не создавалось
+         */
+        public double getConversionRate() {
+            return createdCount == 0 ? 0 : convertedCount / (double) createdCount;
+        }
+    }
+
+    /**
+     * Накопители одной валюты. Массивы интервалов начинаются с firstBucket и расширяются в обе стороны.
+     */
+    private static final class CurrencyTotals {
+        private static final int INITIAL_CAPACITY = 16;
+
+        private long firstBucket;
+        private long[] paidUnits = new long[0];
+        private int[] paidCount = new int[0];
+        private int[] created = new int[0];
+        private int[] converted = new int[0];
+        private long[] payoutUnits = new long[0];
+        private long totalPaidUnits;
+        private long totalCreated;
+        private long totalConverted;
+
+        private final LongIntHashMap userSlots = new LongIntHashMap(-1);
+        private long[] userPayoutUnits = new long[INITIAL_CAPACITY];
+
+        int capacity() {
+            return paidUnits.length;
+        }
+
+        boolean isEmpty(int index) {
+            return created[index] == 0 && paidCount[index] == 0 && payoutUnits[index] == 0;
+        }
+
+        int index(long bucket) {
+            int capacity = capacity();
+            if (capacity == 0) {
+                firstBucket = bucket;
+                resize(INITIAL_CAPACITY, 0);
+            } else if (bucket < firstBucket) {
+                // Емкость хотя бы удваивается, поэтому последовательный рост амортизированно O(1)
+                int grown = Math.toIntExact(Math.max(capacity * 2L, firstBucket + capacity - bucket));
+                int shift = grown - capacity;
+                firstBucket -= shift;
+                resize(grown, shift);
+            } else if (bucket >= firstBucket + capacity) {
+                resize(Math.toIntExact(Math.max(capacity * 2L, bucket - firstBucket + 1)), 0);
+            }
+            return (int) (bucket - firstBucket);
+        }
+
+        void reserve(long from, long to) {
+            index(from);
+            index(to);
+        }
+
+        void addUserPayout(long userId, long units) {
+            int slot = userSlots.get(userId);
+            if (slot < 0) {
+                slot = userSlots.size();
+                userSlots.put(userId, slot);
+                if (slot == userPayoutUnits.length) {
+                    userPayoutUnits = Arrays.copyOf(userPayoutUnits, slot * 2);
+                }
+            }
+            userPayoutUnits[slot] = Math.addExact(userPayoutUnits[slot], units);
+        }
+
+        void merge(CurrencyTotals other) {
+            for (int i = 0; i < other.capacity(); i++) {
+                if (other.isEmpty(i)) {
+                    continue;
+                }
+                int index = index(other.firstBucket + i);
+                paidUnits[index] = Math.addExact(paidUnits[index], other.paidUnits[i]);
+                paidCount[index] += other.paidCount[i];
+                created[index] += other.created[i];
+                converted[index] += other.converted[i];
+                payoutUnits[index] = Math.addExact(payoutUnits[index], other.payoutUnits[i]);
+            }
+            totalPaidUnits = Math.addExact(totalPaidUnits, other.totalPaidUnits);
+            totalCreated += other.totalCreated;
+            totalConverted += other.totalConverted;
+            other.userSlots.forEach((userId, slot) -> addUserPayout(userId, other.userPayoutUnits[slot]));
+        }
+
+        private void resize(int capacity, int shift) {
+            paidUnits = grow(paidUnits, capacity, shift);
+            paidCount = grow(paidCount, capacity, shift);
+            created = grow(created, capacity, shift);
+            converted = grow(converted, capacity, shift);
+            payoutUnits = grow(payoutUnits, capacity, shift);
+        }
+
+        private static long[] grow(long[] array, int capacity, int shift) {
+            long[] grown = new long[capacity];
+            System.arraycopy(array, 0, grown, shift, array.length);
+            return grown;
+        }
+
+        private static int[] grow(int[] array, int capacity, int shift) {
+            int[] grown = new int[capacity];
+            System.arraycopy(array, 0, grown, shift, array.length);
+            return grown;
+        }
+    }
+}
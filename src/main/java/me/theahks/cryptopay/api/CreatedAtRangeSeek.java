@@ -0,0 +1,157 @@
+package me.theahks.cryptopay.api;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Выборка элементов списка с пагинацией по смещению, созданных в заданном интервале времени.
+ * <p>
+ * Списки API упорядочены по убыванию идентификатора и, следовательно, даты создания. Начало интервала
+ * находится экспоненциальным (galloping), а затем двоичным поиском по смещению с небольшими пробными
+ * страницами, после чего последовательно читаются только страницы, покрывающие интервал. Вместо
+ * просмотра всей истории выполняется O(log n) пробных запросов.
+ * <p>
+ * Новые элементы, появившиеся во время поиска, сдвигают список вправо: чтение в этом случае начинается
+ * чуть раньше нужного, лишние элементы отбрасываются по дате, а повторы на стыке страниц — по идентификатору.
+ *
+ * @param <T> тип элемента списка
+ */
+class CreatedAtRangeSeek<T> {
+    private static final int FIRST_OLDER = -1;
+    private static final int ALL_NEWER = -2;
+
+    /**
+     * Чтение страницы списка.
+     *
+     * @param <T> тип элемента
+     */
+    @FunctionalInterface
+    interface PageFetcher<T> {
+        List<T> fetch(int offset, int count);
+    }
+
+    private final PageFetcher<T> fetcher;
+    private final Function<T, LocalDateTime> createdAt;
+    private final ToLongFunction<T> id;
+    private final int probeCount;
+    private final int pageSize;
+
+    /**
+     * Создает выборку.
+     *
+     * @param fetcher чтение страницы
+     * @param createdAt дата создания элемента
+     * @param id идентификатор элемента
+     * @param probeCount размер пробной страницы при поиске
+     * @param pageSize размер страницы при чтении интервала
+     */
+    CreatedAtRangeSeek(PageFetcher<T> fetcher, Function<T, LocalDateTime> createdAt, ToLongFunction<T> id,
+                       int probeCount, int pageSize) {
+        this.fetcher = fetcher;
+        this.createdAt = createdAt;
+        this.id = id;
+        this.probeCount = probeCount;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Возвращает элементы, созданные в интервале [from, to), в порядке списка.
+     *
+     * @param from начало интервала включительно
+     * @param to конец интервала не включительно
+     * @return элементы интервала
+     */
+    List<T> range(LocalDateTime from, LocalDateTime to) {
+        List<T> result = new ArrayList<>();
+        if (!from.isBefore(to)) {
+            return result;
+        }
+
+        int offset = seekOlderThan(to);
+        long lastId = Long.MAX_VALUE;
+        while (true) {
+            List<T> page = fetcher.fetch(offset, pageSize);
+            for (T item : page) {
+                LocalDateTime created = createdAt.apply(item);
+                if (created.isBefore(from)) {
+                    return result;
+                }
+                long itemId = id.applyAsLong(item);
+                if (itemId < lastId && created.isBefore(to)) {
+                    result.add(item);
+                    lastId = itemId;
+                }
+            }
+            if (page.size() < pageSize) {
+                return result;
+            }
+            offset += page.size();
+        }
+    }
+
+    /**
+     * Находит смещение первого элемента, созданного раньше указанного момента.
+     *
+     * @param moment момент времени
+     * @return смещение или длина списка, если таких элементов нет
+     */
+    private int seekOlderThan(LocalDateTime moment) {
+        // Все элементы до low созданы не раньше moment; элемент high (если известен) — раньше
+        int low = 0;
+        int high = -1;
+        int step = probeCount;
+
+        while (high < 0) {
+            int probe = low + step - probeCount;
+            int found = probe(probe, low, moment);
+            if (found >= 0) {
+                return found;
+            }
+            if (found == FIRST_OLDER) {
+                high = probe;
+            } else {
+                low = probe + probeCount;
+                step *= 2;
+            }
+        }
+        while (low < high) {
+            int probe = low + (high - low) / 2;
+            int found = probe(probe, low, moment);
+            if (found >= 0) {
+                return found;
+            }
+            if (found == FIRST_OLDER) {
+                high = probe;
+            } else {
+                low = Math.min(probe + probeCount, high);
+            }
+        }
+        return high;
+    }
+
+    /**
+     * Читает пробную страницу.
+     *
+     * @param offset смещение страницы
+     * @param low смещение, до которого все элементы созданы не раньше момента
+     * @param moment момент времени
+     * @return точное смещение границы, {@link #FIRST_OLDER}, если граница находится не дальше начала
+     * страницы, или {@link #ALL_NEWER}, если вся страница создана не раньше момента
+     */
+    private int probe(int offset, int low, LocalDateTime moment) {
+        List<T> page = fetcher.fetch(offset, probeCount);
+        if (page.isEmpty()) {
+            // Смещение за концом списка
+            return offset > low ? FIRST_OLDER : offset;
+        }
+        for (int i = 0; i < page.size(); i++) {
+            if (createdAt.apply(page.get(i)).isBefore(moment)) {
+                return i == 0 && offset > low ? FIRST_OLDER : offset + i;
+            }
+        }
+        return page.size() < probeCount ? offset + page.size() : ALL_NEWER;
+    }
+}
@@ -1,8 +1,22 @@
 package me.theahks.cryptopay.api;
 
+import me.theahks.cryptopay.exception.CircuitOpenException;
 import me.theahks.cryptopay.exception.CryptoPayApiException;
+import me.theahks.cryptopay.exception.DeadlineExceededException;
+import me.theahks.cryptopay.jfr.CacheLookupEvent;
+import me.theahks.cryptopay.json.ExportFormat;
+import me.theahks.cryptopay.json.LazyInvoice;
+import me.theahks.cryptopay.json.RecordExporter;
 import me.theahks.cryptopay.model.*;
+import me.theahks.cryptopay.transport.Transport;
+import me.theahks.cryptopay.util.CallContext;
+import me.theahks.cryptopay.util.CallTrace;
+import me.theahks.cryptopay.util.CircuitBreakerConfig;
+import me.theahks.cryptopay.util.ClientMetrics;
+import me.theahks.cryptopay.util.Deadline;
 import me.theahks.cryptopay.util.HttpClient;
+import me.theahks.cryptopay.util.Priority;
+import me.theahks.cryptopay.util.RequestDispatcher;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
@@ -12,10 +26,16 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.channels.WritableByteChannel;
 import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Основной класс для работы с API CryptoBot.
@@ -23,6 +43,12 @@ import java.util.concurrent.TimeUnit;
 @Slf4j
 public class CryptoPay {
     private static final String DEFAULT_BASE_URL = "https://pay.crypt.bot/api/";
+    private static final long DEFAULT_ENTITY_CACHE_SIZE = 10_000;
+    private static final int DEFAULT_WARM_UP_CONNECTIONS = 2;
+    private static final int RANGE_PROBE_COUNT = 10;
+    private static final int RANGE_PAGE_SIZE = 100;
+    private static final int EXPORT_PAGE_SIZE = 1000;
+    private static final String ASSETS_KEY = "assets";
     
     private final HttpClient httpClient;
     
@@ -34,24 +60,179 @@ public class CryptoPay {
     
     private final Cache<String, List<Asset>> assetsCache;
     
+    private final EntityCache<Invoice, CompactInvoice> invoiceCache;
+    
+    private final EntityCache<Check, Check> checkCache;
+    
+    private final boolean degradedModeFallbacks;
+    
+    private final SharedMarketDataCache sharedCache;
+    
+    private final Map<String, Object> lastKnown = new ConcurrentHashMap<>();
+    
     /**
      * Создает экземпляр CryptoPay с указанным токеном API и базовым URL.
      * 
      * @param apiToken токен API
      * @param hostUrl базовый URL API (по умолчанию "https://pay.crypt.bot/api/")
      */
-    @Builder
     public CryptoPay(String apiToken, String hostUrl) {
+        this(apiToken, hostUrl, null, false, null, null, 0, null, null, false, false, null, 0);
+    }
+    
+    /**
+     * Создает экземпляр CryptoPay с указанным токеном API, базовым URL, транспортом и настройками трассировки.
+     * 
+     * @param apiToken токен API
+     * @param hostUrl базовый URL API (по умолчанию "https://pay.crypt.bot/api/")
+     * @param transport транспорт HTTP-запросов (по умолчанию OkHttp)
+     * @param tracing включает разбивку времени вызовов по фазам соединения (DNS, TCP, TLS, ожидание ответа,
+     *                чтение тела, десериализация)
+     * @param callTraceListener получатель трассировок завершенных вызовов (может быть null)
+     * @param dispatcher диспетчер одновременных вызовов с полосами приоритета (может быть общим
+     *                   для нескольких клиентов; по умолчанию количество одновременных вызовов
+     *                   не ограничивается)
+     * @param entityCacheSize максимальное количество счетов и чеков в кэше каждого вида (по умолчанию 10000)
+     * @param activeEntityTtl время кэширования счетов и чеков, еще не достигших конечного статуса
+     *                        (по умолчанию такие сущности не кэшируются)
+     * @param circuitBreaker настройки автоматов защиты методов API (по умолчанию автоматы отключены)
+     * @param degradedModeFallbacks при разомкнутом автомате возвращать последние известные курсы,
+     *                              активы и балансы вместо {@link CircuitOpenException}
+     * @param warmUp выполнить {@link #warmUp()} при создании клиента; ошибки прогрева только логируются
+     * @param sharedCache общий для процессов хоста кэш курсов и активов (может быть null); клиент
+     *                    не закрывает его
+     * @param rateLimit допустимое количество запросов в секунду (0 — без ограничения); ожидание разрешения
+     *                  не считается временем сети и не влияет на автомат защиты
+     */
+    @Builder
+    public CryptoPay(String apiToken, String hostUrl, Transport transport, boolean tracing,
+                     Consumer<CallTrace> callTraceListener, RequestDispatcher dispatcher, long entityCacheSize,
+                     Duration activeEntityTtl, CircuitBreakerConfig circuitBreaker, boolean degradedModeFallbacks,
+                     boolean warmUp, SharedMarketDataCache sharedCache, double rateLimit) {
         Preconditions.checkNotNull(apiToken, "API токен не может быть null");
         
         this.apiToken = apiToken;
         this.hostUrl = hostUrl != null ? hostUrl : DEFAULT_BASE_URL;
-        this.httpClient = new HttpClient(apiToken, this.hostUrl);
+        this.httpClient = HttpClient.builder()
+                .apiToken(apiToken)
+                .baseUrl(this.hostUrl)
+                .transport(transport)
+                .tracing(tracing)
+                .traceListener(callTraceListener)
+                .dispatcher(dispatcher)
+                .circuitBreaker(circuitBreaker)
+                .rateLimit(rateLimit)
+                .build();
+        this.degradedModeFallbacks = degradedModeFallbacks;
+        this.sharedCache = sharedCache;
         
         // Настраиваем кэш активов
         this.assetsCache = Caffeine.newBuilder()
                 .expireAfterWrite(1, TimeUnit.HOURS)
                 .build();
+        
+        // Оплаченные и просроченные счета и активированные чеки больше не меняются
+        long cacheSize = entityCacheSize > 0 ? entityCacheSize : DEFAULT_ENTITY_CACHE_SIZE;
+        this.invoiceCache = new EntityCache<>(cacheSize, activeEntityTtl,
+                invoice -> "paid".equals(invoice.getStatus()) || "expired".equals(invoice.getStatus()),
+                CompactInvoice::of, CompactInvoice::toInvoice);
+        // Чеки изменяемы, поэтому кэш хранит и возвращает копии, а не экземпляры вызывающего
+        this.checkCache = new EntityCache<>(cacheSize, activeEntityTtl,
+                check -> "activated".equals(check.getStatus()), CryptoPay::copyCheck, CryptoPay::copyCheck);
+        
+        if (warmUp) {
+            try {
+                warmUp();
+            } catch (CryptoPayApiException e) {
+                log.warn("Не удалось прогреть клиент CryptoPay", e);
+            }
+        }
+    }
+    
+    /**
+     * Возвращает накопительные метрики вызовов API этого клиента.
+     * Разбивка по фазам соединения заполняется только при включенной трассировке.
+     * 
+     * @return метрики клиента
+     */
+    public ClientMetrics getMetrics() {
+        return httpClient.getMetrics();
+    }
+    
+    /**
+     * Прогревает клиент: открывает соединения с API, строит сериализаторы и десериализаторы
+     * всех моделей и выполняет {@link #getMe()}, чтобы первый платежный вызов выполнялся
+     * с установившейся задержкой.
+     * 
+     * @throws CryptoPayApiException если API недоступен
+     */
+    public void warmUp() {
+        warmUp(DEFAULT_WARM_UP_CONNECTIONS);
+    }
+    
+    /**
+     * Прогревает клиент, открывая заданное количество соединений.
+     * 
+     * @param connections желаемое количество открытых соединений
+     * @throws CryptoPayApiException если API недоступен
+     */
+    public void warmUp(int connections) {
+        long start = System.nanoTime();
+        httpClient.primeRequestTypes(CreateInvoiceParams.class, CreateCheckParams.class, TransferParams.class);
+        httpClient.primeResponseTypes(
+                new TypeReference<ApiResponse<Map<String, Object>>>() {},
+                new TypeReference<ApiResponse<Invoice>>() {},
+                new TypeReference<ApiResponse<List<Invoice>>>() {},
+                new TypeReference<ApiResponse<Check>>() {},
+                new TypeReference<ApiResponse<List<Check>>>() {},
+                new TypeReference<ApiResponse<Transfer>>() {},
+                new TypeReference<ApiResponse<List<Transfer>>>() {},
+                new TypeReference<ApiResponse<List<Balance>>>() {},
+                new TypeReference<ApiResponse<List<ExchangeRate>>>() {},
+                new TypeReference<ApiResponse<List<Asset>>>() {});
+        httpClient.warmUpConnections(connections);
+        getMe();
+        log.info("Клиент CryptoPay прогрет за {} мс", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+    
+    /**
+     * Выполняет действие, назначая всем вызовам API в текущем потоке заданный приоритет.
+     * По умолчанию списочные методы выполняются в фоновой полосе, остальные — в интерактивной.
+     * 
+     * @param priority приоритет вызовов
+     * @param action действие, выполняющее вызовы API
+     * @param <T> тип результата
+     * @return результат действия
+     */
+    public <T> T withPriority(Priority priority, Supplier<T> action) {
+        return CallContext.withPriority(priority, action);
+    }
+    
+    /**
+     * Выполняет действие, ограничивая все вызовы API в текущем потоке временем timeout (с учетом внешнего срока).
+     * Вызовы, не начатые до истечения срока, завершаются {@link DeadlineExceededException} без обращения
+     * к сети, а выполняющийся HTTP-запрос прерывается по истечении срока.
+     * 
+     * @param timeout время на выполнение вызовов
+     * @param action действие, выполняющее вызовы API
+     * @param <T> тип результата
+     * @return результат действия
+     */
+    public <T> T withTimeout(Duration timeout, Supplier<T> action) {
+        return CallContext.withTimeout(timeout, action);
+    }
+    
+    /**
+     * Выполняет действие, ограничивая все вызовы API в текущем потоке заданным сроком. Отмена срока
+     * ({@link Deadline#cancel()}) из другого потока прерывает выполняющийся запрос и ожидающие в очереди вызовы.
+     * 
+     * @param deadline срок вызовов
+     * @param action действие, выполняющее вызовы API
+     * @param <T> тип результата
+     * @return результат действия
+     */
+    public <T> T withDeadline(Deadline deadline, Supplier<T> action) {
+        return CallContext.withDeadline(deadline, action);
     }
     
     /**
@@ -102,12 +283,17 @@ public class CryptoPay {
     
     /**
      * Получает информацию о счете по его идентификатору.
+     * Оплаченные и просроченные счета кэшируются до вытеснения по размеру кэша.
      * 
      * @param invoiceId идентификатор счета
      * @return информация о счете
      * @throws CryptoPayApiException если произошла ошибка при выполнении запроса
      */
     public Invoice getInvoice(long invoiceId) {
+        return invoiceCache.get(invoiceId, this::fetchInvoice);
+    }
+    
+    private Invoice fetchInvoice(long invoiceId) {
         Map<String, String> params = ImmutableMap.of("invoice_id", String.valueOf(invoiceId));
         
         TypeReference<ApiResponse<Invoice>> typeRef = new TypeReference<ApiResponse<Invoice>>() {};
@@ -132,6 +318,67 @@ public class CryptoPay {
         return response.getResult();
     }
     
+    /**
+     * Получает список счетов в ленивом представлении: каждый счет ссылается на фрагмент ответа,
+     * а поля декодируются только при обращении к ним. Подходит для просмотра больших страниц,
+     * когда нужны лишь некоторые поля (например, идентификатор, статус и сумма).
+     * 
+     * @param params параметры фильтрации счетов
+     * @return список ленивых счетов
+     * @throws CryptoPayApiException если произошла ошибка при выполнении запроса
+     */
+    public List<LazyInvoice> getInvoicesLazy(GetInvoicesParams params) {
+        byte[] body = httpClient.getRaw("getInvoices", params.toQueryParams());
+        ApiResponse<List<LazyInvoice>> response;
+        try {
+            response = LazyInvoice.parsePage(httpClient.getObjectMapper(), body);
+        } catch (IOException e) {
+            throw new CryptoPayApiException("Ошибка при разборе списка счетов", e);
+        }
+        
+        checkResponse(response);
+        return response.getResult();
+    }
+    
+    /**
+     * Получает счета, созданные в интервале [from, to), от новых к старым.
+     * Начало интервала находится поиском по смещению, поэтому читаются только страницы интервала.
+     * 
+     * @param from начало интервала включительно
+     * @param to конец интервала не включительно
+     * @return счета интервала
+     * @throws CryptoPayApiException если произошла ошибка при выполнении запроса
+     */
+    public List<Invoice> getInvoicesCreatedBetween(LocalDateTime from, LocalDateTime to) {
+        return getInvoicesCreatedBetween(GetInvoicesParams.builder().build(), from, to);
+    }
+    
+    /**
+     * Получает счета, созданные в интервале [from, to), с учетом фильтров, от новых к старым.
+     * Смещение и количество из фильтра не используются.
+     * 
+     * @param filter параметры фильтрации счетов
+     * @param from начало интервала включительно
+     * @param to конец интервала не включительно
+     * @return счета интервала
+     * @throws CryptoPayApiException если произошла ошибка при выполнении запроса
+     */
+    public List<Invoice> getInvoicesCreatedBetween(GetInvoicesParams filter, LocalDateTime from, LocalDateTime to) {
+        Preconditions.checkNotNull(from, "Начало интервала не может быть null");
+        Preconditions.checkNotNull(to, "Конец интервала не может быть null");
+        CreatedAtRangeSeek<Invoice> seek = new CreatedAtRangeSeek<>(
+                (offset, count) -> orEmpty(getInvoices(GetInvoicesParams.builder()
+                        .status(filter.getStatus())
+                        .asset(filter.getAsset())
+                        .invoiceId(filter.getInvoiceId())
+                        .invoiceIds(filter.getInvoiceIds())
+                        .offset(offset)
+                        .count(count)
+                        .build())),
+                Invoice::getCreatedAt, Invoice::getInvoiceId, RANGE_PROBE_COUNT, RANGE_PAGE_SIZE);
+        return seek.range(from, to);
+    }
+    
     /**
      * Создает ссылку на чек.
      * 
@@ -164,12 +411,17 @@ public class CryptoPay {
     
     /**
      * Получает информацию о чеке по его идентификатору.
+     * Активированные чеки кэшируются до вытеснения по размеру кэша.
      * 
      * @param checkId идентификатор чека
      * @return информация о чеке
      * @throws CryptoPayApiException если произошла ошибка при выполнении запроса
      */
     public Check getCheck(long checkId) {
+        return checkCache.get(checkId, this::fetchCheck);
+    }
+    
+    private Check fetchCheck(long checkId) {
         Map<String, String> params = ImmutableMap.of("check_id", String.valueOf(checkId));
         
         TypeReference<ApiResponse<Check>> typeRef = new TypeReference<ApiResponse<Check>>() {};
@@ -194,6 +446,32 @@ public class CryptoPay {
         return response.getResult();
     }
     
+    /**
+     * Получает чеки, созданные в интервале [from, to), с учетом фильтров, от новых к старым.
+     * Смещение и количество из фильтра не используются.
+     * 
+     * @param filter параметры фильтрации чеков
+     * @param from начало интервала включительно
+     * @param to конец интервала не включительно
+     * @return чеки интервала
+     * @throws CryptoPayApiException если произошла ошибка при выполнении запроса
+     */
+    public List<Check> getChecksCreatedBetween(GetChecksParams filter, LocalDateTime from, LocalDateTime to) {
+        Preconditions.checkNotNull(from, "Начало интервала не может быть null");
+        Preconditions.checkNotNull(to, "Конец интервала не может быть null");
+        CreatedAtRangeSeek<Check> seek = new CreatedAtRangeSeek<>(
+                (offset, count) -> orEmpty(getChecks(GetChecksParams.builder()
+                        .status(filter.getStatus())
+                        .asset(filter.getAsset())
+                        .checkId(filter.getCheckId())
+                        .checkIds(filter.getCheckIds())
+                        .offset(offset)
+                        .count(count)
+                        .build())),
+                Check::getCreatedAt, Check::getCheckId, RANGE_PROBE_COUNT, RANGE_PAGE_SIZE);
+        return seek.range(from, to);
+    }
+    
     /**
      * Переводит средства пользователю Telegram.
      * 
@@ -241,6 +519,71 @@ public class CryptoPay {
         return response.getResult();
     }
     
+    /**
+     * Выгружает все счета, подходящие под фильтр, в CSV или NDJSON. Страницы читаются по одной и
+     * переносятся в вывод без построения объектов счетов, поэтому расход памяти не зависит от объема истории.
+     * 
+     * @param filter параметры фильтрации счетов (смещение и количество не используются)
+     * @param format формат вывода
+     * @param channel канал вывода (не закрывается)
+     * @return количество выгруженных счетов
+     * @throws CryptoPayApiException если произошла ошибка при выполнении запроса или записи
+     */
+    public long exportInvoices(GetInvoicesParams filter, ExportFormat format, WritableByteChannel channel) {
+        return export("getInvoices", filter,
+                RecordExporter.forInvoices(httpClient.getObjectMapper().getFactory(), format, channel));
+    }
+    
+    /**
+     * Выгружает все чеки, подходящие под фильтр, в CSV или NDJSON без построения объектов чеков.
+     * 
+     * @param filter параметры фильтрации чеков (смещение и количество не используются)
+     * @param format формат вывода
+     * @param channel канал вывода (не закрывается)
+     * @return количество выгруженных чеков
+     * @throws CryptoPayApiException если произошла ошибка при выполнении запроса или записи
+     */
+    public long exportChecks(GetChecksParams filter, ExportFormat format, WritableByteChannel channel) {
+        return export("getChecks", filter,
+                RecordExporter.forChecks(httpClient.getObjectMapper().getFactory(), format, channel));
+    }
+    
+    /**
+     * Выгружает все переводы, подходящие под фильтр, в CSV или NDJSON без построения объектов переводов.
+     * 
+     * @param filter параметры фильтрации переводов (смещение и количество не используются)
+     * @param format формат вывода
+     * @param channel канал вывода (не закрывается)
+     * @return количество выгруженных переводов
+     * @throws CryptoPayApiException если произошла ошибка при выполнении запроса или записи
+     */
+    public long exportTransfers(GetTransfersParams filter, ExportFormat format, WritableByteChannel channel) {
+        return export("getTransfers", filter,
+                RecordExporter.forTransfers(httpClient.getObjectMapper().getFactory(), format, channel));
+    }
+    
+    private long export(String method, BaseFilterParams filter, RecordExporter exporter) {
+        Map<String, String> query = filter.toQueryParams();
+        query.put("count", String.valueOf(EXPORT_PAGE_SIZE));
+        int offset = 0;
+        try {
+            while (true) {
+                query.put("offset", String.valueOf(offset));
+                ApiResponse<Integer> response = exporter.writePage(httpClient.getRaw(method, query));
+                checkResponse(response);
+                int count = response.getResult() != null ? response.getResult() : 0;
+                if (count < EXPORT_PAGE_SIZE) {
+                    break;
+                }
+                offset += count;
+            }
+            exporter.flush();
+        } catch (IOException e) {
+            throw new CryptoPayApiException("Ошибка при выгрузке " + method, e);
+        }
+        return exporter.getWrittenCount();
+    }
+    
     /**
      * Получает баланс криптовалютного кошелька приложения.
      * 
@@ -248,11 +591,13 @@ public class CryptoPay {
      * @throws CryptoPayApiException если произошла ошибка при выполнении запроса
      */
     public List<Balance> getBalance() {
-        TypeReference<ApiResponse<List<Balance>>> typeRef = new TypeReference<ApiResponse<List<Balance>>>() {};
-        ApiResponse<List<Balance>> response = httpClient.get("getBalance", null, typeRef);
-        
-        checkResponse(response);
-        return response.getResult();
+        return withFallback("balance", () -> {
+            TypeReference<ApiResponse<List<Balance>>> typeRef = new TypeReference<ApiResponse<List<Balance>>>() {};
+            ApiResponse<List<Balance>> response = httpClient.get("getBalance", null, typeRef);
+            
+            checkResponse(response);
+            return response.getResult();
+        });
     }
     
     /**
@@ -265,25 +610,34 @@ public class CryptoPay {
     public List<ExchangeRate> getExchangeRates(String source) {
         Map<String, String> params = ImmutableMap.of("source", source);
         
-        TypeReference<ApiResponse<List<ExchangeRate>>> typeRef = new TypeReference<ApiResponse<List<ExchangeRate>>>() {};
-        ApiResponse<List<ExchangeRate>> response = httpClient.get("getExchangeRates", params, typeRef);
-        
-        checkResponse(response);
-        return response.getResult();
+        return withFallback("rates:" + source, () -> {
+            TypeReference<ApiResponse<List<ExchangeRate>>> typeRef = new TypeReference<ApiResponse<List<ExchangeRate>>>() {};
+            ApiResponse<List<ExchangeRate>> response = httpClient.get("getExchangeRates", params, typeRef);
+            
+            checkResponse(response);
+            return response.getResult();
+        });
     }
     
     /**
      * Получает все текущие обменные курсы.
+     * С общим кэшем курсы обновляет один процесс хоста, а остальные читают его снимок.
      * 
      * @return список обменных курсов
      * @throws CryptoPayApiException если произошла ошибка при выполнении запроса
      */
     public List<ExchangeRate> getAllExchangeRates() {
-        TypeReference<ApiResponse<List<ExchangeRate>>> typeRef = new TypeReference<ApiResponse<List<ExchangeRate>>>() {};
-        ApiResponse<List<ExchangeRate>> response = httpClient.get("getExchangeRates", null, typeRef);
-        
-        checkResponse(response);
-        return response.getResult();
+        return withFallback("rates", () -> {
+            TypeReference<ApiResponse<List<ExchangeRate>>> typeRef = new TypeReference<ApiResponse<List<ExchangeRate>>>() {};
+            if (sharedCache != null) {
+                return sharedCache.get(SharedMarketDataCache.Slot.RATES, body -> parseResult(body, typeRef),
+                        () -> httpClient.getRaw("getExchangeRates", null));
+            }
+            ApiResponse<List<ExchangeRate>> response = httpClient.get("getExchangeRates", null, typeRef);
+            
+            checkResponse(response);
+            return response.getResult();
+        });
     }
     
     /**
@@ -312,19 +666,85 @@ public class CryptoPay {
     
     /**
      * Получает информацию о поддерживаемых криптовалютах и их ограничениях.
-     * Результат кэшируется на 1 час.
+     * Результат кэшируется на 1 час; с общим кэшем активы обновляет один процесс хоста.
      * 
      * @return список поддерживаемых активов
      * @throws CryptoPayApiException если произошла ошибка при выполнении запроса
      */
     public List<Asset> getAssets() {
-        return assetsCache.get("assets", key -> {
+        List<Asset> cached = assetsCache.getIfPresent(ASSETS_KEY);
+        CacheLookupEvent.record(ASSETS_KEY, cached != null);
+        if (cached != null) {
+            return cached;
+        }
+        // Резервный результат возвращается мимо кэша, чтобы не пережить сбой на время жизни записи
+        return withFallback(ASSETS_KEY, () -> assetsCache.get(ASSETS_KEY, key -> {
             TypeReference<ApiResponse<List<Asset>>> typeRef = new TypeReference<ApiResponse<List<Asset>>>() {};
+            if (sharedCache != null) {
+                return sharedCache.get(SharedMarketDataCache.Slot.ASSETS, body -> parseResult(body, typeRef),
+                        () -> httpClient.getRaw("getCurrencies", null));
+            }
             ApiResponse<List<Asset>> response = httpClient.get("getCurrencies", null, typeRef);
             
             checkResponse(response);
             return response.getResult();
-        });
+        }));
+    }
+    
+    /**
+     * Выполняет вызов и запоминает его результат; при разомкнутом автомате защиты возвращает
+     * последний известный результат, если резервные ответы включены.
+     * 
+     * @param key ключ последнего известного результата
+     * @param call вызов API
+     * @param <T> тип результата
+     * @return результат вызова или последний известный результат
+     * @throws CircuitOpenException если автомат разомкнут, а последнего известного результата нет
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T withFallback(String key, Supplier<T> call) {
+        if (!degradedModeFallbacks) {
+            return call.get();
+        }
+        try {
+            T result = call.get();
+            if (result != null) {
+                lastKnown.put(key, result);
+            }
+            return result;
+        } catch (CircuitOpenException e) {
+            T fallback = (T) lastKnown.get(key);
+            if (fallback == null) {
+                throw e;
+            }
+            log.warn("Автомат защиты разомкнут, используется последний известный результат: {}", key);
+            return fallback;
+        }
+    }
+    
+    private static Check copyCheck(Check check) {
+        return check.toBuilder().build();
+    }
+    
+    /**
+     * Разбирает тело ответа API и проверяет его на наличие ошибок.
+     * 
+     * @param body тело ответа
+     * @param typeRef тип ответа
+     * @param <T> тип результата ответа
+     * @return результат ответа
+     * @throws CryptoPayApiException если тело не удалось разобрать или ответ содержит ошибку
+     */
+    private <T> T parseResult(byte[] body, TypeReference<ApiResponse<T>> typeRef) {
+        ApiResponse<T> response;
+        try {
+            response = httpClient.getObjectMapper().readValue(body, typeRef);
+        } catch (IOException e) {
+            throw new CryptoPayApiException("Ошибка при разборе ответа API", e);
+        }
+        
+        checkResponse(response);
+        return response.getResult();
     }
     
     /**
@@ -332,13 +752,14 @@ public class CryptoPay {
      * 
      * @param response ответ API
      * @param <T> тип результата ответа
-     * @throws CryptoPayApiException если ответ содержит ошибку
+     * @throws CryptoPayApiException если ответ содержит ошибку (типизированное исключение без стека вызовов)
      */
     private <T> void checkResponse(ApiResponse<T> response) {
-        if (!response.isSuccess()) {
-            log.error("Ошибка API: {} (код: {})", response.getDescription(), response.getErrorCode());
-            throw new CryptoPayApiException(response.getDescription(), response.getErrorCode());
-        }
+        httpClient.checkResponse(response);
+    }
+    
+    private static <T> List<T> orEmpty(List<T> list) {
+        return list != null ? list : Collections.emptyList();
     }
     
     /**
@@ -471,6 +892,23 @@ public class CryptoPay {
             
             return params;
         }
+        
+        /**
+         * Объединяет идентификаторы через запятую.
+         * 
+         * @param ids идентификаторы
+         * @return строка идентификаторов
+         */
+        protected static String joinIds(List<Long> ids) {
+            StringBuilder joined = new StringBuilder();
+            for (Long id : ids) {
+                if (joined.length() > 0) {
+                    joined.append(',');
+                }
+                joined.append(id);
+            }
+            return joined.toString();
+        }
     }
     
     /**
@@ -493,6 +931,11 @@ public class CryptoPay {
          */
         private Long invoiceId = null;
         
+        /**
+         * Идентификаторы конкретных счетов.
+         */
+        private List<Long> invoiceIds = null;
+        
         /**
          * Построитель для GetInvoicesParams.
          */
@@ -521,6 +964,10 @@ public class CryptoPay {
                 params.put("invoice_id", invoiceId.toString());
             }
             
+            if (invoiceIds != null && !invoiceIds.isEmpty()) {
+                params.put("invoice_ids", joinIds(invoiceIds));
+            }
+            
             return params;
         }
         
@@ -533,6 +980,7 @@ public class CryptoPay {
             private List<String> status;
             private String asset;
             private Long invoiceId;
+            private List<Long> invoiceIds;
             
             /**
              * Устанавливает смещение списка.
@@ -589,6 +1037,17 @@ public class CryptoPay {
                 return this;
             }
             
+            /**
+             * Устанавливает идентификаторы конкретных счетов для получения.
+             * 
+             * @param invoiceIds идентификаторы счетов
+             * @return построитель
+             */
+            public GetInvoicesParamsBuilder invoiceIds(List<Long> invoiceIds) {
+                this.invoiceIds = invoiceIds;
+                return this;
+            }
+            
             /**
              * Создает GetInvoicesParams.
              * 
@@ -601,6 +1060,7 @@ public class CryptoPay {
                 params.status = this.status;
                 params.asset = this.asset;
                 params.invoiceId = this.invoiceId;
+                params.invoiceIds = this.invoiceIds;
                 return params;
             }
         }
@@ -626,6 +1086,11 @@ public class CryptoPay {
          */
         private Long checkId = null;
         
+        /**
+         * Идентификаторы конкретных чеков.
+         */
+        private List<Long> checkIds = null;
+        
         /**
          * Построитель для GetChecksParams.
          */
@@ -654,6 +1119,10 @@ public class CryptoPay {
                 params.put("check_id", checkId.toString());
             }
             
+            if (checkIds != null && !checkIds.isEmpty()) {
+                params.put("check_ids", joinIds(checkIds));
+            }
+            
             return params;
         }
         
@@ -666,6 +1135,7 @@ public class CryptoPay {
             private List<String> status;
             private String asset;
             private Long checkId;
+            private List<Long> checkIds;
             
             /**
              * Устанавливает смещение списка.
@@ -722,6 +1192,17 @@ public class CryptoPay {
                 return this;
             }
             
+            /**
+             * Устанавливает идентификаторы конкретных чеков для получения.
+             * 
+             * @param checkIds идентификаторы чеков
+             * @return построитель
+             */
+            public GetChecksParamsBuilder checkIds(List<Long> checkIds) {
+                this.checkIds = checkIds;
+                return this;
+            }
+            
             /**
              * Создает GetChecksParams.
              * 
@@ -734,6 +1215,7 @@ public class CryptoPay {
                 params.status = this.status;
                 params.asset = this.asset;
                 params.checkId = this.checkId;
+                params.checkIds = this.checkIds;
                 return params;
             }
         }
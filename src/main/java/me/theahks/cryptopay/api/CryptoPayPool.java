@@ -0,0 +1,322 @@
+package me.theahks.cryptopay.api;
+
+import me.theahks.cryptopay.exception.CryptoPayApiException;
+import me.theahks.cryptopay.model.Balance;
+import me.theahks.cryptopay.transport.OkHttpTransport;
+import me.theahks.cryptopay.transport.Transport;
+import me.theahks.cryptopay.util.CallContext;
+import me.theahks.cryptopay.util.CircuitBreakerConfig;
+import me.theahks.cryptopay.util.ClientMetrics;
+import me.theahks.cryptopay.util.Priority;
+import me.theahks.cryptopay.util.RequestDispatcher;
+import com.google.common.base.Preconditions;
+import com.google.common.hash.Hashing;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Набор клиентов для нескольких приложений CryptoBot (по одному токену API на приложение) поверх
+ * одного общего транспорта.
+ * <p>
+ * Клиент выбирается по имени токена, по ключу арендатора (явное назначение или устойчивое
+ * рандеву-хэширование) или как наименее загруженный. У каждого токена собственный лимит частоты
+ * запросов и одновременных вызовов ({@link RequestDispatcher}).
+ * Балансы и метрики можно получить суммарно по всем токенам.
+ */
+@Slf4j
+public class CryptoPayPool implements AutoCloseable {
+    private final Map<String, Member> members;
+    private final List<Member> memberList;
+    private final Map<String, String> tenants;
+    private final Transport transport;
+    private final boolean ownsTransport;
+    private final AtomicInteger nextMember = new AtomicInteger();
+    private final ExecutorService executor;
+
+    /**
+     * Создает набор клиентов.
+     *
+     * @param tokens токены приложений (имена должны быть уникальны)
+     * @param hostUrl базовый URL API (по умолчанию "https://pay.crypt.bot/api/")
+     * @param transport общий транспорт (по умолчанию OkHttp; закрывается вместе с набором, только если создан им)
+     * @param tracing включает трассировку вызовов всех клиентов
+     * @param rateLimit лимит запросов в секунду для токенов без собственного лимита (0 — без ограничения)
+     * @param maxConcurrency лимит одновременных вызовов для токенов без собственного лимита
+     *                       (по умолчанию как у {@link RequestDispatcher})
+     * @param tenants явное назначение ключей арендаторов именам токенов (может быть null)
+     * @param circuitBreaker настройки автоматов защиты каждого клиента (по умолчанию отключены)
+     */
+    @Builder
+    public CryptoPayPool(List<Token> tokens, String hostUrl, Transport transport, boolean tracing, double rateLimit,
+                         int maxConcurrency, Map<String, String> tenants, CircuitBreakerConfig circuitBreaker) {
+        Preconditions.checkArgument(tokens != null && !tokens.isEmpty(), "Необходимо указать хотя бы один токен");
+        this.ownsTransport = transport == null;
+        this.transport = transport != null ? transport : new OkHttpTransport(tracing);
+        this.tenants = tenants != null ? Collections.unmodifiableMap(new LinkedHashMap<>(tenants))
+                : Collections.emptyMap();
+
+        Map<String, Member> byName = new LinkedHashMap<>();
+        for (Token token : tokens) {
+            Preconditions.checkArgument(!byName.containsKey(token.getName()),
+                    "Имя токена должно быть уникальным: %s", token.getName());
+            double tokenRate = token.getRateLimit() != null ? token.getRateLimit() : rateLimit;
+            int tokenConcurrency = token.getMaxConcurrency() != null ? token.getMaxConcurrency() : maxConcurrency;
+            RequestDispatcher dispatcher = RequestDispatcher.builder().maxConcurrency(tokenConcurrency).build();
+            CryptoPay client = CryptoPay.builder()
+                    .apiToken(token.getApiToken())
+                    .hostUrl(hostUrl)
+                    .transport(this.transport)
+                    .tracing(tracing)
+                    .dispatcher(dispatcher)
+                    .circuitBreaker(circuitBreaker)
+                    .rateLimit(tokenRate)
+                    .build();
+            byName.put(token.getName(), new Member(token.getName(), client, dispatcher));
+        }
+        for (String name : this.tenants.values()) {
+            Preconditions.checkArgument(byName.containsKey(name), "Арендатор назначен неизвестному токену: %s", name);
+        }
+        this.members = Collections.unmodifiableMap(byName);
+        this.memberList = Collections.unmodifiableList(new ArrayList<>(byName.values()));
+
+        // Блокирующие вызовы по всем токенам не выполняются в общем ForkJoinPool
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "cryptopay-pool-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Возвращает клиент токена по имени.
+     *
+     * @param name имя токена
+     * @return клиент
+     * @throws IllegalArgumentException если токена с таким именем нет
+     */
+    public CryptoPay get(String name) {
+        Member member = members.get(name);
+        Preconditions.checkArgument(member != null, "Неизвестный токен: %s", name);
+        return member.client;
+    }
+
+    /**
+     * Возвращает клиент для арендатора. Явно назначенные арендаторы получают свой токен; остальные
+     * распределяются рандеву-хэшированием, поэтому арендатор всегда попадает на один и тот же токен,
+     * а при добавлении токена переезжает лишь часть арендаторов.
+     *
+     * @param tenantKey ключ арендатора
+     * @return клиент
+     */
+    public CryptoPay forTenant(String tenantKey) {
+        Preconditions.checkNotNull(tenantKey, "Ключ арендатора не может быть null");
+        String assigned = tenants.get(tenantKey);
+        if (assigned != null) {
+            return members.get(assigned).client;
+        }
+        Member best = null;
+        long bestScore = Long.MIN_VALUE;
+        for (Member member : memberList) {
+            long score = Hashing.murmur3_128().newHasher()
+                    .putString(tenantKey, StandardCharsets.UTF_8)
+                    .putByte((byte) 0)
+                    .putString(member.name, StandardCharsets.UTF_8)
+                    .hash()
+                    .asLong();
+            if (best == null || score > bestScore) {
+                best = member;
+                bestScore = score;
+            }
+        }
+        return best.client;
+    }
+
+    /**
+     * Возвращает клиент с наименьшей долей занятых слотов одновременных вызовов (с учетом очереди).
+     * При равной загрузке токены выбираются по кругу.
+     *
+     * @return клиент
+     */
+    public CryptoPay leastLoaded() {
+        int start = Math.floorMod(nextMember.getAndIncrement(), memberList.size());
+        Member best = null;
+        double bestLoad = Double.MAX_VALUE;
+        for (int i = 0; i < memberList.size(); i++) {
+            Member member = memberList.get((start + i) % memberList.size());
+            double load = member.load();
+            if (load < bestLoad) {
+                best = member;
+                bestLoad = load;
+            }
+        }
+        return best.client;
+    }
+
+    /**
+     * Возвращает имена токенов в порядке добавления.
+     *
+     * @return имена токенов
+     */
+    public Set<String> getTokenNames() {
+        return members.keySet();
+    }
+
+    /**
+     * Запрашивает балансы всех токенов параллельно. Приоритет и срок, заданные в {@link CallContext}
+     * вызывающего потока, действуют и для этих запросов.
+     *
+     * @return балансы по именам токенов
+     * @throws CryptoPayApiException если запрос баланса хотя бы одного токена завершился ошибкой
+     */
+    public Map<String, List<Balance>> getBalancesByToken() {
+        Map<String, CompletableFuture<List<Balance>>> futures = new LinkedHashMap<>();
+        for (Member member : memberList) {
+            futures.put(member.name,
+                    CompletableFuture.supplyAsync(CallContext.capture(member.client::getBalance), executor));
+        }
+        Map<String, List<Balance>> balances = new LinkedHashMap<>();
+        for (Map.Entry<String, CompletableFuture<List<Balance>>> entry : futures.entrySet()) {
+            try {
+                balances.put(entry.getKey(), entry.getValue().join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        return balances;
+    }
+
+    /**
+     * Запрашивает балансы всех токенов и суммирует их по валютам.
+     *
+     * @return суммарные балансы в алфавитном порядке кодов валют
+     * @throws CryptoPayApiException если запрос баланса хотя бы одного токена завершился ошибкой
+     */
+    public List<Balance> getTotalBalances() {
+        Map<String, Balance> totals = new TreeMap<>();
+        for (List<Balance> balances : getBalancesByToken().values()) {
+            for (Balance balance : balances) {
+                Balance total = totals.computeIfAbsent(balance.getCurrencyCode(),
+                        code -> new Balance(code, BigDecimal.ZERO, BigDecimal.ZERO));
+                if (balance.getAvailable() != null) {
+                    total.setAvailable(total.getAvailable().add(balance.getAvailable()));
+                }
+                if (balance.getOnhold() != null) {
+                    total.setOnhold(total.getOnhold().add(balance.getOnhold()));
+                }
+            }
+        }
+        return new ArrayList<>(totals.values());
+    }
+
+    /**
+     * Возвращает снимки метрик каждого токена.
+     *
+     * @return снимки по именам токенов
+     */
+    public Map<String, ClientMetrics.Snapshot> getMetricsByToken() {
+        Map<String, ClientMetrics.Snapshot> snapshots = new LinkedHashMap<>();
+        for (Member member : memberList) {
+            snapshots.put(member.name, member.client.getMetrics().snapshot());
+        }
+        return snapshots;
+    }
+
+    /**
+     * Возвращает сумму метрик всех токенов.
+     *
+     * @return суммарный снимок метрик
+     */
+    public ClientMetrics.Snapshot getMetrics() {
+        ClientMetrics.Snapshot total = new ClientMetrics().snapshot();
+        for (Member member : memberList) {
+            total = total.plus(member.client.getMetrics().snapshot());
+        }
+        return total;
+    }
+
+    /**
+     * Останавливает потоки набора и закрывает общий транспорт, если он был создан набором.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        if (!ownsTransport) {
+            return;
+        }
+        try {
+            transport.close();
+        } catch (IOException e) {
+            log.warn("Ошибка при закрытии транспорта набора клиентов", e);
+        }
+    }
+
+    /**
+     * Токен приложения и его лимиты.
+     */
+    @Getter
+    @Builder
+    public static class Token {
+        /**
+         * Имя токена для выбора клиента и отчетов.
+         */
+        private final String name;
+
+        /**
+         * Токен API.
+         */
+        private final String apiToken;
+
+        /**
+         * Лимит запросов в секунду (null — лимит набора).
+         */
+        private final Double rateLimit;
+
+        /**
+         * Лимит одновременных вызовов (null — лимит набора).
+         */
+        private final Integer maxConcurrency;
+    }
+
+    private static final class Member {
+        private final String name;
+        private final CryptoPay client;
+        private final RequestDispatcher dispatcher;
+        private final int concurrency;
+
+        Member(String name, CryptoPay client, RequestDispatcher dispatcher) {
+            this.name = name;
+            this.client = client;
+            this.dispatcher = dispatcher;
+            this.concurrency = dispatcher.getMaxConcurrency();
+        }
+
+        double load() {
+            int busy = 0;
+            for (Priority priority : Priority.values()) {
+                busy += dispatcher.getRunning(priority) + dispatcher.getQueued(priority);
+            }
+            return busy / (double) concurrency;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package me.theahks.cryptopay.api;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Policy;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.function.Predicate;
+
+/**
+ * Кэш сущностей по идентификатору, рассчитанный на сущности в конечном статусе.
+ * Сущности в конечном статусе больше не меняются и хранятся до вытеснения по размеру;
+ * остальные хранятся не дольше заданного времени или не кэшируются вовсе.
+ * Сущности могут храниться в компактном представлении и восстанавливаться при чтении.
+ *
+ * @param <T> тип сущности
+ * @param <C> тип хранимого представления
+ */
+class EntityCache<T, C> {
+    private final Cache<Long, C> cache;
+    private final Policy.VarExpiration<Long, C> expiration;
+    private final Predicate<T> terminal;
+    private final Function<T, C> compact;
+    private final Function<C, T> expand;
+    private final long activeTtlNanos;
+
+    /**
+     * Создает кэш.
+     *
+     * @param maximumSize максимальное количество сущностей
+     * @param activeTtl время хранения сущностей не в конечном статусе (null или 0 — не кэшировать)
+     * @param terminal признак конечного статуса
+     * @param compact преобразование сущности в хранимое представление
+     * @param expand восстановление сущности из хранимого представления
+     */
+    EntityCache(long maximumSize, Duration activeTtl, Predicate<T> terminal, Function<T, C> compact,
+                Function<C, T> expand) {
+        this.terminal = terminal;
+        this.compact = compact;
+        this.expand = expand;
+        this.activeTtlNanos = activeTtl != null ? activeTtl.toNanos() : 0;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<Long, C>() {
+                    // Срок задается явно при каждой записи в offer
+                    @Override
+                    public long expireAfterCreate(Long key, C value, long currentTime) {
+                        return activeTtlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Long key, C value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long key, C value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        this.expiration = cache.policy().expireVariably().orElseThrow(IllegalStateException::new);
+    }
+
+    /**
+     * Возвращает сущность из кэша или загружает ее.
+     *
+     * @param id идентификатор сущности
+     * @param loader загрузчик сущности
+     * @return сущность
+     */
+    T get(long id, LongFunction<T> loader) {
+        C cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return expand.apply(cached);
+        }
+        T loaded = loader.apply(id);
+        offer(id, loaded);
+        return loaded;
+    }
+
+    /**
+     * Сохраняет актуальное состояние сущности, если его можно кэшировать.
+     *
+     * @param id идентификатор сущности
+     * @param value сущность
+     */
+    private void offer(long id, T value) {
+        if (value == null) {
+            return;
+        }
+        if (terminal.test(value)) {
+            expiration.put(id, compact.apply(value), Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } else if (activeTtlNanos > 0) {
+            expiration.put(id, compact.apply(value), activeTtlNanos, TimeUnit.NANOSECONDS);
+        } else {
+            cache.invalidate(id);
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package me.theahks.cryptopay.api;
+
+import me.theahks.cryptopay.exception.CryptoPayApiException;
+import com.google.common.base.Preconditions;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Общий для процессов одного хоста кэш курсов обмена и активов в отображенном в память файле.
+ * <p>
+ * Когда снимок в файле устаревает, обновить его пытается каждый процесс, которому он понадобился,
+ * но запрос к API выполняет только тот, кто захватил блокировку файла {@code <файл>.lock}; остальные
+ * в это время читают прежний снимок. Блокировка удерживается только на время обновления и снимается
+ * операционной системой, если процесс завершился, поэтому обновление не останавливается вместе
+ * с процессом. Таким образом, курсы запрашиваются один раз за время жизни снимка на весь хост,
+ * а не в каждом процессе.
+ * <p>
+ * Снимки защищены счетчиком версий (seqlock): писатель делает версию нечетной, записывает ответ API
+ * и делает ее четной; читатель копирует ответ и повторяет чтение, если версия изменилась. Разобранный
+ * снимок запоминается в процессе, поэтому повторное чтение той же версии стоит одного чтения счетчика.
+ * <p>
+ * Один экземпляр следует использовать для одного файла во всем процессе, передавая его всем клиентам.
+ */
+@Slf4j
+public class SharedMarketDataCache implements AutoCloseable {
+    private static final int MAGIC = 0x43505343;
+    private static final int FORMAT = 1;
+    private static final int DEFAULT_CAPACITY = 256 * 1024;
+    private static final Duration DEFAULT_RATES_TTL = Duration.ofSeconds(10);
+    private static final Duration DEFAULT_ASSETS_TTL = Duration.ofHours(1);
+    private static final int READ_ATTEMPTS = 1000;
+    private static final long LOCAL_ONLY = -1;
+
+    // Заголовок файла: сигнатура, версия формата и емкость слота; затем заголовки слотов по 64 байта
+    private static final int MAGIC_OFFSET = 0;
+    private static final int FORMAT_OFFSET = 4;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int SLOT_HEADERS_OFFSET = 64;
+    private static final int SLOT_HEADER_SIZE = 64;
+    private static final int VERSION_OFFSET = 0;
+    private static final int UPDATED_AT_OFFSET = 8;
+    private static final int LENGTH_OFFSET = 16;
+    private static final int DATA_OFFSET = SLOT_HEADERS_OFFSET + Slot.values().length * SLOT_HEADER_SIZE;
+
+    private static final VarHandle VERSION = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final FileChannel lockChannel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final long[] ttlMillis = new long[Slot.values().length];
+    private final AtomicReferenceArray<Decoded> decoded = new AtomicReferenceArray<>(Slot.values().length);
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final LongAdder refreshes = new LongAdder();
+    private volatile boolean closed;
+
+    /**
+     * Открывает или создает файл кэша.
+     *
+     * @param file путь к файлу кэша; рядом создается файл блокировки с суффиксом {@code .lock}
+     * @param ratesTtl время жизни снимка курсов (по умолчанию 10 с)
+     * @param assetsTtl время жизни снимка активов (по умолчанию 1 ч)
+     * @param capacity емкость слота одного ответа в байтах (по умолчанию 256 КиБ); для существующего
+     *                 файла используется емкость, с которой он создан
+     * @throws CryptoPayApiException если файл не удалось открыть или он имеет другой формат
+     */
+    @Builder
+    public SharedMarketDataCache(Path file, Duration ratesTtl, Duration assetsTtl, int capacity) {
+        Preconditions.checkNotNull(file, "Файл кэша не может быть null");
+        Preconditions.checkArgument(capacity >= 0, "Емкость не может быть отрицательной");
+        ttlMillis[Slot.RATES.ordinal()] = (ratesTtl != null ? ratesTtl : DEFAULT_RATES_TTL).toMillis();
+        ttlMillis[Slot.ASSETS.ordinal()] = (assetsTtl != null ? assetsTtl : DEFAULT_ASSETS_TTL).toMillis();
+
+        Path lockFile = file.resolveSibling(file.getFileName() + ".lock");
+        try {
+            this.lockChannel = FileChannel.open(lockFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try (FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                 FileLock ignored = lockChannel.lock()) {
+                // Файл создается и размечается под блокировкой, чтобы процессы не разметили его дважды
+                this.capacity = initialize(channel, capacity > 0 ? capacity : DEFAULT_CAPACITY);
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(this.capacity));
+                this.buffer.order(ByteOrder.nativeOrder());
+            }
+        } catch (IOException e) {
+            throw new CryptoPayApiException("Не удалось открыть общий кэш " + file, e);
+        }
+    }
+
+    /**
+     * Возвращает количество обращений к API, выполненных этим процессом для обновления кэша.
+     *
+     * @return количество обновлений
+     */
+    public long getRefreshCount() {
+        return refreshes.sum();
+    }
+
+    /**
+     * Закрывает файл блокировки. Отображение файла освобождается сборщиком мусора.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            lockChannel.close();
+        } catch (IOException e) {
+            log.warn("Не удалось закрыть файл блокировки общего кэша", e);
+        }
+    }
+
+    /**
+     * Возвращает разобранный снимок слота. Если снимок устарел, обновляет его через API, когда
+     * блокировка свободна, или возвращает прежний снимок, пока его обновляет другой процесс или поток.
+     *
+     * @param slot слот
+     * @param decoder разбор ответа API; выбрасывает исключение для ответа с ошибкой
+     * @param loader загрузка ответа API
+     * @param <T> тип результата
+     * @return результат из кэша или из API
+     */
+    @SuppressWarnings("unchecked")
+    <T> T get(Slot slot, Function<byte[], T> decoder, Supplier<byte[]> loader) {
+        if (closed) {
+            throw new IllegalStateException("Общий кэш закрыт");
+        }
+        long ttl = ttlMillis[slot.ordinal()];
+        Decoded current = decoded.get(slot.ordinal());
+        if (current != null && isFresh(current.updatedAt, ttl)
+                && (current.version == LOCAL_ONLY || current.version == (long) VERSION.getAcquire(buffer, slotHeader(slot)))) {
+            return (T) current.value;
+        }
+
+        Snapshot snapshot = read(slot);
+        if (snapshot != null && isFresh(snapshot.updatedAt, ttl)) {
+            return decode(slot, snapshot, decoder);
+        }
+        if (snapshot != null) {
+            if (!refreshLock.tryLock()) {
+                return decode(slot, snapshot, decoder);
+            }
+        } else {
+            refreshLock.lock();
+        }
+        try {
+            FileLock lease = lease(false);
+            if (lease == null && snapshot != null) {
+                // Снимок обновляет другой процесс
+                return decode(slot, snapshot, decoder);
+            }
+            if (lease == null) {
+                // Снимка еще нет: ждем первого обновления, чтобы не запрашивать API из каждого процесса
+                lease = lease(true);
+            }
+            try {
+                snapshot = read(slot);
+                if (snapshot != null && isFresh(snapshot.updatedAt, ttl)) {
+                    return decode(slot, snapshot, decoder);
+                }
+                byte[] body = loader.get();
+                T value = decoder.apply(body);
+                long now = System.currentTimeMillis();
+                long version = lease != null ? write(slot, body, now) : LOCAL_ONLY;
+                decoded.set(slot.ordinal(), new Decoded(version, now, value));
+                refreshes.increment();
+                return value;
+            } finally {
+                if (lease != null) {
+                    release(lease);
+                }
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Захватывает блокировку обновления.
+     *
+     * @param wait ждать освобождения блокировки
+     * @return блокировка или null, если она занята другим процессом или другим экземпляром кэша этого процесса
+     */
+    private FileLock lease(boolean wait) {
+        try {
+            return wait ? lockChannel.lock() : lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            return null;
+        } catch (IOException e) {
+            throw new CryptoPayApiException("Не удалось захватить блокировку общего кэша", e);
+        }
+    }
+
+    private void release(FileLock lease) {
+        try {
+            lease.release();
+        } catch (IOException e) {
+            log.warn("Не удалось освободить блокировку общего кэша", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T decode(Slot slot, Snapshot snapshot, Function<byte[], T> decoder) {
+        Decoded current = decoded.get(slot.ordinal());
+        if (current != null && current.version == snapshot.version) {
+            return (T) current.value;
+        }
+        T value = decoder.apply(snapshot.body);
+        decoded.set(slot.ordinal(), new Decoded(snapshot.version, snapshot.updatedAt, value));
+        return value;
+    }
+
+    /**
+     * Читает согласованный снимок слота.
+     *
+     * @return снимок или null, если слот еще не записан либо писатель не завершил запись
+     */
+    private Snapshot read(Slot slot) {
+        int header = slotHeader(slot);
+        for (int attempt = 0; attempt < READ_ATTEMPTS; attempt++) {
+            long version = (long) VERSION.getAcquire(buffer, header);
+            if (version == 0) {
+                return null;
+            }
+            if ((version & 1) == 0) {
+                long updatedAt = buffer.getLong(header + UPDATED_AT_OFFSET);
+                int length = buffer.getInt(header + LENGTH_OFFSET);
+                if (length >= 0 && length <= capacity) {
+                    byte[] body = new byte[length];
+                    ByteBuffer data = buffer.duplicate();
+                    data.position(dataOffset(slot));
+                    data.get(body);
+                    VarHandle.loadLoadFence();
+                    if ((long) VERSION.getOpaque(buffer, header) == version) {
+                        return new Snapshot(version, updatedAt, body);
+                    }
+                }
+            }
+            Thread.onSpinWait();
+        }
+        // Версия остается нечетной, если писатель завершился посреди записи; слот перезапишет следующий
+        return null;
+    }
+
+    /**
+     * Записывает снимок слота. Вызывается только под блокировкой обновления.
+     *
+     * @return версия снимка или {@link #LOCAL_ONLY}, если ответ не помещается в слот
+     */
+    private long write(Slot slot, byte[] body, long updatedAt) {
+        if (body.length > capacity) {
+            log.warn("Ответ {} ({} байт) не помещается в слот общего кэша ({} байт) и кэшируется только в процессе",
+                    slot, body.length, capacity);
+            return LOCAL_ONLY;
+        }
+        int header = slotHeader(slot);
+        long writing = (long) VERSION.getVolatile(buffer, header) | 1;
+        VERSION.setOpaque(buffer, header, writing);
+        VarHandle.storeStoreFence();
+        ByteBuffer data = buffer.duplicate();
+        data.position(dataOffset(slot));
+        data.put(body);
+        buffer.putLong(header + UPDATED_AT_OFFSET, updatedAt);
+        buffer.putInt(header + LENGTH_OFFSET, body.length);
+        VERSION.setRelease(buffer, header, writing + 1);
+        return writing + 1;
+    }
+
+    private int initialize(FileChannel channel, int requestedCapacity) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(SLOT_HEADERS_OFFSET).order(ByteOrder.nativeOrder());
+        if (channel.size() >= SLOT_HEADERS_OFFSET) {
+            channel.read(header, 0);
+            if (header.getInt(MAGIC_OFFSET) == MAGIC) {
+                if (header.getInt(FORMAT_OFFSET) != FORMAT) {
+                    throw new IOException("Неподдерживаемая версия формата " + header.getInt(FORMAT_OFFSET));
+                }
+                return header.getInt(CAPACITY_OFFSET);
+            }
+            if (header.getInt(MAGIC_OFFSET) != 0) {
+                throw new IOException("Файл не является общим кэшем CryptoPay");
+            }
+        }
+        channel.truncate(0);
+        channel.write(ByteBuffer.allocate(1), fileSize(requestedCapacity) - 1);
+        header.clear();
+        header.putInt(MAGIC_OFFSET, MAGIC).putInt(FORMAT_OFFSET, FORMAT).putInt(CAPACITY_OFFSET, requestedCapacity);
+        channel.write(header, 0);
+        return requestedCapacity;
+    }
+
+    private static long fileSize(int capacity) {
+        return DATA_OFFSET + (long) Slot.values().length * capacity;
+    }
+
+    private static int slotHeader(Slot slot) {
+        return SLOT_HEADERS_OFFSET + slot.ordinal() * SLOT_HEADER_SIZE;
+    }
+
+    private int dataOffset(Slot slot) {
+        return DATA_OFFSET + slot.ordinal() * capacity;
+    }
+
+    private static boolean isFresh(long updatedAt, long ttlMillis) {
+        return System.currentTimeMillis() - updatedAt < ttlMillis;
+    }
+
+    /**
+     * Слоты кэша.
+     */
+    enum Slot {
+        RATES,
+        ASSETS
+    }
+
+    private static final class Snapshot {
+        private final long version;
+        private final long updatedAt;
+        private final byte[] body;
+
+        Snapshot(long version, long updatedAt, byte[] body) {
+            this.version = version;
+            this.updatedAt = updatedAt;
+            this.body = body;
+        }
+    }
+
+    private static final class Decoded {
+        private final long version;
+        private final long updatedAt;
+        private final Object value;
+
+        Decoded(long version, long updatedAt, Object value) {
+            this.version = version;
+            this.updatedAt = updatedAt;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package me.theahks.cryptopay.events;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Блокирующая стратегия ожидания. Публикующий поток берет блокировку, только если есть ожидающие:
+ * ожидающий сначала увеличивает счетчик, затем перечитывает номер опубликованного события, поэтому
+ * публикация между этими шагами не теряется.
+ */
+final class BlockingWaitStrategy implements WaitStrategy {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition published = lock.newCondition();
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    @Override
+    public long waitFor(long sequence, LongSupplier cursor, BooleanSupplier stopped) throws InterruptedException {
+        long available = cursor.getAsLong();
+        if (available >= sequence) {
+            return available;
+        }
+        lock.lock();
+        try {
+            waiters.incrementAndGet();
+            try {
+                while ((available = cursor.getAsLong()) < sequence && !stopped.getAsBoolean()) {
+                    published.await();
+                }
+            } finally {
+                waiters.decrementAndGet();
+            }
+            return available;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void signalAll() {
+        if (waiters.get() == 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            published.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
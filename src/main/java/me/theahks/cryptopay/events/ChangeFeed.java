@@ -0,0 +1,247 @@
+package me.theahks.cryptopay.events;
+
+import me.theahks.cryptopay.api.CryptoPay;
+import me.theahks.cryptopay.model.Check;
+import me.theahks.cryptopay.model.Invoice;
+import me.theahks.cryptopay.model.Transfer;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Инкрементальная лента изменений счетов, чеков и переводов на основе верхних отметок идентификаторов.
+ * <p>
+ * Идентификаторы монотонно растут, а списки упорядочены по убыванию, поэтому новые элементы всегда
+ * находятся в начале списка. Лента читает страницы только до последней обработанной отметки,
+ * а незавершенные счета и чеки перепроверяет пакетно по идентификаторам. Состояние можно сохранять
+ * в файл, чтобы после перезапуска продолжить без полного сканирования.
+ */
+@Slf4j
+public class ChangeFeed {
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final List<String> ACTIVE = Collections.singletonList("active");
+
+    private final CryptoPay cryptoPay;
+    private final int pageSize;
+    private final Path stateFile;
+    private final ChangeFeedState state;
+
+    /**
+     * Создает ленту изменений.
+     *
+     * @param cryptoPay клиент API
+     * @param pageSize размер страницы (по умолчанию 100)
+     * @param stateFile файл состояния; если указан, состояние загружается из него и сохраняется после каждого опроса
+     * @param state начальное состояние (используется, если файл состояния не указан)
+     */
+    @Builder
+    public ChangeFeed(CryptoPay cryptoPay, int pageSize, Path stateFile, ChangeFeedState state) {
+        this.cryptoPay = Preconditions.checkNotNull(cryptoPay, "CryptoPay не может быть null");
+        this.pageSize = pageSize > 0 ? pageSize : DEFAULT_PAGE_SIZE;
+        this.stateFile = stateFile;
+        try {
+            this.state = stateFile != null ? ChangeFeedState.load(stateFile)
+                    : state != null ? state : new ChangeFeedState();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось загрузить состояние ленты изменений", e);
+        }
+    }
+
+    /**
+     * Возвращает текущее состояние ленты.
+     *
+     * @return состояние (изменяется при каждом опросе)
+     */
+    public synchronized ChangeFeedState getState() {
+        return state;
+    }
+
+    /**
+     * Получает изменения с момента предыдущего опроса.
+     * Первый опрос без сохраненного состояния фиксирует текущее положение, запоминает все незавершенные
+     * счета и чеки и возвращает пустой список.
+     *
+     * @return события в хронологическом порядке обнаружения
+     */
+    public synchronized List<CryptoPayEvent> poll() {
+        Instant now = Instant.now();
+        List<CryptoPayEvent> events = new ArrayList<>();
+        boolean emit = state.isInitialized();
+
+        pollInvoices(now, emit, events);
+        pollChecks(now, emit, events);
+        pollTransfers(now, emit, events);
+
+        state.setInitialized(true);
+        if (stateFile != null) {
+            try {
+                state.save(stateFile);
+            } catch (IOException e) {
+                log.warn("Не удалось сохранить состояние ленты изменений в {}", stateFile, e);
+            }
+        }
+        return events;
+    }
+
+    private void pollInvoices(Instant now, boolean emit, List<CryptoPayEvent> events) {
+        // Сначала перепроверяем ранее известные незавершенные счета
+        List<Long> open = new ArrayList<>(state.getOpenInvoices().keySet());
+        for (List<Long> batch : Lists.partition(open, pageSize)) {
+            List<Invoice> invoices = cryptoPay.getInvoices(CryptoPay.GetInvoicesParams.builder()
+                    .invoiceIds(batch)
+                    .count(batch.size())
+                    .build());
+            for (Invoice invoice : invoices) {
+                String previous = state.getOpenInvoices().get(invoice.getInvoiceId());
+                if (previous != null && !previous.equals(invoice.getStatus())) {
+                    updateOpenInvoice(invoice);
+                    events.add(new InvoiceStatusChangedEvent(now, invoice, previous));
+                }
+            }
+        }
+        if (!emit) {
+            forEachPage(offset -> cryptoPay.getInvoices(CryptoPay.GetInvoicesParams.builder()
+                    .offset(offset)
+                    .count(pageSize)
+                    .status(ACTIVE)
+                    .build()), this::updateOpenInvoice);
+        }
+
+        List<Invoice> fresh = fetchAbove(state.getInvoiceWatermark(), emit,
+                offset -> cryptoPay.getInvoices(CryptoPay.GetInvoicesParams.builder()
+                        .offset(offset)
+                        .count(pageSize)
+                        .build()),
+                Invoice::getInvoiceId);
+        for (Invoice invoice : fresh) {
+            state.setInvoiceWatermark(Math.max(state.getInvoiceWatermark(), invoice.getInvoiceId()));
+            updateOpenInvoice(invoice);
+            if (emit) {
+                events.add(new InvoiceStatusChangedEvent(now, invoice, null));
+            }
+        }
+    }
+
+    private void pollChecks(Instant now, boolean emit, List<CryptoPayEvent> events) {
+        List<Long> open = new ArrayList<>(state.getOpenChecks());
+        for (List<Long> batch : Lists.partition(open, pageSize)) {
+            List<Check> checks = cryptoPay.getChecks(CryptoPay.GetChecksParams.builder()
+                    .checkIds(batch)
+                    .count(batch.size())
+                    .build());
+            for (Check check : checks) {
+                if (!"active".equals(check.getStatus()) && state.getOpenChecks().remove(check.getCheckId())
+                        && "activated".equals(check.getStatus())) {
+                    events.add(new CheckActivatedEvent(now, check));
+                }
+            }
+        }
+        if (!emit) {
+            forEachPage(offset -> cryptoPay.getChecks(CryptoPay.GetChecksParams.builder()
+                    .offset(offset)
+                    .count(pageSize)
+                    .status(ACTIVE)
+                    .build()), check -> state.getOpenChecks().add(check.getCheckId()));
+        }
+
+        List<Check> fresh = fetchAbove(state.getCheckWatermark(), emit,
+                offset -> cryptoPay.getChecks(CryptoPay.GetChecksParams.builder()
+                        .offset(offset)
+                        .count(pageSize)
+                        .build()),
+                Check::getCheckId);
+        for (Check check : fresh) {
+            state.setCheckWatermark(Math.max(state.getCheckWatermark(), check.getCheckId()));
+            if ("active".equals(check.getStatus())) {
+                state.getOpenChecks().add(check.getCheckId());
+            } else if (emit && "activated".equals(check.getStatus())) {
+                events.add(new CheckActivatedEvent(now, check));
+            }
+        }
+    }
+
+    private void pollTransfers(Instant now, boolean emit, List<CryptoPayEvent> events) {
+        List<Transfer> fresh = fetchAbove(state.getTransferWatermark(), emit,
+                offset -> cryptoPay.getTransfers(CryptoPay.GetTransfersParams.builder()
+                        .offset(offset)
+                        .count(pageSize)
+                        .build()),
+                Transfer::getTransferId);
+        for (Transfer transfer : fresh) {
+            state.setTransferWatermark(Math.max(state.getTransferWatermark(), transfer.getTransferId()));
+            if (emit) {
+                events.add(new TransferCreatedEvent(now, transfer));
+            }
+        }
+    }
+
+    private void updateOpenInvoice(Invoice invoice) {
+        if ("active".equals(invoice.getStatus())) {
+            state.getOpenInvoices().put(invoice.getInvoiceId(), invoice.getStatus());
+        } else {
+            state.getOpenInvoices().remove(invoice.getInvoiceId());
+        }
+    }
+
+    /**
+     * Читает все страницы списка до первой неполной.
+     */
+    private <T> void forEachPage(Function<Integer, List<T>> page, Consumer<T> action) {
+        int offset = 0;
+        while (true) {
+            List<T> items = page.apply(offset);
+            items.forEach(action);
+            if (items.size() < pageSize) {
+                return;
+            }
+            offset += items.size();
+        }
+    }
+
+    /**
+     * Читает страницы с начала списка, пока не встретится элемент с идентификатором не выше отметки.
+     * Без сохраненного состояния читается только первая страница: она задает отметку, а незавершенные
+     * сущности за ее пределами находит отдельное сканирование по статусу.
+     *
+     * @return элементы выше отметки в порядке возрастания идентификатора
+     */
+    private <T> List<T> fetchAbove(long watermark, boolean initialized, Function<Integer, List<T>> page,
+                                   Function<T, Long> id) {
+        List<T> result = new ArrayList<>();
+        long lastId = Long.MAX_VALUE;
+        int offset = 0;
+        while (true) {
+            List<T> items = page.apply(offset);
+            boolean reachedWatermark = false;
+            for (T item : items) {
+                long itemId = id.apply(item);
+                if (itemId <= watermark) {
+                    reachedWatermark = true;
+                    break;
+                }
+                // Новые элементы между чтениями страниц сдвигают список: уже прочитанные пропускаются
+                if (itemId < lastId) {
+                    result.add(item);
+                    lastId = itemId;
+                }
+            }
+            if (reachedWatermark || !initialized || items.size() < pageSize) {
+                break;
+            }
+            offset += items.size();
+        }
+        Collections.reverse(result);
+        return result;
+    }
+}
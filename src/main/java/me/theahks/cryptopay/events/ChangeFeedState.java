@@ -0,0 +1,90 @@
+package me.theahks.cryptopay.events;
+
+import me.theahks.cryptopay.util.JsonUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Сохраняемое состояние ленты изменений: верхние отметки идентификаторов и незавершенные сущности.
+ * Позволяет после перезапуска продолжить с места остановки без полного повторного сканирования.
+ */
+@Data
+@NoArgsConstructor
+public class ChangeFeedState {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    static {
+        JsonUtils.configureObjectMapper(MAPPER);
+    }
+
+    /**
+     * Признак того, что начальное состояние уже зафиксировано.
+     */
+    private boolean initialized;
+
+    /**
+     * Наибольший обработанный идентификатор счета.
+     */
+    private long invoiceWatermark;
+
+    /**
+     * Наибольший обработанный идентификатор чека.
+     */
+    private long checkWatermark;
+
+    /**
+     * Наибольший обработанный идентификатор перевода.
+     */
+    private long transferWatermark;
+
+    /**
+     * Незавершенные счета и их последний известный статус.
+     */
+    private Map<Long, String> openInvoices = new LinkedHashMap<>();
+
+    /**
+     * Неактивированные чеки.
+     */
+    private Set<Long> openChecks = new LinkedHashSet<>();
+
+    /**
+     * Загружает состояние из файла.
+     *
+     * @param file файл состояния
+     * @return состояние или пустое состояние, если файла нет
+     * @throws IOException если файл не удалось прочитать
+     */
+    public static ChangeFeedState load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return new ChangeFeedState();
+        }
+        return MAPPER.readValue(file.toFile(), ChangeFeedState.class);
+    }
+
+    /**
+     * Атомарно сохраняет состояние в файл.
+     *
+     * @param file файл состояния
+     * @throws IOException если файл не удалось записать
+     */
+    public void save(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            MAPPER.writeValue(temp.toFile(), this);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package me.theahks.cryptopay.events;
+
+import me.theahks.cryptopay.model.Check;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+/**
+ * Активация чека.
+ */
+@Getter
+@ToString
+public class CheckActivatedEvent extends CryptoPayEvent {
+    /**
+     * Активированный чек.
+     */
+    private final Check check;
+
+    public CheckActivatedEvent(Instant detectedAt, Check check) {
+        super(detectedAt);
+        this.check = check;
+    }
+}
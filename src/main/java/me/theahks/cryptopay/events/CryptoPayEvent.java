@@ -0,0 +1,20 @@
+package me.theahks.cryptopay.events;
+
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * Базовый класс событий изменения счетов, чеков и переводов.
+ */
+@Getter
+public abstract class CryptoPayEvent {
+    /**
+     * Момент, когда клиент обнаружил изменение.
+     */
+    private final Instant detectedAt;
+
+    protected CryptoPayEvent(Instant detectedAt) {
+        this.detectedAt = detectedAt;
+    }
+}
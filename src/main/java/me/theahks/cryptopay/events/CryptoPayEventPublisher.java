@@ -0,0 +1,106 @@
+package me.theahks.cryptopay.events;
+
+import me.theahks.cryptopay.api.CryptoPay;
+import com.google.common.base.Preconditions;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Издатель событий изменения счетов, чеков и переводов, совместимый с Reactive Streams.
+ * <p>
+ * Опрос API выполняется одним фоновым потоком и разделяется между всеми подписчиками.
+ * Каждый подписчик получает события по собственному запросу ({@link Flow.Subscription#request(long)})
+ * через отдельный буфер. Если буфер медленного подписчика заполнен, опрос приостанавливается
+ * до освобождения места, поэтому события не теряются.
+ * <p>
+ * Изменения определяются через {@link ChangeFeed}. Первый опрос без сохраненного состояния
+ * фиксирует текущее положение и событий не порождает; опрос начинается при появлении первого подписчика.
+ */
+@Slf4j
+public class CryptoPayEventPublisher implements Flow.Publisher<CryptoPayEvent>, AutoCloseable {
+    private static final Duration DEFAULT_POLL_INTERVAL = Duration.ofSeconds(5);
+
+    private final ChangeFeed changeFeed;
+    private final Duration pollInterval;
+    private final SubmissionPublisher<CryptoPayEvent> publisher;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    /**
+     * Создает издателя событий.
+     *
+     * @param cryptoPay клиент API (не нужен, если указана лента изменений)
+     * @param changeFeed лента изменений (по умолчанию создается для cryptoPay без сохранения состояния)
+     * @param pollInterval интервал опроса (по умолчанию 5 секунд)
+     * @param pageSize размер страницы ленты изменений по умолчанию (по умолчанию 100)
+     * @param bufferCapacity размер буфера каждого подписчика (по умолчанию {@link Flow#defaultBufferSize()})
+     * @param executor исполнитель доставки событий подписчикам (по умолчанию общий ForkJoinPool)
+     */
+    @Builder
+    public CryptoPayEventPublisher(CryptoPay cryptoPay, ChangeFeed changeFeed, Duration pollInterval, int pageSize,
+                                   int bufferCapacity, Executor executor) {
+        Preconditions.checkArgument(cryptoPay != null || changeFeed != null,
+                "Необходимо указать CryptoPay или ленту изменений");
+        this.changeFeed = changeFeed != null ? changeFeed
+                : ChangeFeed.builder().cryptoPay(cryptoPay).pageSize(pageSize).build();
+        this.pollInterval = pollInterval != null ? pollInterval : DEFAULT_POLL_INTERVAL;
+        this.publisher = new SubmissionPublisher<>(
+                executor != null ? executor : ForkJoinPool.commonPool(),
+                bufferCapacity > 0 ? bufferCapacity : Flow.defaultBufferSize());
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cryptopay-event-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super CryptoPayEvent> subscriber) {
+        publisher.subscribe(subscriber);
+        if (started.compareAndSet(false, true)) {
+            scheduler.scheduleWithFixedDelay(this::pollSafely, 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Возвращает текущее количество подписчиков.
+     *
+     * @return количество подписчиков
+     */
+    public int getSubscriberCount() {
+        return publisher.getNumberOfSubscribers();
+    }
+
+    /**
+     * Останавливает опрос и завершает все подписки сигналом onComplete.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        publisher.close();
+    }
+
+    private void pollSafely() {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            log.warn("Ошибка при опросе изменений CryptoPay", e);
+        }
+    }
+
+    private void poll() {
+        for (CryptoPayEvent event : changeFeed.poll()) {
+            publisher.submit(event);
+        }
+    }
+}
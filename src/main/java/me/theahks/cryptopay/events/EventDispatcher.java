@@ -0,0 +1,253 @@
+package me.theahks.cryptopay.events;
+
+import com.google.common.base.Preconditions;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Внутрипроцессная рассылка событий счетов, чеков и переводов нескольким обработчикам
+ * (например, выдаче заказа, письмам и учету) через кольцевой буфер с одним публикующим потоком.
+ * <p>
+ * Буфер выделяется один раз; публикация записывает ссылку на событие в ячейку и продвигает номер
+ * последнего опубликованного события без блокировок. Каждый обработчик работает в своем потоке,
+ * забирает все опубликованные события пакетом и сдвигает свой номер один раз на пакет. Если самый
+ * медленный обработчик отстал на размер буфера, публикация ждет освобождения ячейки, поэтому события
+ * не теряются. Ячейки событий, обработанных всеми обработчиками, очищаются при следующей публикации,
+ * чтобы буфер не удерживал уже обработанные события.
+ * <p>
+ * Методы публикации должны вызываться из одного потока одновременно (например, из потока опроса
+ * {@link ChangeFeed}). Диспетчер можно подписать на {@link CryptoPayEventPublisher}: он запрашивает
+ * события без ограничения и публикует их в буфер.
+ */
+@Slf4j
+public class EventDispatcher implements Flow.Subscriber<CryptoPayEvent>, AutoCloseable {
+    private static final int DEFAULT_BUFFER_SIZE = 1024;
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    private final CryptoPayEvent[] entries;
+    private final int mask;
+    private final Sequence cursor = new Sequence(-1);
+    private final Sequence[] handlerSequences;
+    private final WaitStrategy waitStrategy;
+    private final ExecutorService executor;
+    private volatile boolean closed;
+
+    // Поля ниже используются только публикующим потоком
+    private long nextSequence = -1;
+    private long cachedMinimumSequence = -1;
+    private long clearedSequence = -1;
+
+    /**
+     * Создает диспетчер и запускает потоки обработчиков.
+     *
+     * @param handlers обработчики; каждый получает все события
+     * @param bufferSize размер кольцевого буфера, степень двойки (по умолчанию 1024)
+     * @param waitStrategy способ ожидания событий обработчиками (по умолчанию {@link WaitStrategy#blocking()})
+     */
+    @Builder
+    public EventDispatcher(List<EventHandler> handlers, int bufferSize, WaitStrategy waitStrategy) {
+        Preconditions.checkArgument(handlers != null && !handlers.isEmpty(), "Необходимо указать хотя бы один обработчик");
+        int size = bufferSize > 0 ? bufferSize : DEFAULT_BUFFER_SIZE;
+        Preconditions.checkArgument(Integer.bitCount(size) == 1, "Размер буфера должен быть степенью двойки");
+
+        this.entries = new CryptoPayEvent[size];
+        this.mask = size - 1;
+        this.waitStrategy = waitStrategy != null ? waitStrategy : WaitStrategy.blocking();
+        this.handlerSequences = new Sequence[handlers.size()];
+        for (int i = 0; i < handlerSequences.length; i++) {
+            handlerSequences[i] = new Sequence(-1);
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(handlers.size(), runnable -> {
+            Thread thread = new Thread(runnable, "cryptopay-event-handler-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < handlerSequences.length; i++) {
+            EventHandler handler = Preconditions.checkNotNull(handlers.get(i), "Обработчик не может быть null");
+            Sequence sequence = handlerSequences[i];
+            executor.execute(() -> runHandler(handler, sequence));
+        }
+    }
+
+    /**
+     * Публикует событие. Если буфер заполнен, ждет, пока самый медленный обработчик освободит ячейку.
+     *
+     * @param event событие
+     * @throws IllegalStateException если диспетчер закрыт
+     */
+    public void publish(CryptoPayEvent event) {
+        Preconditions.checkNotNull(event, "Событие не может быть null");
+        claim(nextSequence + 1);
+        entries[(int) ++nextSequence & mask] = event;
+        cursor.set(nextSequence);
+        waitStrategy.signalAll();
+        clearConsumed();
+    }
+
+    /**
+     * Публикует события пакетом: обработчики узнают о них одним продвижением номера, пока в буфере
+     * хватает места.
+     *
+     * @param events события
+     * @throws IllegalStateException если диспетчер закрыт
+     */
+    public void publishAll(List<? extends CryptoPayEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        for (CryptoPayEvent event : events) {
+            Preconditions.checkNotNull(event, "Событие не может быть null");
+            claim(nextSequence + 1);
+            entries[(int) ++nextSequence & mask] = event;
+        }
+        cursor.set(nextSequence);
+        waitStrategy.signalAll();
+        clearConsumed();
+    }
+
+    /**
+     * Возвращает количество опубликованных, но еще не обработанных самым медленным обработчиком событий.
+     *
+     * @return отставание самого медленного обработчика
+     */
+    public long getBacklog() {
+        return cursor.get() - minimumHandlerSequence();
+    }
+
+    /**
+     * Возвращает размер кольцевого буфера.
+     *
+     * @return размер буфера
+     */
+    public int getBufferSize() {
+        return entries.length;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(CryptoPayEvent item) {
+        publish(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        log.warn("Издатель событий CryptoPay завершился с ошибкой", throwable);
+    }
+
+    @Override
+    public void onComplete() {
+    }
+
+    /**
+     * Прекращает прием событий и ждет, пока обработчики обработают уже опубликованные.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        waitStrategy.signalAll();
+        executor.shutdown();
+        try {
+            if (executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                Arrays.fill(entries, null);
+            } else {
+                log.warn("Обработчики событий не завершились за {} с", CLOSE_TIMEOUT_SECONDS);
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Ждет, пока ячейка для события с заданным номером освободится всеми обработчиками.
+     */
+    private void claim(long sequence) {
+        if (closed) {
+            throw new IllegalStateException("Диспетчер событий закрыт");
+        }
+        long wrapPoint = sequence - entries.length;
+        if (wrapPoint <= cachedMinimumSequence) {
+            return;
+        }
+        if (cursor.get() < nextSequence) {
+            // Незавершенный пакет публикуется, иначе обработчики не смогут освободить ячейки
+            cursor.set(nextSequence);
+            waitStrategy.signalAll();
+        }
+        long minimum;
+        while (wrapPoint > (minimum = minimumHandlerSequence())) {
+            if (closed) {
+                throw new IllegalStateException("Диспетчер событий закрыт");
+            }
+            LockSupport.parkNanos(1);
+        }
+        cachedMinimumSequence = minimum;
+    }
+
+    /**
+     * Очищает ячейки событий, которые уже обработаны всеми обработчиками и еще не заняты новыми.
+     */
+    private void clearConsumed() {
+        long minimum = minimumHandlerSequence();
+        cachedMinimumSequence = minimum;
+        for (long sequence = Math.max(clearedSequence + 1, nextSequence - entries.length + 1);
+             sequence <= minimum; sequence++) {
+            entries[(int) sequence & mask] = null;
+        }
+        clearedSequence = Math.max(clearedSequence, minimum);
+    }
+
+    private long minimumHandlerSequence() {
+        long minimum = Long.MAX_VALUE;
+        for (Sequence sequence : handlerSequences) {
+            minimum = Math.min(minimum, sequence.get());
+        }
+        return minimum;
+    }
+
+    private void runHandler(EventHandler handler, Sequence handlerSequence) {
+        long processed = handlerSequence.get();
+        while (true) {
+            long next = processed + 1;
+            long available;
+            try {
+                available = waitStrategy.waitFor(next, cursor::get, () -> closed);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (available < next) {
+                if (closed && cursor.get() < next) {
+                    return;
+                }
+                continue;
+            }
+            for (long sequence = next; sequence <= available; sequence++) {
+                CryptoPayEvent event = entries[(int) sequence & mask];
+                try {
+                    handler.onEvent(event, sequence, sequence == available);
+                } catch (Exception e) {
+                    log.warn("Ошибка в обработчике события {}", event, e);
+                }
+            }
+            handlerSequence.setRelease(available);
+            processed = available;
+        }
+    }
+}
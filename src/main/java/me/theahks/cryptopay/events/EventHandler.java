@@ -0,0 +1,38 @@
+package me.theahks.cryptopay.events;
+
+import java.util.function.Consumer;
+
+/**
+ * Обработчик событий {@link EventDispatcher}. Каждый обработчик выполняется в собственном потоке
+ * и получает все события в порядке публикации.
+ */
+@FunctionalInterface
+public interface EventHandler {
+
+    /**
+     * Обрабатывает событие.
+     *
+     * @param event событие
+     * @param sequence номер события в диспетчере
+     * @param endOfBatch true для последнего из уже опубликованных событий; удобно для пакетной
+     *                   записи (например, сброса журнала один раз на пакет)
+     * @throws Exception ошибка обработки; записывается в журнал, обработка следующих событий продолжается
+     */
+    void onEvent(CryptoPayEvent event, long sequence, boolean endOfBatch) throws Exception;
+
+    /**
+     * Создает обработчик событий одного типа; остальные события пропускаются.
+     *
+     * @param type тип событий, например {@link InvoiceStatusChangedEvent}
+     * @param consumer обработчик
+     * @param <E> тип событий
+     * @return обработчик
+     */
+    static <E extends CryptoPayEvent> EventHandler ofType(Class<E> type, Consumer<? super E> consumer) {
+        return (event, sequence, endOfBatch) -> {
+            if (type.isInstance(event)) {
+                consumer.accept(type.cast(event));
+            }
+        };
+    }
+}
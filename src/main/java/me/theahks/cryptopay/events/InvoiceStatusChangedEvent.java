@@ -0,0 +1,39 @@
+package me.theahks.cryptopay.events;
+
+import me.theahks.cryptopay.model.Invoice;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+/**
+ * Появление нового счета или изменение статуса существующего.
+ */
+@Getter
+@ToString
+public class InvoiceStatusChangedEvent extends CryptoPayEvent {
+    /**
+     * Счет в новом состоянии.
+     */
+    private final Invoice invoice;
+
+    /**
+     * Предыдущий статус или null для нового счета.
+     */
+    private final String previousStatus;
+
+    public InvoiceStatusChangedEvent(Instant detectedAt, Invoice invoice, String previousStatus) {
+        super(detectedAt);
+        this.invoice = invoice;
+        this.previousStatus = previousStatus;
+    }
+
+    /**
+     * Проверяет, был ли счет оплачен в результате этого изменения.
+     *
+     * @return true, если новый статус — "paid"
+     */
+    public boolean isPaid() {
+        return "paid".equals(invoice.getStatus());
+    }
+}
@@ -0,0 +1,45 @@
+package me.theahks.cryptopay.events;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Номер последнего опубликованного или обработанного события кольцевого буфера.
+ * Значение отделено от соседних полей заполнением, чтобы счетчики разных потоков
+ * не попадали в одну строку кэша.
+ */
+@SuppressWarnings("unused")
+final class Sequence {
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(Sequence.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private long p1, p2, p3, p4, p5, p6, p7;
+    private volatile long value;
+    private long p9, p10, p11, p12, p13, p14, p15;
+
+    Sequence(long initialValue) {
+        this.value = initialValue;
+    }
+
+    long get() {
+        return value;
+    }
+
+    /**
+     * Публикует значение для других потоков без полного барьера.
+     */
+    void setRelease(long newValue) {
+        VALUE.setRelease(this, newValue);
+    }
+
+    void set(long newValue) {
+        value = newValue;
+    }
+}
@@ -0,0 +1,24 @@
+package me.theahks.cryptopay.events;
+
+import me.theahks.cryptopay.model.Transfer;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+/**
+ * Появление нового перевода.
+ */
+@Getter
+@ToString
+public class TransferCreatedEvent extends CryptoPayEvent {
+    /**
+     * Новый перевод.
+     */
+    private final Transfer transfer;
+
+    public TransferCreatedEvent(Instant detectedAt, Transfer transfer) {
+        super(detectedAt);
+        this.transfer = transfer;
+    }
+}
@@ -0,0 +1,113 @@
+package me.theahks.cryptopay.events;
+
+import com.google.common.base.Preconditions;
+
+import java.time.Duration;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Способ ожидания новых событий обработчиком {@link EventDispatcher}.
+ * <p>
+ * Стратегии различаются задержкой доставки и расходом процессора: активное ожидание дает наименьшую
+ * задержку, но занимает ядро на каждый обработчик; блокирующее почти не расходует процессор, но
+ * добавляет время пробуждения потока.
+ */
+public interface WaitStrategy {
+    /**
+     * Количество проверок до перехода к более дешевому способу ожидания.
+     */
+    int SPIN_TRIES = 100;
+
+    /**
+     * Ожидает публикации события с заданным номером.
+     *
+     * @param sequence номер ожидаемого события
+     * @param cursor номер последнего опубликованного события
+     * @param stopped признак остановки диспетчера
+     * @return номер последнего опубликованного события; меньше sequence, если диспетчер остановлен
+     * @throws InterruptedException если ожидание прервано
+     */
+    long waitFor(long sequence, LongSupplier cursor, BooleanSupplier stopped) throws InterruptedException;
+
+    /**
+     * Будит ожидающие обработчики после публикации. По умолчанию ничего не делает.
+     */
+    default void signalAll() {
+    }
+
+    /**
+     * Активное ожидание: минимальная задержка, одно занятое ядро на каждый обработчик.
+     *
+     * @return стратегия
+     */
+    static WaitStrategy busySpin() {
+        return (sequence, cursor, stopped) -> {
+            long available;
+            while ((available = cursor.getAsLong()) < sequence && !stopped.getAsBoolean()) {
+                Thread.onSpinWait();
+            }
+            return available;
+        };
+    }
+
+    /**
+     * Активное ожидание с уступкой процессора другим потокам после {@link #SPIN_TRIES} проверок.
+     *
+     * @return стратегия
+     */
+    static WaitStrategy yielding() {
+        return (sequence, cursor, stopped) -> {
+            long available;
+            int tries = 0;
+            while ((available = cursor.getAsLong()) < sequence && !stopped.getAsBoolean()) {
+                if (++tries > SPIN_TRIES) {
+                    Thread.yield();
+                } else {
+                    Thread.onSpinWait();
+                }
+            }
+            return available;
+        };
+    }
+
+    /**
+     * Ожидание с засыпанием на заданное время после активной фазы и уступок процессора.
+     *
+     * @param sleep время засыпания между проверками
+     * @return стратегия
+     */
+    static WaitStrategy sleeping(Duration sleep) {
+        long sleepNanos = sleep.toNanos();
+        Preconditions.checkArgument(sleepNanos > 0, "Время засыпания должно быть положительным");
+        return (sequence, cursor, stopped) -> {
+            long available;
+            int tries = 0;
+            while ((available = cursor.getAsLong()) < sequence && !stopped.getAsBoolean()) {
+                tries++;
+                if (tries <= SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else if (tries <= 2 * SPIN_TRIES) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(sleepNanos);
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                }
+            }
+            return available;
+        };
+    }
+
+    /**
+     * Блокирующее ожидание на условии: почти не расходует процессор, публикация будит только
+     * действительно ожидающие обработчики.
+     *
+     * @return стратегия
+     */
+    static WaitStrategy blocking() {
+        return new BlockingWaitStrategy();
+    }
+}
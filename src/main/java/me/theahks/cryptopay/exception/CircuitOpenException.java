@@ -0,0 +1,50 @@
+package me.theahks.cryptopay.exception;
+
+import java.time.Duration;
+
+/**
+ * Исключение без стека вызовов, которое выбрасывается без обращения к сети, когда автомат защиты
+ * метода API разомкнут.
+ */
+public class CircuitOpenException extends CryptoPayApiException {
+    /**
+     * Имя метода API.
+     */
+    private final String apiMethod;
+
+    /**
+     * Время до следующей пробной попытки.
+     */
+    private final Duration retryAfter;
+
+    /**
+     * Создает исключение для разомкнутого автомата защиты.
+     * 
+     * @param apiMethod имя метода API
+     * @param retryAfter время до следующей пробной попытки
+     */
+    public CircuitOpenException(String apiMethod, Duration retryAfter) {
+        super("Автомат защиты метода " + apiMethod + " разомкнут, повтор через " + retryAfter.toMillis() + " мс",
+                null, null, null);
+        this.apiMethod = apiMethod;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Получает имя метода API.
+     * 
+     * @return имя метода API
+     */
+    public String getApiMethod() {
+        return apiMethod;
+    }
+
+    /**
+     * Получает время до следующей пробной попытки.
+     * 
+     * @return время до пробной попытки
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -1,7 +1,14 @@
 package me.theahks.cryptopay.exception;
 
+import java.time.Duration;
+import java.util.Locale;
+
 /**
  * Исключение, которое выбрасывается при ошибке в API CryptoBot.
+ * <p>
+ * Ошибки, о которых сообщил сам API, создаются через {@link #fromApiError} в виде типизированных
+ * подклассов без стека вызовов: при массовых отказах (например, при превышении лимита запросов)
+ * заполнение стека обходится дороже самой обработки ошибки.
  */
 public class CryptoPayApiException extends RuntimeException {
     /**
@@ -9,6 +16,11 @@ public class CryptoPayApiException extends RuntimeException {
      */
     private final Integer errorCode;
 
+    /**
+     * Имя ошибки API, например "NOT_ENOUGH_COINS".
+     */
+    private final String errorName;
+
     /**
      * Создает исключение с сообщением и кодом ошибки.
      * 
@@ -18,6 +30,7 @@ public class CryptoPayApiException extends RuntimeException {
     public CryptoPayApiException(String message, Integer errorCode) {
         super(message);
         this.errorCode = errorCode;
+        this.errorName = null;
     }
 
     /**
@@ -30,6 +43,7 @@ public class CryptoPayApiException extends RuntimeException {
     public CryptoPayApiException(String message, Integer errorCode, Throwable cause) {
         super(message, cause);
         this.errorCode = errorCode;
+        this.errorName = null;
     }
 
     /**
@@ -41,6 +55,58 @@ public class CryptoPayApiException extends RuntimeException {
     public CryptoPayApiException(String message, Throwable cause) {
         super(message, cause);
         this.errorCode = null;
+        this.errorName = null;
+    }
+
+    /**
+     * Создает исключение без стека вызовов для ожидаемых ошибок.
+     *
+     * @param message сообщение об ошибке
+     * @param errorCode код ошибки API
+     * @param errorName имя ошибки API
+     * @param cause причина исключения
+     */
+    protected CryptoPayApiException(String message, Integer errorCode, String errorName, Throwable cause) {
+        super(message, cause, true, false);
+        this.errorCode = errorCode;
+        this.errorName = errorName;
+    }
+
+    /**
+     * Создает типизированное исключение по ошибке, которую вернул API.
+     *
+     * @param errorCode код ошибки (из тела ответа или HTTP-статус)
+     * @param errorName имя ошибки API (может быть null)
+     * @param retryAfter время до повторной попытки из ответа (может быть null)
+     * @return исключение без стека вызовов
+     */
+    public static CryptoPayApiException fromApiError(Integer errorCode, String errorName, Duration retryAfter) {
+        String name = errorName != null ? errorName.toUpperCase(Locale.ROOT) : "";
+        int code = errorCode != null ? errorCode : 0;
+        if (code == 429 || name.startsWith("FLOOD") || name.contains("TOO_MANY_REQUESTS")) {
+            return new RateLimitedException(errorCode, errorName, retryAfter);
+        }
+        if (code >= 500) {
+            return new TransientServerException(errorCode, errorName, retryAfter);
+        }
+        if (name.equals("NOT_ENOUGH_COINS") || name.equals("INSUFFICIENT_FUNDS")) {
+            return new InsufficientFundsException(errorCode, errorName);
+        }
+        if (name.endsWith("_INVALID") || name.endsWith("_REQUIRED")) {
+            return new InvalidParamsException(errorCode, errorName);
+        }
+        return new CryptoPayApiException(describe(errorCode, errorName), errorCode, errorName, null);
+    }
+
+    /**
+     * Формирует сообщение об ошибке API.
+     *
+     * @param errorCode код ошибки API
+     * @param errorName имя ошибки API
+     * @return сообщение
+     */
+    static String describe(Integer errorCode, String errorName) {
+        return (errorName != null ? errorName : "Ошибка API") + (errorCode != null ? " (код: " + errorCode + ")" : "");
     }
 
     /**
@@ -51,4 +117,22 @@ public class CryptoPayApiException extends RuntimeException {
     public Integer getErrorCode() {
         return errorCode;
     }
+
+    /**
+     * Получает имя ошибки API.
+     *
+     * @return имя ошибки, например "NOT_ENOUGH_COINS", или null, если имя не указано
+     */
+    public String getErrorName() {
+        return errorName;
+    }
+
+    /**
+     * Проверяет, может ли повтор того же вызова позже завершиться успешно.
+     *
+     * @return true для временных ошибок
+     */
+    public boolean isRetryable() {
+        return false;
+    }
 } 
\ No newline at end of file
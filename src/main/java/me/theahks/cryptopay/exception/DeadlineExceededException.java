@@ -0,0 +1,57 @@
+package me.theahks.cryptopay.exception;
+
+/**
+ * Исключение без стека вызовов, которое выбрасывается, когда крайний срок вызова истек или вызов отменен.
+ */
+public class DeadlineExceededException extends CryptoPayApiException {
+    /**
+     * Имя метода API.
+     */
+    private final String apiMethod;
+
+    /**
+     * Признак отмены вызова (а не истечения срока).
+     */
+    private final boolean cancelled;
+
+    /**
+     * Создает исключение для истекшего или отмененного вызова.
+     *
+     * @param apiMethod имя метода API
+     * @param cancelled true, если вызов отменен
+     */
+    public DeadlineExceededException(String apiMethod, boolean cancelled) {
+        this(apiMethod, cancelled, null);
+    }
+
+    /**
+     * Создает исключение для истекшего или отмененного вызова.
+     *
+     * @param apiMethod имя метода API
+     * @param cancelled true, если вызов отменен
+     * @param cause причина исключения
+     */
+    public DeadlineExceededException(String apiMethod, boolean cancelled, Throwable cause) {
+        super((cancelled ? "Вызов " : "Истек срок вызова ") + apiMethod + (cancelled ? " отменен" : ""), null, null, cause);
+        this.apiMethod = apiMethod;
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * Получает имя метода API.
+     *
+     * @return имя метода API
+     */
+    public String getApiMethod() {
+        return apiMethod;
+    }
+
+    /**
+     * Проверяет, был ли вызов отменен.
+     *
+     * @return true, если вызов отменен, и false, если истек срок
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,17 @@
+package me.theahks.cryptopay.exception;
+
+/**
+ * Исключение без стека вызовов, которое выбрасывается, когда на балансе приложения недостаточно средств
+ * для перевода или чека.
+ */
+public class InsufficientFundsException extends CryptoPayApiException {
+    /**
+     * Создает исключение для недостатка средств.
+     *
+     * @param errorCode код ошибки API
+     * @param errorName имя ошибки API
+     */
+    public InsufficientFundsException(Integer errorCode, String errorName) {
+        super(describe(errorCode, errorName), errorCode, errorName, null);
+    }
+}
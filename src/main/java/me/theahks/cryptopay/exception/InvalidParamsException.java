@@ -0,0 +1,17 @@
+package me.theahks.cryptopay.exception;
+
+/**
+ * Исключение без стека вызовов, которое выбрасывается, когда API отклонил параметры вызова
+ * (например, "AMOUNT_INVALID" или "ASSET_INVALID").
+ */
+public class InvalidParamsException extends CryptoPayApiException {
+    /**
+     * Создает исключение для недопустимых параметров.
+     *
+     * @param errorCode код ошибки API
+     * @param errorName имя ошибки API
+     */
+    public InvalidParamsException(Integer errorCode, String errorName) {
+        super(describe(errorCode, errorName), errorCode, errorName, null);
+    }
+}
@@ -0,0 +1,41 @@
+package me.theahks.cryptopay.exception;
+
+import java.time.Duration;
+
+/**
+ * Исключение без стека вызовов, которое выбрасывается, когда API отклонил вызов из-за превышения
+ * лимита запросов.
+ */
+public class RateLimitedException extends CryptoPayApiException {
+    /**
+     * Время до повторной попытки или null, если API его не сообщил.
+     */
+    private final Duration retryAfter;
+
+    /**
+     * Создает исключение для превышения лимита запросов.
+     *
+     * @param errorCode код ошибки API
+     * @param errorName имя ошибки API
+     * @param retryAfter время до повторной попытки (может быть null)
+     */
+    public RateLimitedException(Integer errorCode, String errorName, Duration retryAfter) {
+        super(describe(errorCode, errorName) + (retryAfter != null ? ", повтор через " + retryAfter.toMillis() + " мс" : ""),
+                errorCode, errorName, null);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Получает время до повторной попытки.
+     *
+     * @return время до повторной попытки или null, если API его не сообщил
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    @Override
+    public boolean isRetryable() {
+        return true;
+    }
+}
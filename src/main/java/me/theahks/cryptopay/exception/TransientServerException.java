@@ -0,0 +1,39 @@
+package me.theahks.cryptopay.exception;
+
+import java.time.Duration;
+
+/**
+ * Исключение без стека вызовов, которое выбрасывается при временной ошибке на стороне сервера API (статус 5xx).
+ */
+public class TransientServerException extends CryptoPayApiException {
+    /**
+     * Время до повторной попытки или null, если сервер его не сообщил.
+     */
+    private final Duration retryAfter;
+
+    /**
+     * Создает исключение для временной ошибки сервера.
+     *
+     * @param errorCode код ошибки API или HTTP-статус
+     * @param errorName имя ошибки API
+     * @param retryAfter время до повторной попытки (может быть null)
+     */
+    public TransientServerException(Integer errorCode, String errorName, Duration retryAfter) {
+        super(describe(errorCode, errorName), errorCode, errorName, null);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Получает время до повторной попытки.
+     *
+     * @return время до повторной попытки или null, если сервер его не сообщил
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    @Override
+    public boolean isRetryable() {
+        return true;
+    }
+}
@@ -0,0 +1,75 @@
+package me.theahks.cryptopay.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import lombok.Setter;
+
+/**
+ * Событие Java Flight Recorder для одного вызова API.
+ * <p>
+ * Длительность события — полное время вызова, включая ожидание в очереди диспетчера. Поля заполняются
+ * только при включенной записи события, поэтому без записи вызов почти ничего не стоит.
+ * Времена задаются в наносекундах.
+ */
+@Setter
+@Name(ApiCallEvent.NAME)
+@Label("CryptoPay API Call")
+@Category({"CryptoPay", "API"})
+@Description("Вызов метода CryptoBot API")
+@StackTrace(false)
+public class ApiCallEvent extends Event {
+    /**
+     * Имя типа события.
+     */
+    public static final String NAME = "me.theahks.cryptopay.ApiCall";
+
+    @Label("Endpoint")
+    @Description("Имя метода API")
+    String endpoint;
+
+    @Label("HTTP Method")
+    String httpMethod;
+
+    @Label("Status")
+    @Description("HTTP-статус ответа (0, если ответ не получен)")
+    int status;
+
+    @Label("Error Code")
+    @Description("Код ошибки API (0, если вызов успешен)")
+    int errorCode;
+
+    @Label("Error Name")
+    @Description("Имя ошибки API или класс исключения")
+    String errorName;
+
+    @Label("Bytes Out")
+    @DataAmount
+    long bytesOut;
+
+    @Label("Bytes In")
+    @DataAmount
+    long bytesIn;
+
+    @Label("Queue Time")
+    @Description("Ожидание места в диспетчере запросов")
+    @Timespan
+    long queueTime;
+
+    @Label("Network Time")
+    @Description("Выполнение запроса транспортом")
+    @Timespan
+    long networkTime;
+
+    @Label("Deserialization Time")
+    @Timespan
+    long deserializationTime;
+
+    @Label("Success")
+    boolean success;
+}
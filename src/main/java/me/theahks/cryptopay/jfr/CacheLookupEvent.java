@@ -0,0 +1,45 @@
+package me.theahks.cryptopay.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Событие Java Flight Recorder для обращения к кэшу клиента: попадание или промах.
+ */
+@Name(CacheLookupEvent.NAME)
+@Label("CryptoPay Cache Lookup")
+@Category({"CryptoPay", "Cache"})
+@Description("Обращение к кэшу клиента CryptoPay")
+@StackTrace(false)
+public class CacheLookupEvent extends Event {
+    /**
+     * Имя типа события.
+     */
+    public static final String NAME = "me.theahks.cryptopay.CacheLookup";
+
+    @Label("Cache")
+    @Description("Имя кэша, например \"assets\"")
+    String cache;
+
+    @Label("Hit")
+    boolean hit;
+
+    /**
+     * Записывает обращение к кэшу, если событие включено.
+     *
+     * @param cache имя кэша
+     * @param hit true при попадании
+     */
+    public static void record(String cache, boolean hit) {
+        CacheLookupEvent event = new CacheLookupEvent();
+        if (event.isEnabled()) {
+            event.cache = cache;
+            event.hit = hit;
+            event.commit();
+        }
+    }
+}
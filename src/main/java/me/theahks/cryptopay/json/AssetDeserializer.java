@@ -0,0 +1,50 @@
+package me.theahks.cryptopay.json;
+
+import me.theahks.cryptopay.model.Asset;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+
+import java.io.IOException;
+
+/**
+ * Потоковый десериализатор активов.
+ */
+class AssetDeserializer extends ModelDeserializer<Asset> {
+    private static final int CODE = 0;
+    private static final int NAME = 1;
+    private static final int MIN_INVOICE_AMOUNT = 2;
+    private static final int MIN_TRANSFER_AMOUNT = 3;
+    private static final int FIAT = 4;
+
+    AssetDeserializer() {
+        super(Asset.class, "code", "name", "minInvoiceAmount", "minTransferAmount", "fiat");
+    }
+
+    @Override
+    Asset create() {
+        return new Asset();
+    }
+
+    @Override
+    void readField(int index, Asset target, JsonParser p, DeserializationContext ctxt) throws IOException {
+        switch (index) {
+            case CODE:
+                target.setCode(readString(p, ctxt));
+                break;
+            case NAME:
+                target.setName(readString(p, ctxt));
+                break;
+            case FIAT:
+                target.setFiat(readBoolean(p, ctxt));
+                break;
+            case MIN_INVOICE_AMOUNT:
+                target.setMinInvoiceAmount(readDecimal(p, ctxt));
+                break;
+            case MIN_TRANSFER_AMOUNT:
+                target.setMinTransferAmount(readDecimal(p, ctxt));
+                break;
+            default:
+                break;
+        }
+    }
+}
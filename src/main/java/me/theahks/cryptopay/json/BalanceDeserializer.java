@@ -0,0 +1,42 @@
+package me.theahks.cryptopay.json;
+
+import me.theahks.cryptopay.model.Balance;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+
+import java.io.IOException;
+
+/**
+ * Потоковый десериализатор балансов.
+ */
+class BalanceDeserializer extends ModelDeserializer<Balance> {
+    private static final int CURRENCY_CODE = 0;
+    private static final int AVAILABLE = 1;
+    private static final int ONHOLD = 2;
+
+    BalanceDeserializer() {
+        super(Balance.class, "currencyCode", "available", "onhold");
+    }
+
+    @Override
+    Balance create() {
+        return new Balance();
+    }
+
+    @Override
+    void readField(int index, Balance target, JsonParser p, DeserializationContext ctxt) throws IOException {
+        switch (index) {
+            case CURRENCY_CODE:
+                target.setCurrencyCode(readString(p, ctxt));
+                break;
+            case AVAILABLE:
+                target.setAvailable(readDecimal(p, ctxt));
+                break;
+            case ONHOLD:
+                target.setOnhold(readDecimal(p, ctxt));
+                break;
+            default:
+                break;
+        }
+    }
+}
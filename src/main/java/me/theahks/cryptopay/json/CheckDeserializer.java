@@ -0,0 +1,65 @@
+package me.theahks.cryptopay.json;
+
+import me.theahks.cryptopay.model.Check;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+
+import java.io.IOException;
+
+/**
+ * Потоковый десериализатор чеков.
+ */
+class CheckDeserializer extends ModelDeserializer<Check> {
+    private static final int CHECK_ID = 0;
+    private static final int HASH = 1;
+    private static final int ASSET = 2;
+    private static final int AMOUNT = 3;
+    private static final int BOT_CHECK_URL = 4;
+    private static final int STATUS = 5;
+    private static final int CREATED_AT = 6;
+    private static final int ACTIVATED_AT = 7;
+
+    static final String[] FIELD_NAMES = {
+            "checkId", "hash", "asset", "amount", "botCheckUrl", "status", "createdAt", "activatedAt"};
+
+    CheckDeserializer() {
+        super(Check.class, FIELD_NAMES);
+    }
+
+    @Override
+    Check create() {
+        return new Check();
+    }
+
+    @Override
+    void readField(int index, Check target, JsonParser p, DeserializationContext ctxt) throws IOException {
+        switch (index) {
+            case CHECK_ID:
+                target.setCheckId(readLong(p, ctxt));
+                break;
+            case HASH:
+                target.setHash(readString(p, ctxt));
+                break;
+            case ASSET:
+                target.setAsset(readString(p, ctxt));
+                break;
+            case AMOUNT:
+                target.setAmount(readDecimal(p, ctxt));
+                break;
+            case BOT_CHECK_URL:
+                target.setBotCheckUrl(readString(p, ctxt));
+                break;
+            case STATUS:
+                target.setStatus(readString(p, ctxt));
+                break;
+            case CREATED_AT:
+                target.setCreatedAt(readDateTime(p, ctxt));
+                break;
+            case ACTIVATED_AT:
+                target.setActivatedAt(readDateTime(p, ctxt));
+                break;
+            default:
+                break;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package me.theahks.cryptopay.json;
+
+import me.theahks.cryptopay.model.Asset;
+import me.theahks.cryptopay.model.Balance;
+import me.theahks.cryptopay.model.Check;
+import me.theahks.cryptopay.model.ExchangeRate;
+import me.theahks.cryptopay.model.Invoice;
+import me.theahks.cryptopay.model.Transfer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+/**
+ * Модуль Jackson с потоковыми десериализаторами моделей CryptoBot API.
+ * Заменяет рефлексивный путь databind при разборе ответов, в первую очередь больших списков.
+ */
+public class CryptoPayJsonModule extends SimpleModule {
+
+    /**
+     * Создает модуль и регистрирует десериализаторы всех моделей.
+     */
+    public CryptoPayJsonModule() {
+        super("CryptoPayJsonModule");
+        addDeserializer(Invoice.class, new InvoiceDeserializer());
+        addDeserializer(Invoice.PaidBtnUser.class, new PaidBtnUserDeserializer());
+        addDeserializer(Check.class, new CheckDeserializer());
+        addDeserializer(Transfer.class, new TransferDeserializer());
+        addDeserializer(Balance.class, new BalanceDeserializer());
+        addDeserializer(ExchangeRate.class, new ExchangeRateDeserializer());
+        addDeserializer(Asset.class, new AssetDeserializer());
+    }
+}
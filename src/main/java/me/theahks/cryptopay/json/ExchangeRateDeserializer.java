@@ -0,0 +1,54 @@
+package me.theahks.cryptopay.json;
+
+import me.theahks.cryptopay.model.ExchangeRate;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+
+import java.io.IOException;
+
+/**
+ * Потоковый десериализатор обменных курсов.
+ */
+class ExchangeRateDeserializer extends ModelDeserializer<ExchangeRate> {
+    private static final int SOURCE = 0;
+    private static final int TARGET = 1;
+    private static final int RATE = 2;
+    private static final int VALID = 3;
+    private static final int CRYPTO = 4;
+    private static final int FIAT = 5;
+
+    ExchangeRateDeserializer() {
+        super(ExchangeRate.class, "source", "target", "rate", "valid", "crypto", "fiat");
+    }
+
+    @Override
+    ExchangeRate create() {
+        return new ExchangeRate();
+    }
+
+    @Override
+    void readField(int index, ExchangeRate target, JsonParser p, DeserializationContext ctxt) throws IOException {
+        switch (index) {
+            case VALID:
+                target.setValid(readBoolean(p, ctxt));
+                break;
+            case CRYPTO:
+                target.setCrypto(readBoolean(p, ctxt));
+                break;
+            case FIAT:
+                target.setFiat(readBoolean(p, ctxt));
+                break;
+            case SOURCE:
+                target.setSource(readString(p, ctxt));
+                break;
+            case TARGET:
+                target.setTarget(readString(p, ctxt));
+                break;
+            case RATE:
+                target.setRate(readDecimal(p, ctxt));
+                break;
+            default:
+                break;
+        }
+    }
+}
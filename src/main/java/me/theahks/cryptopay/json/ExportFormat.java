@@ -0,0 +1,16 @@
+package me.theahks.cryptopay.json;
+
+/**
+ * Формат выгрузки записей.
+ */
+public enum ExportFormat {
+    /**
+     * CSV (RFC 4180) с заголовком; вложенные объекты и массивы записываются как JSON.
+     */
+    CSV,
+
+    /**
+     * Один JSON-объект записи на строку.
+     */
+    NDJSON
+}
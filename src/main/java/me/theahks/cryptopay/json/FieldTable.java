@@ -0,0 +1,40 @@
+package me.theahks.cryptopay.json;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Заранее построенная таблица имен полей модели.
+ * <p>
+ * Поля в ответах API обычно идут в порядке объявления, поэтому сначала проверяется ожидаемое
+ * следующее поле: Jackson интернирует имена полей, и сравнение обычно завершается на проверке
+ * ссылок. При другом порядке используется поиск по хеш-таблице.
+ */
+final class FieldTable {
+    private final String[] names;
+    private final Map<String, Integer> indexes;
+
+    FieldTable(String... names) {
+        this.names = new String[names.length];
+        this.indexes = new HashMap<>(names.length * 2);
+        for (int i = 0; i < names.length; i++) {
+            this.names[i] = names[i].intern();
+            indexes.put(this.names[i], i);
+        }
+    }
+
+    /**
+     * Находит индекс поля по имени.
+     *
+     * @param name имя поля из JSON
+     * @param expected ожидаемый индекс (обычно следующий за предыдущим полем)
+     * @return индекс поля или -1, если поле неизвестно
+     */
+    int indexOf(String name, int expected) {
+        if (expected < names.length && names[expected].equals(name)) {
+            return expected;
+        }
+        Integer index = indexes.get(name);
+        return index != null ? index : -1;
+    }
+}
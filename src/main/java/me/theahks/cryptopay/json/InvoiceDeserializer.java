@@ -0,0 +1,98 @@
+package me.theahks.cryptopay.json;
+
+import me.theahks.cryptopay.model.Invoice;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+
+import java.io.IOException;
+
+/**
+ * Потоковый десериализатор счетов.
+ */
+class InvoiceDeserializer extends ModelDeserializer<Invoice> {
+    static final int INVOICE_ID = 0;
+    static final int HASH = 1;
+    static final int ASSET = 2;
+    static final int AMOUNT = 3;
+    static final int FIAT_CURRENCY = 4;
+    static final int FIAT_AMOUNT = 5;
+    static final int DESCRIPTION = 6;
+    static final int BOT_INVOICE_URL = 7;
+    static final int PAY_URL = 8;
+    static final int STATUS = 9;
+    static final int CREATED_AT = 10;
+    static final int EXPIRATION_DATE = 11;
+    static final int PAID_AT = 12;
+    static final int PAID_BTN_USER = 13;
+    static final int ALLOWED_PAYMENT_METHODS = 14;
+
+    static final String[] FIELD_NAMES = {
+            "invoiceId", "hash", "asset", "amount", "fiatCurrency", "fiatAmount", "description", "botInvoiceUrl",
+            "payUrl", "status", "createdAt", "expirationDate", "paidAt", "paidBtnUser", "allowedPaymentMethods"};
+
+    private final PaidBtnUserDeserializer paidBtnUserDeserializer = new PaidBtnUserDeserializer();
+
+    InvoiceDeserializer() {
+        super(Invoice.class, FIELD_NAMES);
+    }
+
+    @Override
+    Invoice create() {
+        return new Invoice();
+    }
+
+    @Override
+    void readField(int index, Invoice target, JsonParser p, DeserializationContext ctxt) throws IOException {
+        switch (index) {
+            case INVOICE_ID:
+                target.setInvoiceId(readLong(p, ctxt));
+                break;
+            case HASH:
+                target.setHash(readString(p, ctxt));
+                break;
+            case ASSET:
+                target.setAsset(readString(p, ctxt));
+                break;
+            case AMOUNT:
+                target.setAmount(readDecimal(p, ctxt));
+                break;
+            case FIAT_CURRENCY:
+                target.setFiatCurrency(readString(p, ctxt));
+                break;
+            case FIAT_AMOUNT:
+                target.setFiatAmount(readDecimal(p, ctxt));
+                break;
+            case DESCRIPTION:
+                target.setDescription(readString(p, ctxt));
+                break;
+            case BOT_INVOICE_URL:
+                target.setBotInvoiceUrl(readString(p, ctxt));
+                break;
+            case PAY_URL:
+                target.setPayUrl(readString(p, ctxt));
+                break;
+            case STATUS:
+                target.setStatus(readString(p, ctxt));
+                break;
+            case CREATED_AT:
+                target.setCreatedAt(readDateTime(p, ctxt));
+                break;
+            case EXPIRATION_DATE:
+                target.setExpirationDate(readDateTime(p, ctxt));
+                break;
+            case PAID_AT:
+                target.setPaidAt(readDateTime(p, ctxt));
+                break;
+            case PAID_BTN_USER:
+                target.setPaidBtnUser(p.currentToken() == JsonToken.VALUE_NULL
+                        ? null : paidBtnUserDeserializer.deserialize(p, ctxt));
+                break;
+            case ALLOWED_PAYMENT_METHODS:
+                target.setAllowedPaymentMethods(readStringList(p, ctxt));
+                break;
+            default:
+                break;
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package me.theahks.cryptopay.json;
+
+import me.theahks.cryptopay.model.ApiResponse;
+import me.theahks.cryptopay.model.Invoice;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static me.theahks.cryptopay.json.InvoiceDeserializer.*;
+
+/**
+ * Ленивое представление счета поверх фрагмента исходного ответа API.
+ * <p>
+ * Хранит ссылку на байты ответа и границы объекта счета. При первом обращении к любому полю
+ * строится таблица границ значений (без разбора самих значений), а каждое поле декодируется
+ * только при вызове его геттера. Результаты не кэшируются: при повторном обращении поле
+ * декодируется заново. Полный объект можно получить через {@link #toInvoice()}.
+ * <p>
+ * Экземпляр удерживает весь буфер ответа, поэтому для долгого хранения следует использовать {@link Invoice}.
+ */
+public final class LazyInvoice {
+    private static final FieldTable FIELDS = new FieldTable(FIELD_NAMES);
+
+    private final Readers readers;
+    private final byte[] buffer;
+    private final int offset;
+    private final int length;
+    /**
+     * Начала и концы значений полей относительно начала объекта: [начало0, конец0, начало1, ...].
+     */
+    private volatile int[] valueOffsets;
+
+    private LazyInvoice(Readers readers, byte[] buffer, int offset, int length) {
+        this.readers = readers;
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Разбирает ответ со списком счетов, выделяя границы каждого счета без декодирования полей.
+     *
+     * @param objectMapper ObjectMapper клиента (используется для декодирования полей)
+     * @param body тело ответа API
+     * @return ответ API со списком ленивых счетов
+     * @throws IOException если тело ответа не является корректным JSON
+     */
+    public static ApiResponse<List<LazyInvoice>> parsePage(ObjectMapper objectMapper, byte[] body) throws IOException {
+        Readers readers = new Readers(objectMapper);
+        ApiResponse<List<LazyInvoice>> response = new ApiResponse<>();
+        try (JsonParser p = objectMapper.getFactory().createParser(body)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Ожидался объект ответа API");
+            }
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String name = p.currentName();
+                JsonToken token = p.nextToken();
+                switch (name) {
+                    case "ok":
+                        response.setOk(token == JsonToken.VALUE_TRUE);
+                        break;
+                    case "errorCode":
+                        response.setErrorCode(token == JsonToken.VALUE_NULL ? null : p.getValueAsInt());
+                        break;
+                    case "description":
+                        response.setDescription(token == JsonToken.VALUE_NULL ? null : p.getValueAsString());
+                        break;
+                    case "result":
+                        response.setResult(token == JsonToken.START_ARRAY ? slices(readers, body, p) : null);
+                        break;
+                    default:
+                        p.skipChildren();
+                        break;
+                }
+            }
+        }
+        return response;
+    }
+
+    private static List<LazyInvoice> slices(Readers readers, byte[] body, JsonParser p) throws IOException {
+        List<LazyInvoice> invoices = new ArrayList<>();
+        while (p.nextToken() == JsonToken.START_OBJECT) {
+            int start = (int) p.getTokenLocation().getByteOffset();
+            p.skipChildren();
+            int end = (int) p.currentLocation().getByteOffset();
+            invoices.add(new LazyInvoice(readers, body, start, end - start));
+        }
+        if (p.currentToken() != JsonToken.END_ARRAY) {
+            throw new IOException("Ожидался массив объектов счетов");
+        }
+        return invoices;
+    }
+
+    /**
+     * Декодирует идентификатор счета.
+     *
+     * @return значение поля или null, если его нет
+     */
+    public Long getInvoiceId() {
+        JsonParser p = valueParser(INVOICE_ID);
+        try (p) {
+            if (p == null || p.currentToken() == JsonToken.VALUE_NULL) {
+                return null;
+            }
+            if (p.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+                return p.getLongValue();
+            }
+            return readers.longReader.readValue(p);
+        } catch (IOException e) {
+            throw failure("invoiceId", e);
+        }
+    }
+
+    /**
+     * Декодирует хеш счета.
+     *
+     * @return значение поля или null, если его нет
+     */
+    public String getHash() {
+        return readString(HASH);
+    }
+
+    /**
+     * Декодирует код криптовалюты.
+     *
+     * @return значение поля или null, если его нет
+     */
+    public String getAsset() {
+        return readString(ASSET);
+    }
+
+    /**
+     * Декодирует сумму счета.
+     *
+     * @return значение поля или null, если его нет
+     */
+    public BigDecimal getAmount() {
+        return readDecimal(AMOUNT);
+    }
+
+    /**
+     * Декодирует валюту фиатных денег.
+     *
+     * @return значение поля или null, если его нет
+     */
+    public String getFiatCurrency() {
+        return readString(FIAT_CURRENCY);
+    }
+
+    /**
+     * Декодирует сумму в фиатной валюте.
+     *
+     * @return значение поля или null, если его нет
+     */
+    public BigDecimal getFiatAmount() {
+        return readDecimal(FIAT_AMOUNT);
+    }
+
+    /**
+     * Декодирует описание счета.
+     *
+     * @return значение поля или null, если его нет
+     */
+    public String getDescription() {
+        return readString(DESCRIPTION);
+    }
+
+    /**
+     * Декодирует ссылку на счет в боте.
+     *
+     * @return значение поля или null, если его нет
+     */
+    public String getBotInvoiceUrl() {
+        return readString(BOT_INVOICE_URL);
+    }
+
+    /**
+     * Декодирует ссылку на оплату.
+     *
+     * @return значение поля или null, если его нет
+     */
+    public String getPayUrl() {
+        return readString(PAY_URL);
+    }
+
+    /**
+     * Декодирует статус счета.
+     *
+     * @return значение поля или null, если его нет
+     */
+    public String getStatus() {
+        return readString(STATUS);
+    }
+
+    /**
+     * Декодирует дату создания счета.
+     *
+     * @return значение поля или null, если его нет
+     */
+    public LocalDateTime getCreatedAt() {
+        return read(CREATED_AT, readers.dateTimeReader);
+    }
+
+    /**
+     * Декодирует дату окончания срока действия счета.
+     *
+     * @return значение поля или null, если его нет
+     */
+    public LocalDateTime getExpirationDate() {
+        return read(EXPIRATION_DATE, readers.dateTimeReader);
+    }
+
+    /**
+     * Декодирует дату оплаты счета.
+     *
+     * @return значение поля или null, если его нет
+     */
+    public LocalDateTime getPaidAt() {
+        return read(PAID_AT, readers.dateTimeReader);
+    }
+
+    /**
+     * Декодирует пользователя, оплатившего счет.
+     *
+     * @return значение поля или null, если его нет
+     */
+    public Invoice.PaidBtnUser getPaidBtnUser() {
+        return read(PAID_BTN_USER, readers.paidBtnUserReader);
+    }
+
+    /**
+     * Декодирует доступные методы оплаты.
+     *
+     * @return значение поля или null, если его нет
+     */
+    public List<String> getAllowedPaymentMethods() {
+        return read(ALLOWED_PAYMENT_METHODS, readers.stringListReader);
+    }
+
+    /**
+     * Полностью декодирует счет.
+     *
+     * @return счет
+     */
+    public Invoice toInvoice() {
+        try {
+            return readers.invoiceReader.readValue(buffer, offset, length);
+        } catch (IOException e) {
+            throw failure("invoice", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LazyInvoice{invoiceId=" + getInvoiceId() + ", status=" + getStatus() + "}";
+    }
+
+    private String readString(int field) {
+        JsonParser p = valueParser(field);
+        try (p) {
+            if (p == null || p.currentToken() == JsonToken.VALUE_NULL) {
+                return null;
+            }
+            if (p.currentToken() == JsonToken.VALUE_STRING) {
+                return p.getText();
+            }
+            return readers.stringReader.readValue(p);
+        } catch (IOException e) {
+            throw failure(FIELD_NAMES[field], e);
+        }
+    }
+
+    private BigDecimal readDecimal(int field) {
+        JsonParser p = valueParser(field);
+        try (p) {
+            if (p == null || p.currentToken() == JsonToken.VALUE_NULL) {
+                return null;
+            }
+            if (p.currentToken().isNumeric()) {
+                return p.getDecimalValue();
+            }
+            return readers.decimalReader.readValue(p);
+        } catch (IOException e) {
+            throw failure(FIELD_NAMES[field], e);
+        }
+    }
+
+    private <T> T read(int field, ObjectReader reader) {
+        JsonParser p = valueParser(field);
+        try (p) {
+            if (p == null || p.currentToken() == JsonToken.VALUE_NULL) {
+                return null;
+            }
+            return reader.readValue(p);
+        } catch (IOException e) {
+            throw failure(FIELD_NAMES[field], e);
+        }
+    }
+
+    /**
+     * Создает парсер, стоящий на первом токене значения поля.
+     *
+     * @return парсер или null, если поля нет в объекте
+     */
+    private JsonParser valueParser(int field) {
+        int[] offsets = offsets();
+        int valueStart = offsets[field * 2];
+        if (valueStart < 0) {
+            return null;
+        }
+        try {
+            JsonParser p = readers.objectMapper.getFactory()
+                    .createParser(buffer, offset + valueStart, offsets[field * 2 + 1] - valueStart);
+            p.nextToken();
+            return p;
+        } catch (IOException e) {
+            throw failure(FIELD_NAMES[field], e);
+        }
+    }
+
+    private int[] offsets() {
+        int[] result = valueOffsets;
+        if (result != null) {
+            return result;
+        }
+        result = new int[FIELD_NAMES.length * 2];
+        Arrays.fill(result, -1);
+        try (JsonParser p = readers.objectMapper.getFactory().createParser(buffer, offset, length)) {
+            p.nextToken();
+            int expected = 0;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                int index = FIELDS.indexOf(p.currentName(), expected);
+                JsonToken token = p.nextToken();
+                if (index >= 0) {
+                    // Число на верхнем уровне должно заканчиваться границей фрагмента; для остальных
+                    // значений достаточно конца объекта, так как лишние токены после них не читаются
+                    result[index * 2] = (int) p.getTokenLocation().getByteOffset();
+                    result[index * 2 + 1] = token.isNumeric() ? (int) p.currentLocation().getByteOffset() : length;
+                    expected = index + 1;
+                }
+                p.skipChildren();
+            }
+        } catch (IOException e) {
+            throw failure("invoice", e);
+        }
+        valueOffsets = result;
+        return result;
+    }
+
+    private static UncheckedIOException failure(String field, IOException cause) {
+        return new UncheckedIOException("Не удалось декодировать поле счета " + field, cause);
+    }
+
+    /**
+     * Читатели полей, общие для всех счетов одного ответа.
+     */
+    private static final class Readers {
+        private final ObjectMapper objectMapper;
+        private final ObjectReader longReader;
+        private final ObjectReader stringReader;
+        private final ObjectReader decimalReader;
+        private final ObjectReader dateTimeReader;
+        private final ObjectReader paidBtnUserReader;
+        private final ObjectReader stringListReader;
+        private final ObjectReader invoiceReader;
+
+        private Readers(ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+            this.longReader = objectMapper.readerFor(Long.class);
+            this.stringReader = objectMapper.readerFor(String.class);
+            this.decimalReader = objectMapper.readerFor(BigDecimal.class);
+            this.dateTimeReader = objectMapper.readerFor(LocalDateTime.class);
+            this.paidBtnUserReader = objectMapper.readerFor(Invoice.PaidBtnUser.class);
+            this.stringListReader = objectMapper.readerFor(new TypeReference<List<String>>() {});
+            this.invoiceReader = objectMapper.readerFor(Invoice.class);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package me.theahks.cryptopay.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.deser.ResolvableDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Базовый потоковый десериализатор модели: читает объект токен за токеном без рефлексии.
+ * <p>
+ * Имена полей совпадают с теми, что использует databind для моделей Lombok (camelCase,
+ * для полей {@code boolean isX} — {@code x}). Преобразования скалярных значений повторяют
+ * поведение databind по умолчанию, а даты читаются десериализатором {@link LocalDateTime},
+ * зарегистрированным в ObjectMapper.
+ *
+ * @param <T> тип модели
+ */
+abstract class ModelDeserializer<T> extends StdDeserializer<T> implements ResolvableDeserializer {
+    private final FieldTable fields;
+    private JsonDeserializer<Object> dateTimeDeserializer;
+
+    /**
+     * @param type класс модели
+     * @param fieldNames имена полей в порядке объявления; индексы передаются в {@link #readField}
+     */
+    ModelDeserializer(Class<T> type, String... fieldNames) {
+        super(type);
+        this.fields = new FieldTable(fieldNames);
+    }
+
+    /**
+     * Создает пустой экземпляр модели.
+     *
+     * @return экземпляр модели
+     */
+    abstract T create();
+
+    /**
+     * Читает значение поля; парсер стоит на первом токене значения.
+     *
+     * @param index индекс поля в таблице
+     * @param target заполняемая модель
+     * @param p парсер
+     * @param ctxt контекст десериализации
+     * @throws IOException если значение не удалось прочитать
+     */
+    abstract void readField(int index, T target, JsonParser p, DeserializationContext ctxt) throws IOException;
+
+    @Override
+    public void resolve(DeserializationContext ctxt) throws JsonMappingException {
+        dateTimeDeserializer = ctxt.findRootValueDeserializer(ctxt.constructType(LocalDateTime.class));
+    }
+
+    @Override
+    public boolean isCachable() {
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = p.nextToken();
+        } else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+            return (T) ctxt.handleUnexpectedToken(handledType(), p);
+        }
+
+        T target = create();
+        int expected = 0;
+        for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            String name = p.currentName();
+            p.nextToken();
+            int index = fields.indexOf(name, expected);
+            if (index < 0) {
+                ctxt.handleUnknownProperty(p, this, target, name);
+            } else {
+                readField(index, target, p, ctxt);
+                expected = index + 1;
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Читает дату и время тем же десериализатором, что использует databind.
+     */
+    LocalDateTime readDateTime(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        return (LocalDateTime) dateTimeDeserializer.deserialize(p, ctxt);
+    }
+
+    static String readString(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.VALUE_STRING) {
+            return p.getText();
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token.isScalarValue()) {
+            return p.getText();
+        }
+        return (String) ctxt.handleUnexpectedToken(String.class, p);
+    }
+
+    static Long readLong(JsonParser p, DeserializationContext ctxt) throws IOException {
+        switch (p.currentToken()) {
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return p.getLongValue();
+            case VALUE_NULL:
+                return null;
+            case VALUE_STRING:
+                String text = p.getText().trim();
+                if (text.isEmpty()) {
+                    return null;
+                }
+                try {
+                    return Long.valueOf(text);
+                } catch (NumberFormatException e) {
+                    return (Long) ctxt.handleWeirdStringValue(Long.class, text, "not a valid `java.lang.Long` value");
+                }
+            default:
+                return (Long) ctxt.handleUnexpectedToken(Long.class, p);
+        }
+    }
+
+    static BigDecimal readDecimal(JsonParser p, DeserializationContext ctxt) throws IOException {
+        switch (p.currentToken()) {
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return p.getDecimalValue();
+            case VALUE_NULL:
+                return null;
+            case VALUE_STRING:
+                String text = p.getText().trim();
+                if (text.isEmpty()) {
+                    return null;
+                }
+                try {
+                    return new BigDecimal(text);
+                } catch (NumberFormatException e) {
+                    return (BigDecimal) ctxt.handleWeirdStringValue(BigDecimal.class, text,
+                            "not a valid representation");
+                }
+            default:
+                return (BigDecimal) ctxt.handleUnexpectedToken(BigDecimal.class, p);
+        }
+    }
+
+    static boolean readBoolean(JsonParser p, DeserializationContext ctxt) throws IOException {
+        switch (p.currentToken()) {
+            case VALUE_TRUE:
+                return true;
+            case VALUE_FALSE:
+            case VALUE_NULL:
+                return false;
+            case VALUE_NUMBER_INT:
+                return p.getIntValue() != 0;
+            case VALUE_STRING:
+                String text = p.getText().trim();
+                if ("true".equalsIgnoreCase(text)) {
+                    return true;
+                }
+                if ("false".equalsIgnoreCase(text) || text.isEmpty()) {
+                    return false;
+                }
+                return (Boolean) ctxt.handleWeirdStringValue(Boolean.TYPE, text,
+                        "only \"true\" or \"false\" recognized");
+            default:
+                return (Boolean) ctxt.handleUnexpectedToken(Boolean.TYPE, p);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<String> readStringList(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token != JsonToken.START_ARRAY) {
+            return (List<String>) ctxt.handleUnexpectedToken(List.class, p);
+        }
+        List<String> values = new ArrayList<>();
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            values.add(readString(p, ctxt));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,50 @@
+package me.theahks.cryptopay.json;
+
+import me.theahks.cryptopay.model.Invoice;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+
+import java.io.IOException;
+
+/**
+ * Потоковый десериализатор пользователей, оплативших счет.
+ */
+class PaidBtnUserDeserializer extends ModelDeserializer<Invoice.PaidBtnUser> {
+    private static final int USER_ID = 0;
+    private static final int FIRST_NAME = 1;
+    private static final int LAST_NAME = 2;
+    private static final int USERNAME = 3;
+    private static final int PHOTO_URL = 4;
+
+    PaidBtnUserDeserializer() {
+        super(Invoice.PaidBtnUser.class, "userId", "firstName", "lastName", "username", "photoUrl");
+    }
+
+    @Override
+    Invoice.PaidBtnUser create() {
+        return new Invoice.PaidBtnUser();
+    }
+
+    @Override
+    void readField(int index, Invoice.PaidBtnUser target, JsonParser p, DeserializationContext ctxt) throws IOException {
+        switch (index) {
+            case USER_ID:
+                target.setUserId(readLong(p, ctxt));
+                break;
+            case FIRST_NAME:
+                target.setFirstName(readString(p, ctxt));
+                break;
+            case LAST_NAME:
+                target.setLastName(readString(p, ctxt));
+                break;
+            case USERNAME:
+                target.setUsername(readString(p, ctxt));
+                break;
+            case PHOTO_URL:
+                target.setPhotoUrl(readString(p, ctxt));
+                break;
+            default:
+                break;
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package me.theahks.cryptopay.json;
+
+import me.theahks.cryptopay.model.ApiResponse;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Потоковая выгрузка страниц списков API в CSV или NDJSON.
+ * <p>
+ * Записи переносятся из парсера в вывод без построения моделей: в NDJSON объект записи копируется
+ * байтами исходного ответа, в CSV значения полей берутся из токенов парсера. Вывод идет через буфер
+ * фиксированного размера в {@link WritableByteChannel}, поэтому расход памяти не зависит от объема истории.
+ * <p>
+ * Списки упорядочены по убыванию идентификатора; записи с идентификатором не меньше уже выгруженного
+ * пропускаются, чтобы повторы на стыке страниц (из-за новых записей во время выгрузки) не попадали в вывод.
+ * Экземпляр не потокобезопасен и не закрывает канал.
+ */
+public final class RecordExporter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int ID_COLUMN = 0;
+    private static final byte[] NEWLINE = {'\n'};
+
+    private final JsonFactory jsonFactory;
+    private final ExportFormat format;
+    private final String[] columns;
+    private final FieldTable fields;
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final String[] values;
+    private final StringBuilder line = new StringBuilder(256);
+    private final StringWriter compact = new StringWriter(256);
+    private boolean started;
+    private long lastId = Long.MAX_VALUE;
+    private long written;
+
+    private RecordExporter(JsonFactory jsonFactory, ExportFormat format, String[] columns,
+                           WritableByteChannel channel) {
+        this.jsonFactory = jsonFactory;
+        this.format = format;
+        this.columns = columns;
+        this.fields = new FieldTable(columns);
+        this.channel = channel;
+        this.values = new String[columns.length];
+    }
+
+    /**
+     * Создает выгрузку счетов.
+     *
+     * @param jsonFactory фабрика парсеров (например, из ObjectMapper клиента)
+     * @param format формат вывода
+     * @param channel канал вывода
+     * @return выгрузка
+     */
+    public static RecordExporter forInvoices(JsonFactory jsonFactory, ExportFormat format, WritableByteChannel channel) {
+        return new RecordExporter(jsonFactory, format, InvoiceDeserializer.FIELD_NAMES, channel);
+    }
+
+    /**
+     * Создает выгрузку чеков.
+     *
+     * @param jsonFactory фабрика парсеров (например, из ObjectMapper клиента)
+     * @param format формат вывода
+     * @param channel канал вывода
+     * @return выгрузка
+     */
+    public static RecordExporter forChecks(JsonFactory jsonFactory, ExportFormat format, WritableByteChannel channel) {
+        return new RecordExporter(jsonFactory, format, CheckDeserializer.FIELD_NAMES, channel);
+    }
+
+    /**
+     * Создает выгрузку переводов.
+     *
+     * @param jsonFactory фабрика парсеров (например, из ObjectMapper клиента)
+     * @param format формат вывода
+     * @param channel канал вывода
+     * @return выгрузка
+     */
+    public static RecordExporter forTransfers(JsonFactory jsonFactory, ExportFormat format, WritableByteChannel channel) {
+        return new RecordExporter(jsonFactory, format, TransferDeserializer.FIELD_NAMES, channel);
+    }
+
+    /**
+     * Выгружает записи страницы списка.
+     *
+     * @param body тело ответа API
+     * @return ответ API, результат которого — количество записей на странице (включая пропущенные повторы)
+     * @throws IOException если тело ответа не является корректным JSON или запись в канал не удалась
+     */
+    public ApiResponse<Integer> writePage(byte[] body) throws IOException {
+        start();
+        ApiResponse<Integer> response = new ApiResponse<>();
+        try (JsonParser p = jsonFactory.createParser(body)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Ожидался объект ответа API");
+            }
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String name = p.currentName();
+                JsonToken token = p.nextToken();
+                switch (name) {
+                    case "ok":
+                        response.setOk(token == JsonToken.VALUE_TRUE);
+                        break;
+                    case "errorCode":
+                        response.setErrorCode(token == JsonToken.VALUE_NULL ? null : p.getValueAsInt());
+                        break;
+                    case "description":
+                        response.setDescription(token == JsonToken.VALUE_NULL ? null : p.getValueAsString());
+                        break;
+                    case "result":
+                        response.setResult(token == JsonToken.START_ARRAY ? writeRecords(body, p) : null);
+                        break;
+                    default:
+                        p.skipChildren();
+                        break;
+                }
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Записывает заголовок CSV, если он еще не записан, и сбрасывает буфер в канал.
+     *
+     * @throws IOException если запись в канал не удалась
+     */
+    public void flush() throws IOException {
+        start();
+        drain();
+    }
+
+    /**
+     * Возвращает количество выгруженных записей.
+     *
+     * @return количество записей
+     */
+    public long getWrittenCount() {
+        return written;
+    }
+
+    private int writeRecords(byte[] body, JsonParser p) throws IOException {
+        int count = 0;
+        while (p.nextToken() == JsonToken.START_OBJECT) {
+            int start = (int) p.getTokenLocation().getByteOffset();
+            Arrays.fill(values, null);
+            long id = Long.MIN_VALUE;
+            boolean hasLineBreaks = false;
+            int expected = 0;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                int index = fields.indexOf(p.currentName(), expected);
+                JsonToken token = p.nextToken();
+                if (index < 0) {
+                    p.skipChildren();
+                    continue;
+                }
+                expected = index + 1;
+                if (index == ID_COLUMN && token == JsonToken.VALUE_NUMBER_INT) {
+                    id = p.getLongValue();
+                }
+                if (format == ExportFormat.CSV) {
+                    values[index] = text(body, p, token);
+                } else {
+                    p.skipChildren();
+                }
+            }
+            int end = (int) p.currentLocation().getByteOffset();
+            count++;
+
+            if (id != Long.MIN_VALUE) {
+                if (id >= lastId) {
+                    continue;
+                }
+                lastId = id;
+            }
+            if (format == ExportFormat.CSV) {
+                writeCsvLine(values);
+            } else {
+                for (int i = start; i < end && !hasLineBreaks; i++) {
+                    hasLineBreaks = body[i] == '\n' || body[i] == '\r';
+                }
+                if (hasLineBreaks) {
+                    writeCompact(body, start, end - start);
+                } else {
+                    writeBytes(body, start, end - start);
+                }
+                writeBytes(NEWLINE, 0, 1);
+            }
+            written++;
+        }
+        if (p.currentToken() != JsonToken.END_ARRAY) {
+            throw new IOException("Ожидался массив объектов");
+        }
+        return count;
+    }
+
+    private static String text(byte[] body, JsonParser p, JsonToken token) throws IOException {
+        switch (token) {
+            case VALUE_NULL:
+                return null;
+            case START_OBJECT:
+            case START_ARRAY:
+                int start = (int) p.getTokenLocation().getByteOffset();
+                p.skipChildren();
+                return new String(body, start, (int) p.currentLocation().getByteOffset() - start, StandardCharsets.UTF_8);
+            default:
+                // Числа записываются исходным текстом без преобразования в BigDecimal
+                return p.getText();
+        }
+    }
+
+    private void start() throws IOException {
+        if (started) {
+            return;
+        }
+        started = true;
+        if (format == ExportFormat.CSV) {
+            writeCsvLine(columns);
+        }
+    }
+
+    private void writeCsvLine(String[] row) throws IOException {
+        line.setLength(0);
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            String value = row[i];
+            if (value == null) {
+                continue;
+            }
+            if (needsQuoting(value)) {
+                line.append('"');
+                for (int j = 0; j < value.length(); j++) {
+                    char c = value.charAt(j);
+                    if (c == '"') {
+                        line.append('"');
+                    }
+                    line.append(c);
+                }
+                line.append('"');
+            } else {
+                line.append(value);
+            }
+        }
+        line.append("\r\n");
+        writeChars(line);
+    }
+
+    private static boolean needsQuoting(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Переписывает объект без переводов строк (для ответов с форматированием).
+     */
+    private void writeCompact(byte[] body, int offset, int length) throws IOException {
+        compact.getBuffer().setLength(0);
+        try (JsonParser p = jsonFactory.createParser(body, offset, length);
+             JsonGenerator generator = jsonFactory.createGenerator(compact)) {
+            p.nextToken();
+            generator.copyCurrentStructure(p);
+        }
+        writeChars(compact.getBuffer());
+    }
+
+    private void writeChars(CharSequence text) throws IOException {
+        CharBuffer chars = CharBuffer.wrap(text);
+        encoder.reset();
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, true);
+            if (result.isOverflow()) {
+                drain();
+            } else if (result.isUnderflow()) {
+                break;
+            } else {
+                result.throwException();
+            }
+        }
+        while (encoder.flush(buffer).isOverflow()) {
+            drain();
+        }
+    }
+
+    private void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int chunk = Math.min(length, buffer.remaining());
+            buffer.put(bytes, offset, chunk);
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
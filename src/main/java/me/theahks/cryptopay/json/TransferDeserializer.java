@@ -0,0 +1,61 @@
+package me.theahks.cryptopay.json;
+
+import me.theahks.cryptopay.model.Transfer;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+
+import java.io.IOException;
+
+/**
+ * Потоковый десериализатор переводов.
+ */
+class TransferDeserializer extends ModelDeserializer<Transfer> {
+    private static final int TRANSFER_ID = 0;
+    private static final int USER_ID = 1;
+    private static final int ASSET = 2;
+    private static final int AMOUNT = 3;
+    private static final int STATUS = 4;
+    private static final int COMPLETED_AT = 5;
+    private static final int COMMENT = 6;
+
+    static final String[] FIELD_NAMES = {
+            "transferId", "userId", "asset", "amount", "status", "completedAt", "comment"};
+
+    TransferDeserializer() {
+        super(Transfer.class, FIELD_NAMES);
+    }
+
+    @Override
+    Transfer create() {
+        return new Transfer();
+    }
+
+    @Override
+    void readField(int index, Transfer target, JsonParser p, DeserializationContext ctxt) throws IOException {
+        switch (index) {
+            case TRANSFER_ID:
+                target.setTransferId(readLong(p, ctxt));
+                break;
+            case USER_ID:
+                target.setUserId(readLong(p, ctxt));
+                break;
+            case ASSET:
+                target.setAsset(readString(p, ctxt));
+                break;
+            case AMOUNT:
+                target.setAmount(readDecimal(p, ctxt));
+                break;
+            case STATUS:
+                target.setStatus(readString(p, ctxt));
+                break;
+            case COMPLETED_AT:
+                target.setCompletedAt(readDateTime(p, ctxt));
+                break;
+            case COMMENT:
+                target.setComment(readString(p, ctxt));
+                break;
+            default:
+                break;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package me.theahks.cryptopay.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Представляет описание ошибки в ответе API CryptoBot.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ApiError {
+    /**
+     * Код ошибки.
+     */
+    private Integer code;
+
+    /**
+     * Имя ошибки, например "NOT_ENOUGH_COINS".
+     */
+    private String name;
+}
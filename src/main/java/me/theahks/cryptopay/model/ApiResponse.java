@@ -34,6 +34,11 @@ public class ApiResponse<T> {
      */
     private String description;
     
+    /**
+     * Описание ошибки в формате API. Присутствует только если ok = false.
+     */
+    private ApiError error;
+    
     /**
      * Проверяет, является ли ответ успешным.
      * @return true, если ответ успешен, иначе false
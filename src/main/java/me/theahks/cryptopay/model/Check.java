@@ -12,7 +12,7 @@ import java.time.LocalDateTime;
  * Представляет информацию о чеке криптовалюты.
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class Check {
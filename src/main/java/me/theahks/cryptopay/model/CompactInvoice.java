@@ -0,0 +1,384 @@
+package me.theahks.cryptopay.model;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Компактное неизменяемое представление {@link Invoice} для хранения в кэшах.
+ * <p>
+ * Статус, коды валют и префиксы ссылок хранятся короткими кодами общей таблицы строк, методы оплаты —
+ * последовательностью 8-битных кодов в одном long, даты — секундами эпохи UTC и наносекундами,
+ * суммы — немасштабированным long и масштабом, прочие строки — в UTF-8. Значения, которые не укладываются в компактную форму, хранятся как есть,
+ * поэтому {@link #toInvoice()} всегда восстанавливает исходный счет без потерь.
+ */
+public final class CompactInvoice {
+    private static final int HAS_INVOICE_ID = 1;
+    private static final int HAS_AMOUNT = 1 << 1;
+    private static final int HAS_FIAT_AMOUNT = 1 << 2;
+    private static final int HAS_CREATED_AT = 1 << 3;
+    private static final int HAS_EXPIRATION_DATE = 1 << 4;
+    private static final int HAS_PAID_AT = 1 << 5;
+    private static final int HAS_PAID_BTN_USER = 1 << 6;
+    private static final int HAS_USER_ID = 1 << 7;
+    private static final int HAS_PAYMENT_METHODS = 1 << 8;
+    private static final int PAY_URL_SAME_AS_BOT_URL = 1 << 9;
+
+    // Индексы значений, хранящихся без сжатия
+    private static final int EXTRA_STATUS = 0;
+    private static final int EXTRA_ASSET = 1;
+    private static final int EXTRA_FIAT_CURRENCY = 2;
+    private static final int EXTRA_AMOUNT = 3;
+    private static final int EXTRA_FIAT_AMOUNT = 4;
+    private static final int EXTRA_BOT_URL_PREFIX = 5;
+    private static final int EXTRA_PAY_URL_PREFIX = 6;
+    private static final int EXTRA_PAYMENT_METHODS = 7;
+    private static final int EXTRA_COUNT = 8;
+
+    private static final byte SCALE_NOT_COMPACT = Byte.MIN_VALUE;
+    private static final int MAX_PACKED_METHODS = 7;
+    private static final int METHOD_COUNT_SHIFT = 56;
+    private static final byte UTF16_MARKER = (byte) 0xFF;
+
+    private final long invoiceId;
+    private final int flags;
+    private final short status;
+    private final short asset;
+    private final short fiatCurrency;
+    private final short botUrlPrefix;
+    private final short payUrlPrefix;
+    private final byte amountScale;
+    private final byte fiatAmountScale;
+    private final long amount;
+    private final long fiatAmount;
+    private final long createdAtSeconds;
+    private final long expirationDateSeconds;
+    private final long paidAtSeconds;
+    private final int createdAtNanos;
+    private final int expirationDateNanos;
+    private final int paidAtNanos;
+    private final long paymentMethods;
+    private final byte[] hash;
+    private final byte[] description;
+    private final byte[] botUrlSuffix;
+    private final byte[] payUrlSuffix;
+    private final long userId;
+    private final byte[] firstName;
+    private final byte[] lastName;
+    private final byte[] username;
+    private final byte[] photoUrl;
+    private final Object[] extras;
+
+    private CompactInvoice(Invoice invoice) {
+        Object[] extra = new Object[EXTRA_COUNT];
+        int f = 0;
+
+        if (invoice.getInvoiceId() != null) {
+            f |= HAS_INVOICE_ID;
+        }
+        invoiceId = invoice.getInvoiceId() != null ? invoice.getInvoiceId() : 0;
+        status = symbol(invoice.getStatus(), extra, EXTRA_STATUS);
+        asset = symbol(invoice.getAsset(), extra, EXTRA_ASSET);
+        fiatCurrency = symbol(invoice.getFiatCurrency(), extra, EXTRA_FIAT_CURRENCY);
+
+        if (invoice.getAmount() != null) {
+            f |= HAS_AMOUNT;
+        }
+        amountScale = scale(invoice.getAmount(), extra, EXTRA_AMOUNT);
+        amount = unscaled(invoice.getAmount(), amountScale);
+        if (invoice.getFiatAmount() != null) {
+            f |= HAS_FIAT_AMOUNT;
+        }
+        fiatAmountScale = scale(invoice.getFiatAmount(), extra, EXTRA_FIAT_AMOUNT);
+        fiatAmount = unscaled(invoice.getFiatAmount(), fiatAmountScale);
+
+        if (invoice.getCreatedAt() != null) {
+            f |= HAS_CREATED_AT;
+            createdAtSeconds = invoice.getCreatedAt().toEpochSecond(ZoneOffset.UTC);
+            createdAtNanos = invoice.getCreatedAt().getNano();
+        } else {
+            createdAtSeconds = 0;
+            createdAtNanos = 0;
+        }
+        if (invoice.getExpirationDate() != null) {
+            f |= HAS_EXPIRATION_DATE;
+            expirationDateSeconds = invoice.getExpirationDate().toEpochSecond(ZoneOffset.UTC);
+            expirationDateNanos = invoice.getExpirationDate().getNano();
+        } else {
+            expirationDateSeconds = 0;
+            expirationDateNanos = 0;
+        }
+        if (invoice.getPaidAt() != null) {
+            f |= HAS_PAID_AT;
+            paidAtSeconds = invoice.getPaidAt().toEpochSecond(ZoneOffset.UTC);
+            paidAtNanos = invoice.getPaidAt().getNano();
+        } else {
+            paidAtSeconds = 0;
+            paidAtNanos = 0;
+        }
+
+        hash = utf8(invoice.getHash());
+        description = utf8(invoice.getDescription());
+
+        String botUrl = invoice.getBotInvoiceUrl();
+        String payUrl = invoice.getPayUrl();
+        botUrlPrefix = symbol(urlPrefix(botUrl), extra, EXTRA_BOT_URL_PREFIX);
+        botUrlSuffix = utf8(urlSuffix(botUrl));
+        if (payUrl != null && payUrl.equals(botUrl)) {
+            f |= PAY_URL_SAME_AS_BOT_URL;
+            payUrlPrefix = SymbolTable.NULL;
+            payUrlSuffix = null;
+        } else {
+            payUrlPrefix = symbol(urlPrefix(payUrl), extra, EXTRA_PAY_URL_PREFIX);
+            payUrlSuffix = utf8(urlSuffix(payUrl));
+        }
+
+        Invoice.PaidBtnUser user = invoice.getPaidBtnUser();
+        if (user != null) {
+            f |= HAS_PAID_BTN_USER;
+            if (user.getUserId() != null) {
+                f |= HAS_USER_ID;
+            }
+            userId = user.getUserId() != null ? user.getUserId() : 0;
+            firstName = utf8(user.getFirstName());
+            lastName = utf8(user.getLastName());
+            username = utf8(user.getUsername());
+            photoUrl = utf8(user.getPhotoUrl());
+        } else {
+            userId = 0;
+            firstName = null;
+            lastName = null;
+            username = null;
+            photoUrl = null;
+        }
+
+        List<String> methods = invoice.getAllowedPaymentMethods();
+        if (methods != null) {
+            f |= HAS_PAYMENT_METHODS;
+        }
+        long packed = packMethods(methods);
+        if (methods != null && packed < 0) {
+            extra[EXTRA_PAYMENT_METHODS] = new ArrayList<>(methods);
+            packed = 0;
+        }
+        paymentMethods = packed;
+
+        flags = f;
+        extras = isEmpty(extra) ? null : extra;
+    }
+
+    /**
+     * Создает компактное представление счета.
+     *
+     * @param invoice счет
+     * @return компактное представление
+     */
+    public static CompactInvoice of(Invoice invoice) {
+        return new CompactInvoice(invoice);
+    }
+
+    /**
+     * Восстанавливает счет. Каждый вызов возвращает новый экземпляр.
+     *
+     * @return счет, равный исходному
+     */
+    public Invoice toInvoice() {
+        Invoice invoice = new Invoice();
+        invoice.setInvoiceId(has(HAS_INVOICE_ID) ? invoiceId : null);
+        invoice.setHash(string(hash));
+        invoice.setAsset(symbol(asset, EXTRA_ASSET));
+        invoice.setAmount(has(HAS_AMOUNT) ? decimal(amount, amountScale, EXTRA_AMOUNT) : null);
+        invoice.setFiatCurrency(symbol(fiatCurrency, EXTRA_FIAT_CURRENCY));
+        invoice.setFiatAmount(has(HAS_FIAT_AMOUNT) ? decimal(fiatAmount, fiatAmountScale, EXTRA_FIAT_AMOUNT) : null);
+        invoice.setDescription(string(description));
+        String botUrl = url(botUrlPrefix, EXTRA_BOT_URL_PREFIX, botUrlSuffix);
+        invoice.setBotInvoiceUrl(botUrl);
+        invoice.setPayUrl(has(PAY_URL_SAME_AS_BOT_URL) ? botUrl : url(payUrlPrefix, EXTRA_PAY_URL_PREFIX, payUrlSuffix));
+        invoice.setStatus(symbol(status, EXTRA_STATUS));
+        invoice.setCreatedAt(has(HAS_CREATED_AT) ? dateTime(createdAtSeconds, createdAtNanos) : null);
+        invoice.setExpirationDate(has(HAS_EXPIRATION_DATE)
+                ? dateTime(expirationDateSeconds, expirationDateNanos) : null);
+        invoice.setPaidAt(has(HAS_PAID_AT) ? dateTime(paidAtSeconds, paidAtNanos) : null);
+        if (has(HAS_PAID_BTN_USER)) {
+            invoice.setPaidBtnUser(new Invoice.PaidBtnUser(has(HAS_USER_ID) ? userId : null,
+                    string(firstName), string(lastName), string(username), string(photoUrl)));
+        }
+        if (has(HAS_PAYMENT_METHODS)) {
+            invoice.setAllowedPaymentMethods(paymentMethods());
+        }
+        return invoice;
+    }
+
+    /**
+     * Получает идентификатор счета без восстановления всего объекта.
+     *
+     * @return идентификатор счета или null
+     */
+    public Long getInvoiceId() {
+        return has(HAS_INVOICE_ID) ? invoiceId : null;
+    }
+
+    /**
+     * Получает статус счета без восстановления всего объекта.
+     *
+     * @return статус счета
+     */
+    public String getStatus() {
+        return symbol(status, EXTRA_STATUS);
+    }
+
+    private boolean has(int flag) {
+        return (flags & flag) != 0;
+    }
+
+    private String symbol(short code, int extra) {
+        return code == SymbolTable.NOT_CODED ? (String) extras[extra] : SymbolTable.decode(code);
+    }
+
+    private BigDecimal decimal(long unscaled, byte scale, int extra) {
+        return scale == SCALE_NOT_COMPACT ? (BigDecimal) extras[extra] : BigDecimal.valueOf(unscaled, scale);
+    }
+
+    private String url(short prefix, int extra, byte[] suffix) {
+        if (prefix == SymbolTable.NULL) {
+            return null;
+        }
+        return symbol(prefix, extra) + string(suffix);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> paymentMethods() {
+        if (extras != null && extras[EXTRA_PAYMENT_METHODS] != null) {
+            return new ArrayList<>((List<String>) extras[EXTRA_PAYMENT_METHODS]);
+        }
+        int count = (int) (paymentMethods >>> METHOD_COUNT_SHIFT);
+        List<String> methods = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            methods.add(SymbolTable.decode((short) ((paymentMethods >>> (i * Byte.SIZE)) & 0xFF)));
+        }
+        return methods;
+    }
+
+    private static short symbol(String value, Object[] extra, int index) {
+        short code = SymbolTable.encode(value);
+        if (code == SymbolTable.NOT_CODED) {
+            extra[index] = value;
+        }
+        return code;
+    }
+
+    private static byte scale(BigDecimal value, Object[] extra, int index) {
+        if (value == null) {
+            return 0;
+        }
+        if (value.scale() > Byte.MAX_VALUE || value.scale() <= SCALE_NOT_COMPACT
+                || value.unscaledValue().bitLength() > 63) {
+            extra[index] = value;
+            return SCALE_NOT_COMPACT;
+        }
+        return (byte) value.scale();
+    }
+
+    private static long unscaled(BigDecimal value, byte scale) {
+        return value != null && scale != SCALE_NOT_COMPACT ? value.unscaledValue().longValueExact() : 0;
+    }
+
+    /**
+     * Упаковывает методы оплаты в long: до 7 кодов таблицы строк по 8 бит с сохранением порядка
+     * и количество в старшем байте. Битовая маска здесь не подходит, так как теряет порядок списка.
+     *
+     * @return упакованные коды или -1, если список нужно хранить как есть
+     */
+    private static long packMethods(List<String> methods) {
+        if (methods == null) {
+            return 0;
+        }
+        if (methods.size() > MAX_PACKED_METHODS) {
+            return -1;
+        }
+        long packed = (long) methods.size() << METHOD_COUNT_SHIFT;
+        for (int i = 0; i < methods.size(); i++) {
+            short code = SymbolTable.encode(methods.get(i));
+            if (code < 0 || code > 0xFF) {
+                return -1;
+            }
+            packed |= (long) code << (i * Byte.SIZE);
+        }
+        return packed;
+    }
+
+    private static String urlPrefix(String url) {
+        if (url == null) {
+            return null;
+        }
+        return url.substring(0, url.lastIndexOf('=') + 1);
+    }
+
+    private static String urlSuffix(String url) {
+        if (url == null) {
+            return null;
+        }
+        return url.substring(url.lastIndexOf('=') + 1);
+    }
+
+    /**
+     * Кодирует строку в UTF-8. Строки, которые UTF-8 не передает без потерь (одиночные суррогаты),
+     * сохраняются посимвольно в UTF-16 после байта-маркера, не встречающегося в UTF-8.
+     */
+    private static byte[] utf8(String value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        // Совпадение длин не доказывает ASCII: одиночный суррогат кодируется одним байтом '?'
+        if (isAscii(value) || new String(bytes, StandardCharsets.UTF_8).equals(value)) {
+            return bytes;
+        }
+        byte[] chars = new byte[1 + value.length() * 2];
+        chars[0] = UTF16_MARKER;
+        for (int i = 0; i < value.length(); i++) {
+            chars[1 + i * 2] = (byte) (value.charAt(i) >>> 8);
+            chars[2 + i * 2] = (byte) value.charAt(i);
+        }
+        return chars;
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String string(byte[] value) {
+        if (value == null) {
+            return null;
+        }
+        if (value.length > 0 && value[0] == UTF16_MARKER) {
+            char[] chars = new char[(value.length - 1) / 2];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = (char) (((value[1 + i * 2] & 0xFF) << 8) | (value[2 + i * 2] & 0xFF));
+            }
+            return new String(chars);
+        }
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static LocalDateTime dateTime(long seconds, int nanos) {
+        return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    private static boolean isEmpty(Object[] values) {
+        for (Object value : values) {
+            if (value != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
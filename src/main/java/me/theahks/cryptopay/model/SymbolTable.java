@@ -0,0 +1,87 @@
+package me.theahks.cryptopay.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Общая таблица часто повторяющихся строк (статусов, кодов валют, префиксов ссылок) для компактного хранения.
+ * Каждой строке присваивается постоянный короткий код. Таблица только растет и ограничена по размеру:
+ * строки сверх лимита не кодируются.
+ */
+final class SymbolTable {
+    /**
+     * Код отсутствующего значения.
+     */
+    static final short NULL = -1;
+
+    /**
+     * Код строки, не поместившейся в таблицу.
+     */
+    static final short NOT_CODED = -2;
+
+    private static final int MAX_SIZE = 4096;
+
+    private static final Map<String, Short> CODES = new ConcurrentHashMap<>();
+    private static volatile String[] symbols = new String[0];
+
+    static {
+        for (String status : new String[]{"active", "paid", "expired", "activated", "completed"}) {
+            encode(status);
+        }
+        // Коды валют идут первыми, чтобы методы оплаты помещались в 64-битную маску
+        for (String code : new TreeSet<>(Currencies.CRYPTOCURRENCIES)) {
+            encode(code);
+        }
+        for (String code : new TreeSet<>(Currencies.FIATS)) {
+            encode(code);
+        }
+        encode("https://t.me/CryptoBot?start=");
+        encode("https://t.me/CryptoTestnetBot?start=");
+    }
+
+    private SymbolTable() {
+    }
+
+    /**
+     * Возвращает код строки, при необходимости добавляя ее в таблицу.
+     *
+     * @param value строка
+     * @return код, {@link #NULL} для null или {@link #NOT_CODED}, если таблица заполнена
+     */
+    static short encode(String value) {
+        if (value == null) {
+            return NULL;
+        }
+        Short code = CODES.get(value);
+        if (code != null) {
+            return code;
+        }
+        synchronized (SymbolTable.class) {
+            code = CODES.get(value);
+            if (code != null) {
+                return code;
+            }
+            if (symbols.length >= MAX_SIZE) {
+                return NOT_CODED;
+            }
+            String[] grown = Arrays.copyOf(symbols, symbols.length + 1);
+            grown[symbols.length] = value;
+            symbols = grown;
+            code = (short) (grown.length - 1);
+            CODES.put(value, code);
+            return code;
+        }
+    }
+
+    /**
+     * Возвращает строку по коду.
+     *
+     * @param code код, полученный из {@link #encode(String)}
+     * @return строка или null для {@link #NULL}
+     */
+    static String decode(short code) {
+        return code >= 0 ? symbols[code] : null;
+    }
+}
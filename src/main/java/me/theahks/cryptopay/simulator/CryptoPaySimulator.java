@@ -0,0 +1,552 @@
+package me.theahks.cryptopay.simulator;
+
+import me.theahks.cryptopay.model.Check;
+import me.theahks.cryptopay.model.Invoice;
+import me.theahks.cryptopay.model.Transfer;
+import me.theahks.cryptopay.transport.InProcessTransport;
+import me.theahks.cryptopay.transport.Transport;
+import me.theahks.cryptopay.transport.TransportResponse;
+import me.theahks.cryptopay.util.JsonUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.RateLimiter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Локальный симулятор CryptoBot API для нагрузочного тестирования.
+ * <p>
+ * Реализует основные методы API с правдоподобными переходами состояний и балансами,
+ * поддерживает настраиваемые задержки, внедрение ошибок и ограничение частоты запросов.
+ * Клиент подключается к симулятору через {@code CryptoPay.builder().hostUrl(simulator.getBaseUrl())}.
+ */
+@Slf4j
+public class CryptoPaySimulator implements AutoCloseable {
+    private static final String CONTEXT_PATH = "/api/";
+    private static final String TOKEN_HEADER = "Crypto-Pay-API-Token";
+    private static final int DEFAULT_COUNT = 100;
+    private static final int MAX_COUNT = 1000;
+
+    private final ObjectMapper objectMapper;
+    private final SimulatorState state;
+    private final LatencyDistribution latency;
+    private final double errorRate;
+    private final double rateLimit;
+    private final Map<String, RateLimiter> rateLimiters = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+
+    private final int port;
+    private final int threads;
+    private HttpServer server;
+    private ExecutorService executor;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Создает симулятор. Сервер запускается методом {@link #start()}.
+     *
+     * @param port порт (0 — любой свободный)
+     * @param threads количество потоков обработки (по умолчанию 2 × число процессоров)
+     * @param latency распределение задержки ответов (по умолчанию без задержки)
+     * @param errorRate доля запросов, завершающихся ошибкой сервера (от 0 до 1)
+     * @param rateLimit допустимое число запросов в секунду на один токен (0 — без ограничения)
+     * @param paymentProbability вероятность того, что счет будет оплачен до истечения (по умолчанию 0.7)
+     * @param checkActivationProbability вероятность активации чека (по умолчанию 0.5)
+     * @param initialBalances начальные доступные балансы по активам
+     * @param clock часы симулятора (по умолчанию UTC)
+     */
+    @Builder
+    public CryptoPaySimulator(int port, int threads, LatencyDistribution latency, double errorRate, double rateLimit,
+                              Double paymentProbability, Double checkActivationProbability,
+                              Map<String, BigDecimal> initialBalances, Clock clock) {
+        Preconditions.checkArgument(errorRate >= 0 && errorRate <= 1, "Доля ошибок должна быть от 0 до 1");
+        Preconditions.checkArgument(rateLimit >= 0, "Ограничение частоты не может быть отрицательным");
+
+        this.port = port;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors() * 2;
+        this.latency = latency != null ? latency : LatencyDistribution.none();
+        this.errorRate = errorRate;
+        this.rateLimit = rateLimit;
+        this.state = new SimulatorState(
+                clock != null ? clock : Clock.systemUTC(),
+                paymentProbability != null ? paymentProbability : 0.7,
+                checkActivationProbability != null ? checkActivationProbability : 0.5,
+                initialBalances != null ? initialBalances : Collections.emptyMap());
+
+        this.objectMapper = new ObjectMapper();
+        JsonUtils.configureObjectMapper(this.objectMapper);
+    }
+
+    /**
+     * Запускает HTTP-сервер симулятора на loopback-интерфейсе.
+     *
+     * @return этот симулятор
+     * @throws IOException если не удалось открыть порт
+     */
+    public synchronized CryptoPaySimulator start() throws IOException {
+        Preconditions.checkState(server == null, "Симулятор уже запущен");
+        // Без TCP_NODELAY встроенный сервер добавляет задержку ~40 мс на каждый ответ
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        executor = Executors.newFixedThreadPool(threads, daemon("cryptopay-simulator"));
+        scheduler = Executors.newSingleThreadScheduledExecutor(daemon("cryptopay-simulator-latency"));
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        server.createContext(CONTEXT_PATH, this::handleExchange);
+        server.setExecutor(executor);
+        server.start();
+        log.info("Симулятор CryptoPay запущен: {}", getBaseUrl());
+        return this;
+    }
+
+    /**
+     * Возвращает базовый URL API симулятора.
+     *
+     * @return базовый URL вида {@code http://127.0.0.1:port/api/}
+     */
+    public synchronized String getBaseUrl() {
+        Preconditions.checkState(server != null, "Симулятор не запущен");
+        return "http://127.0.0.1:" + server.getAddress().getPort() + CONTEXT_PATH;
+    }
+
+    /**
+     * Возвращает количество обработанных запросов.
+     *
+     * @return количество запросов
+     */
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * Немедленно оплачивает активный счет.
+     *
+     * @param invoiceId идентификатор счета
+     * @return true, если счет был активен и оплачен
+     */
+    public boolean payInvoice(long invoiceId) {
+        return state.payInvoice(invoiceId);
+    }
+
+    /**
+     * Немедленно активирует чек.
+     *
+     * @param checkId идентификатор чека
+     * @return true, если чек был активен и активирован
+     */
+    public boolean activateCheck(long checkId) {
+        return state.activateCheck(checkId);
+    }
+
+    /**
+     * Устанавливает доступный баланс актива.
+     *
+     * @param asset код криптовалюты
+     * @param available доступная сумма
+     */
+    public void setBalance(String asset, BigDecimal available) {
+        state.setBalance(asset, available);
+    }
+
+    /**
+     * Возвращает транспорт, передающий запросы клиента напрямую в симулятор без сети.
+     * Запуск HTTP-сервера для этого не требуется; настроенная задержка ответов соблюдается.
+     *
+     * @return транспорт для {@code CryptoPay.builder().transport(...)}
+     */
+    public Transport asTransport() {
+        return new InProcessTransport(request -> {
+            SimulatorResponse response = handle(request.getApiMethod(), request.getHeaders().get(TOKEN_HEADER),
+                    request.getQueryParams(), request.getBody());
+            if (response.getDelayNanos() > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(response.getDelayNanos());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Запрос к симулятору прерван");
+                }
+            }
+            Map<String, String> headers = new HashMap<>();
+            response.getHeaders().forEach((name, value) -> headers.put(name.toLowerCase(Locale.ROOT), value));
+            return new TransportResponse(response.getStatus(), "", response.getBody(), headers);
+        });
+    }
+
+    /**
+     * Обрабатывает вызов метода API без участия сети.
+     *
+     * @param method имя метода API
+     * @param apiToken токен API из заголовка запроса
+     * @param query параметры строки запроса (может быть null)
+     * @param body тело запроса в JSON (может быть null или пустым)
+     * @return ответ симулятора
+     */
+    public SimulatorResponse handle(String method, String apiToken, Map<String, String> query, byte[] body) {
+        requests.increment();
+        long delayNanos = latency.nextDelayNanos();
+
+        if (apiToken == null || apiToken.isEmpty()) {
+            return error(401, "UNAUTHORIZED", delayNanos);
+        }
+        if (rateLimit > 0 && !rateLimiters.computeIfAbsent(apiToken, token -> RateLimiter.create(rateLimit))
+                .tryAcquire()) {
+            SimulatorResponse response = error(429, "FLOOD_WAIT", delayNanos);
+            response.getHeaders().put("Retry-After", "1");
+            return response;
+        }
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            return error(500, "INTERNAL_ERROR", delayNanos);
+        }
+
+        try {
+            ObjectNode params = parseParams(query, body);
+            return ok(dispatch(method, params), delayNanos);
+        } catch (SimulatorException e) {
+            return error(e.getCode(), e.getName(), delayNanos);
+        } catch (IOException | IllegalArgumentException | DateTimeParseException e) {
+            return error(400, "PARAMS_INVALID", delayNanos);
+        }
+    }
+
+    /**
+     * Останавливает сервер симулятора.
+     */
+    @Override
+    public synchronized void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            scheduler.shutdownNow();
+            server = null;
+        }
+    }
+
+    private Object dispatch(String method, ObjectNode params) {
+        switch (method) {
+            case "getMe":
+                Map<String, Object> me = new LinkedHashMap<>();
+                me.put("app_id", 1);
+                me.put("name", "CryptoPay Simulator");
+                me.put("payment_processing_bot_username", "CryptoBot");
+                return me;
+            case "createInvoice":
+                return state.createInvoice(
+                        text(params, "asset"),
+                        decimal(params, "amount"),
+                        text(params, "description"),
+                        duration(params, "expires_in", "expiresIn"),
+                        list(params, "allowed_payment_methods", "allowedPaymentMethods"));
+            case "getInvoice":
+                return state.getInvoice(longValue(params, "invoice_id", "invoiceId"));
+            case "getInvoices": {
+                List<Long> ids = ids(params, "invoice_ids", "invoiceIds");
+                if (ids != null) {
+                    return state.getInvoicesByIds(ids);
+                }
+                List<String> status = list(params, "status");
+                String asset = text(params, "asset");
+                Predicate<Invoice> filter = invoice -> (status == null || status.contains(invoice.getStatus()))
+                        && (asset == null || asset.equals(invoice.getAsset()));
+                return state.getInvoices(filter, status, optionalLong(params, "invoice_id", "invoiceId"),
+                        offset(params), count(params));
+            }
+            case "createCheck":
+                return state.createCheck(text(params, "asset"), decimal(params, "amount"));
+            case "getCheck":
+                return state.getCheck(longValue(params, "check_id", "checkId"));
+            case "getChecks": {
+                List<Long> ids = ids(params, "check_ids", "checkIds");
+                if (ids != null) {
+                    return state.getChecksByIds(ids);
+                }
+                List<String> status = list(params, "status");
+                String asset = text(params, "asset");
+                Predicate<Check> filter = check -> (status == null || status.contains(check.getStatus()))
+                        && (asset == null || asset.equals(check.getAsset()));
+                return state.getChecks(filter, status, optionalLong(params, "check_id", "checkId"),
+                        offset(params), count(params));
+            }
+            case "transfer":
+                return state.transfer(
+                        longValue(params, "user_id", "userId"),
+                        text(params, "asset"),
+                        decimal(params, "amount"),
+                        text(params, "comment"));
+            case "getTransfers": {
+                String asset = text(params, "asset");
+                Predicate<Transfer> filter = transfer -> asset == null || asset.equals(transfer.getAsset());
+                return state.getTransfers(filter, optionalLong(params, "transfer_id", "transferId"),
+                        offset(params), count(params));
+            }
+            case "getBalance":
+                return state.getBalance();
+            case "getExchangeRates":
+                return state.getExchangeRates(text(params, "source"));
+            case "getCurrencies":
+                return state.getAssets();
+            default:
+                throw new SimulatorException(405, "METHOD_NOT_FOUND");
+        }
+    }
+
+    private void handleExchange(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String method = path.substring(path.indexOf(CONTEXT_PATH) + CONTEXT_PATH.length());
+        byte[] body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = in.readAllBytes();
+        }
+        SimulatorResponse response = handle(method,
+                exchange.getRequestHeaders().getFirst(TOKEN_HEADER),
+                parseQuery(exchange.getRequestURI().getRawQuery()),
+                body);
+
+        if (response.getDelayNanos() > 0) {
+            scheduler.schedule(() -> send(exchange, response), response.getDelayNanos(), TimeUnit.NANOSECONDS);
+        } else {
+            send(exchange, response);
+        }
+    }
+
+    private void send(HttpExchange exchange, SimulatorResponse response) {
+        try {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            response.getHeaders().forEach(exchange.getResponseHeaders()::add);
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                // Ответ на HEAD-запрос (например, при прогреве соединений клиента) не содержит тела
+                exchange.sendResponseHeaders(response.getStatus(), -1);
+                return;
+            }
+            exchange.sendResponseHeaders(response.getStatus(), response.getBody().length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response.getBody());
+            }
+        } catch (IOException e) {
+            log.debug("Клиент закрыл соединение до получения ответа", e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private SimulatorResponse ok(Object result, long delayNanos) {
+        Map<String, Object> envelope = new LinkedHashMap<>();
+        envelope.put("ok", true);
+        envelope.put("result", result);
+        return new SimulatorResponse(200, write(envelope), delayNanos);
+    }
+
+    private SimulatorResponse error(int code, String name, long delayNanos) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("code", code);
+        error.put("name", name);
+        Map<String, Object> envelope = new LinkedHashMap<>();
+        envelope.put("ok", false);
+        envelope.put("error", error);
+        envelope.put("errorCode", code);
+        envelope.put("description", name);
+        return new SimulatorResponse(code, write(envelope), delayNanos);
+    }
+
+    private byte[] write(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new IllegalStateException("Ошибка сериализации ответа симулятора", e);
+        }
+    }
+
+    private ObjectNode parseParams(Map<String, String> query, byte[] body) throws IOException {
+        ObjectNode params = body != null && body.length > 0
+                ? (ObjectNode) objectMapper.readTree(body)
+                : objectMapper.createObjectNode();
+        if (query != null) {
+            query.forEach(params::put);
+        }
+        return params;
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> query = new HashMap<>();
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq >= 0 ? pair.substring(0, eq) : pair;
+            String value = eq >= 0 ? pair.substring(eq + 1) : "";
+            query.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static JsonNode field(ObjectNode params, String... names) {
+        for (String name : names) {
+            JsonNode value = params.get(name);
+            if (value != null && !value.isNull()) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    private static String text(ObjectNode params, String... names) {
+        JsonNode value = field(params, names);
+        return value != null ? value.asText() : null;
+    }
+
+    private static BigDecimal decimal(ObjectNode params, String... names) {
+        JsonNode value = field(params, names);
+        return value != null ? new BigDecimal(value.asText()) : null;
+    }
+
+    private static long longValue(ObjectNode params, String... names) {
+        Long value = optionalLong(params, names);
+        if (value == null) {
+            throw new SimulatorException(400, "PARAMS_INVALID");
+        }
+        return value;
+    }
+
+    private static Long optionalLong(ObjectNode params, String... names) {
+        JsonNode value = field(params, names);
+        return value != null ? Long.valueOf(value.asText()) : null;
+    }
+
+    private static List<String> list(ObjectNode params, String... names) {
+        JsonNode value = field(params, names);
+        if (value == null) {
+            return null;
+        }
+        if (value.isArray()) {
+            String[] items = new String[value.size()];
+            for (int i = 0; i < items.length; i++) {
+                items[i] = value.get(i).asText();
+            }
+            return Arrays.asList(items);
+        }
+        return Arrays.asList(value.asText().split(","));
+    }
+
+    private static List<Long> ids(ObjectNode params, String... names) {
+        List<String> values = list(params, names);
+        if (values == null) {
+            return null;
+        }
+        Long[] ids = new Long[values.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = Long.valueOf(values.get(i).trim());
+        }
+        return Arrays.asList(ids);
+    }
+
+    private static Duration duration(ObjectNode params, String... names) {
+        JsonNode value = field(params, names);
+        if (value == null) {
+            return null;
+        }
+        // Jackson сериализует Duration числом секунд, реальный API принимает целое число секунд
+        if (value.isNumber() || !value.asText().startsWith("P")) {
+            return Duration.ofNanos(new BigDecimal(value.asText()).movePointRight(9).longValue());
+        }
+        return Duration.parse(value.asText());
+    }
+
+    private static int offset(ObjectNode params) {
+        Long offset = optionalLong(params, "offset");
+        return offset != null ? Math.max(0, offset.intValue()) : 0;
+    }
+
+    private static int count(ObjectNode params) {
+        Long count = optionalLong(params, "count");
+        return count != null ? (int) Math.max(1, Math.min(MAX_COUNT, count)) : DEFAULT_COUNT;
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Запускает симулятор как отдельное приложение.
+     *
+     * @param args необязательный номер порта (по умолчанию 8080)
+     * @throws IOException если не удалось открыть порт
+     * @throws InterruptedException если поток был прерван
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        CryptoPaySimulator.builder()
+                .port(args.length > 0 ? Integer.parseInt(args[0]) : 8080)
+                .initialBalances(Collections.singletonMap("USDT", new BigDecimal("1000000")))
+                .build()
+                .start();
+        Thread.currentThread().join();
+    }
+
+    /**
+     * Ответ симулятора на вызов метода API.
+     */
+    @Getter
+    public static class SimulatorResponse {
+        /**
+         * HTTP-статус ответа.
+         */
+        private final int status;
+
+        /**
+         * Тело ответа в JSON.
+         */
+        private final byte[] body;
+
+        /**
+         * Искусственная задержка ответа в наносекундах.
+         */
+        private final long delayNanos;
+
+        /**
+         * Дополнительные заголовки ответа.
+         */
+        private final Map<String, String> headers = new HashMap<>();
+
+        SimulatorResponse(int status, byte[] body, long delayNanos) {
+            this.status = status;
+            this.body = body;
+            this.delayNanos = delayNanos;
+        }
+    }
+}
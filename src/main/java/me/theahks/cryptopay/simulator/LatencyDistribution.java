@@ -0,0 +1,71 @@
+package me.theahks.cryptopay.simulator;
+
+import com.google.common.base.Preconditions;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Распределение искусственной задержки ответов симулятора.
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    /**
+     * Возвращает задержку очередного ответа.
+     *
+     * @return задержка в наносекундах (0 — без задержки)
+     */
+    long nextDelayNanos();
+
+    /**
+     * Без задержки.
+     *
+     * @return распределение
+     */
+    static LatencyDistribution none() {
+        return () -> 0;
+    }
+
+    /**
+     * Фиксированная задержка.
+     *
+     * @param delay задержка
+     * @return распределение
+     */
+    static LatencyDistribution fixed(Duration delay) {
+        long nanos = delay.toNanos();
+        Preconditions.checkArgument(nanos >= 0, "Задержка не может быть отрицательной");
+        return () -> nanos;
+    }
+
+    /**
+     * Равномерное распределение в диапазоне [min, max].
+     *
+     * @param min минимальная задержка
+     * @param max максимальная задержка
+     * @return распределение
+     */
+    static LatencyDistribution uniform(Duration min, Duration max) {
+        long from = min.toNanos();
+        long to = max.toNanos();
+        Preconditions.checkArgument(from >= 0 && from <= to, "Некорректный диапазон задержки");
+        return () -> from == to ? from : ThreadLocalRandom.current().nextLong(from, to + 1);
+    }
+
+    /**
+     * Логнормальное распределение, заданное медианой и 99-м перцентилем.
+     * Хорошо описывает задержки реальных сетевых сервисов с длинным хвостом.
+     *
+     * @param median медиана задержки
+     * @param p99 99-й перцентиль задержки
+     * @return распределение
+     */
+    static LatencyDistribution logNormal(Duration median, Duration p99) {
+        double mu = Math.log(median.toNanos());
+        // 2.326 — квантиль стандартного нормального распределения для 0.99
+        double sigma = (Math.log(p99.toNanos()) - mu) / 2.326;
+        Preconditions.checkArgument(median.toNanos() > 0 && sigma >= 0, "Некорректные параметры задержки");
+        return () -> (long) Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian());
+    }
+}
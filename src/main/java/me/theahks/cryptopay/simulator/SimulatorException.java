@@ -0,0 +1,21 @@
+package me.theahks.cryptopay.simulator;
+
+/**
+ * Ошибка API, которую симулятор возвращает клиенту.
+ */
+class SimulatorException extends RuntimeException {
+    private final int code;
+
+    SimulatorException(int code, String name) {
+        super(name, null, false, false);
+        this.code = code;
+    }
+
+    int getCode() {
+        return code;
+    }
+
+    String getName() {
+        return getMessage();
+    }
+}
@@ -0,0 +1,610 @@
+package me.theahks.cryptopay.simulator;
+
+import me.theahks.cryptopay.model.Asset;
+import me.theahks.cryptopay.model.Balance;
+import me.theahks.cryptopay.model.Check;
+import me.theahks.cryptopay.model.Currencies;
+import me.theahks.cryptopay.model.ExchangeRate;
+import me.theahks.cryptopay.model.Invoice;
+import me.theahks.cryptopay.model.Transfer;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Состояние симулятора: счета, чеки, переводы, балансы и курсы.
+ * Переходы состояний (оплата и истечение счетов, активация чеков) планируются при создании и
+ * применяются по наступлении срока: из очереди, упорядоченной по времени, перед операциями с балансами
+ * и чтением списков, а также при чтении самой сущности. Для выборки по статусу счета и чеки дополнительно
+ * индексируются по текущему статусу.
+ */
+class SimulatorState {
+    private static final Duration DEFAULT_INVOICE_LIFETIME = Duration.ofHours(1);
+    private static final Duration RATE_TICK = Duration.ofSeconds(1);
+    private static final MathContext RATE_PRECISION = new MathContext(10, RoundingMode.HALF_EVEN);
+
+    private final Clock clock;
+    private final double paymentProbability;
+    private final double checkActivationProbability;
+
+    private final AtomicLong invoiceIds = new AtomicLong();
+    private final AtomicLong checkIds = new AtomicLong();
+    private final AtomicLong transferIds = new AtomicLong();
+
+    private final NavigableMap<Long, SimInvoice> invoices = new ConcurrentSkipListMap<>(Collections.reverseOrder());
+    private final NavigableMap<Long, SimCheck> checks = new ConcurrentSkipListMap<>(Collections.reverseOrder());
+    private final NavigableMap<Long, Transfer> transfers = new ConcurrentSkipListMap<>(Collections.reverseOrder());
+    private final Map<String, NavigableMap<Long, SimInvoice>> invoicesByStatus = new ConcurrentHashMap<>();
+    private final Map<String, NavigableMap<Long, SimCheck>> checksByStatus = new ConcurrentHashMap<>();
+    private final PriorityBlockingQueue<Transition> transitions = new PriorityBlockingQueue<>();
+
+    private final Map<String, BigDecimal[]> balances = new TreeMap<>();
+    private final Map<String, BigDecimal> rates = new TreeMap<>();
+    private final List<Asset> assets;
+    private volatile long lastRateTick;
+
+    SimulatorState(Clock clock, double paymentProbability, double checkActivationProbability,
+                   Map<String, BigDecimal> initialBalances) {
+        this.clock = clock;
+        this.paymentProbability = paymentProbability;
+        this.checkActivationProbability = checkActivationProbability;
+
+        List<Asset> assetList = new ArrayList<>();
+        for (String code : new TreeSet<>(Currencies.CRYPTOCURRENCIES)) {
+            assetList.add(Asset.builder()
+                    .code(code)
+                    .name(code)
+                    .isFiat(false)
+                    .minInvoiceAmount(new BigDecimal("0.01"))
+                    .minTransferAmount(new BigDecimal("0.01"))
+                    .build());
+            balances.put(code, new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO});
+            rates.put(code, initialRate(code));
+        }
+        this.assets = Collections.unmodifiableList(assetList);
+        initialBalances.forEach((asset, amount) -> balance(asset)[0] = amount);
+        this.lastRateTick = clock.millis();
+    }
+
+    // --- Счета ---
+
+    Invoice createInvoice(String asset, BigDecimal amount, String description, Duration expiresIn,
+                          List<String> allowedPaymentMethods) {
+        requireAsset(asset);
+        requirePositive(amount);
+        LocalDateTime now = now();
+        long id = invoiceIds.incrementAndGet();
+        Duration lifetime = expiresIn != null ? expiresIn : DEFAULT_INVOICE_LIFETIME;
+        Invoice invoice = Invoice.builder()
+                .invoiceId(id)
+                .hash("IV" + Long.toHexString(ThreadLocalRandom.current().nextLong()))
+                .asset(asset)
+                .amount(amount)
+                .description(description)
+                .botInvoiceUrl("https://t.me/CryptoBot?start=IV" + id)
+                .payUrl("https://t.me/CryptoBot?start=IV" + id)
+                .status("active")
+                .createdAt(now)
+                .expirationDate(now.plus(lifetime))
+                .allowedPaymentMethods(allowedPaymentMethods)
+                .build();
+        LocalDateTime payAt = null;
+        if (ThreadLocalRandom.current().nextDouble() < paymentProbability) {
+            long window = Math.max(1, lifetime.toMillis());
+            payAt = now.plus(Duration.ofMillis(ThreadLocalRandom.current().nextLong(window)));
+        }
+        SimInvoice simInvoice = new SimInvoice(invoice, payAt);
+        invoices.put(id, simInvoice);
+        statusIndex(invoicesByStatus, "active").put(id, simInvoice);
+        transitions.add(new Transition(payAt != null && payAt.isBefore(invoice.getExpirationDate())
+                ? payAt : invoice.getExpirationDate(), simInvoice));
+        return simInvoice.snapshot(now);
+    }
+
+    Invoice getInvoice(long invoiceId) {
+        SimInvoice invoice = invoices.get(invoiceId);
+        if (invoice == null) {
+            throw new SimulatorException(400, "INVOICE_NOT_FOUND");
+        }
+        return invoice.snapshot(now());
+    }
+
+    List<Invoice> getInvoices(Predicate<Invoice> filter, List<String> status, Long belowId, int offset, int count) {
+        LocalDateTime now = now();
+        settleDue(now);
+        return page(source(invoices, invoicesByStatus, status, belowId),
+                invoice -> invoice.matches(now, filter), invoice -> invoice.snapshotIf(now, filter), offset, count);
+    }
+
+    List<Invoice> getInvoicesByIds(List<Long> invoiceIds) {
+        LocalDateTime now = now();
+        List<Invoice> result = new ArrayList<>(invoiceIds.size());
+        for (Long id : new TreeSet<>(invoiceIds).descendingSet()) {
+            SimInvoice invoice = invoices.get(id);
+            if (invoice != null) {
+                result.add(invoice.snapshot(now));
+            }
+        }
+        return result;
+    }
+
+    boolean payInvoice(long invoiceId) {
+        SimInvoice invoice = invoices.get(invoiceId);
+        return invoice != null && invoice.pay(now());
+    }
+
+    // --- Чеки ---
+
+    Check createCheck(String asset, BigDecimal amount) {
+        requireAsset(asset);
+        requirePositive(amount);
+        settleDue(now());
+        synchronized (balances) {
+            BigDecimal[] balance = balance(asset);
+            if (balance[0].compareTo(amount) < 0) {
+                throw new SimulatorException(400, "NOT_ENOUGH_COINS");
+            }
+            balance[0] = balance[0].subtract(amount);
+            balance[1] = balance[1].add(amount);
+        }
+        LocalDateTime now = now();
+        long id = checkIds.incrementAndGet();
+        Check check = Check.builder()
+                .checkId(id)
+                .hash("CQ" + Long.toHexString(ThreadLocalRandom.current().nextLong()))
+                .asset(asset)
+                .amount(amount)
+                .botCheckUrl("https://t.me/CryptoBot?start=CQ" + id)
+                .status("active")
+                .createdAt(now)
+                .build();
+        LocalDateTime activateAt = null;
+        if (ThreadLocalRandom.current().nextDouble() < checkActivationProbability) {
+            activateAt = now.plus(Duration.ofMillis(ThreadLocalRandom.current().nextLong(
+                    DEFAULT_INVOICE_LIFETIME.toMillis())));
+        }
+        SimCheck simCheck = new SimCheck(check, activateAt);
+        checks.put(id, simCheck);
+        statusIndex(checksByStatus, "active").put(id, simCheck);
+        if (activateAt != null) {
+            transitions.add(new Transition(activateAt, simCheck));
+        }
+        return simCheck.snapshot(now);
+    }
+
+    Check getCheck(long checkId) {
+        SimCheck check = checks.get(checkId);
+        if (check == null) {
+            throw new SimulatorException(400, "CHECK_NOT_FOUND");
+        }
+        return check.snapshot(now());
+    }
+
+    List<Check> getChecks(Predicate<Check> filter, List<String> status, Long belowId, int offset, int count) {
+        LocalDateTime now = now();
+        settleDue(now);
+        return page(source(checks, checksByStatus, status, belowId),
+                check -> check.matches(now, filter), check -> check.snapshotIf(now, filter), offset, count);
+    }
+
+    List<Check> getChecksByIds(List<Long> checkIds) {
+        LocalDateTime now = now();
+        List<Check> result = new ArrayList<>(checkIds.size());
+        for (Long id : new TreeSet<>(checkIds).descendingSet()) {
+            SimCheck check = checks.get(id);
+            if (check != null) {
+                result.add(check.snapshot(now));
+            }
+        }
+        return result;
+    }
+
+    boolean activateCheck(long checkId) {
+        SimCheck check = checks.get(checkId);
+        return check != null && check.activate(now());
+    }
+
+    // --- Переводы ---
+
+    Transfer transfer(long userId, String asset, BigDecimal amount, String comment) {
+        requireAsset(asset);
+        requirePositive(amount);
+        settleDue(now());
+        synchronized (balances) {
+            BigDecimal[] balance = balance(asset);
+            if (balance[0].compareTo(amount) < 0) {
+                throw new SimulatorException(400, "NOT_ENOUGH_COINS");
+            }
+            balance[0] = balance[0].subtract(amount);
+        }
+        long id = transferIds.incrementAndGet();
+        Transfer transfer = Transfer.builder()
+                .transferId(id)
+                .userId(userId)
+                .asset(asset)
+                .amount(amount)
+                .status("completed")
+                .completedAt(now())
+                .comment(comment)
+                .build();
+        transfers.put(id, transfer);
+        return transfer;
+    }
+
+    List<Transfer> getTransfers(Predicate<Transfer> filter, Long belowId, int offset, int count) {
+        return page(belowId != null ? transfers.tailMap(belowId, false).values() : transfers.values(),
+                filter, transfer -> filter.test(transfer) ? transfer : null, offset, count);
+    }
+
+    // --- Балансы, курсы и активы ---
+
+    List<Balance> getBalance() {
+        settleDue(now());
+        List<Balance> result = new ArrayList<>();
+        synchronized (balances) {
+            balances.forEach((code, balance) -> result.add(Balance.builder()
+                    .currencyCode(code)
+                    .available(balance[0])
+                    .onhold(balance[1])
+                    .build()));
+        }
+        return result;
+    }
+
+    void setBalance(String asset, BigDecimal available) {
+        synchronized (balances) {
+            balance(asset)[0] = available;
+        }
+    }
+
+    List<ExchangeRate> getExchangeRates(String source) {
+        tickRates();
+        List<ExchangeRate> result = new ArrayList<>();
+        synchronized (rates) {
+            rates.forEach((code, usd) -> {
+                if (source != null && !source.equalsIgnoreCase(code)) {
+                    return;
+                }
+                result.add(rate(code, "USD", usd));
+                result.add(rate(code, "EUR", usd.multiply(new BigDecimal("0.92"), RATE_PRECISION)));
+                result.add(rate(code, "RUB", usd.multiply(new BigDecimal("90"), RATE_PRECISION)));
+            });
+        }
+        return result;
+    }
+
+    List<Asset> getAssets() {
+        return assets;
+    }
+
+    // --- Вспомогательные методы ---
+
+    private LocalDateTime now() {
+        return LocalDateTime.now(clock);
+    }
+
+    /**
+     * Применяет переходы, срок которых наступил, в порядке времени.
+     */
+    private void settleDue(LocalDateTime now) {
+        Transition next;
+        while ((next = transitions.peek()) != null && !now.isBefore(next.at)) {
+            Transition due = transitions.poll();
+            if (due == null) {
+                return;
+            }
+            if (now.isBefore(due.at)) {
+                // Другой поток забрал наступивший переход раньше; этот возвращается в очередь
+                transitions.add(due);
+                return;
+            }
+            due.target.advance(now);
+        }
+    }
+
+    /**
+     * Выбирает индекс по статусу, если запрошен ровно один статус, иначе все сущности.
+     */
+    private static <S> Collection<S> source(NavigableMap<Long, S> all, Map<String, NavigableMap<Long, S>> byStatus,
+                                            List<String> status, Long belowId) {
+        NavigableMap<Long, S> map = status != null && status.size() == 1
+                ? byStatus.getOrDefault(status.get(0), Collections.emptyNavigableMap())
+                : all;
+        return (belowId != null ? map.tailMap(belowId, false) : map).values();
+    }
+
+    private static <S> NavigableMap<Long, S> statusIndex(Map<String, NavigableMap<Long, S>> byStatus, String status) {
+        return byStatus.computeIfAbsent(status, key -> new ConcurrentSkipListMap<>(Collections.reverseOrder()));
+    }
+
+    private static <S> void reindex(Map<String, NavigableMap<Long, S>> byStatus, long id, S item,
+                                    String from, String to) {
+        // Сначала добавляем в новый индекс, чтобы сущность не пропадала из выборок
+        statusIndex(byStatus, to).put(id, item);
+        statusIndex(byStatus, from).remove(id);
+    }
+
+    /**
+     * Читает страницу. Копируются только сущности, попавшие на страницу: пропускаемые по смещению
+     * лишь проверяются фильтром, а снимок возвращает null, если сущность перестала ему соответствовать.
+     */
+    private <S, T> List<T> page(Collection<S> source, Predicate<S> matches, Function<S, T> snapshotIf,
+                                int offset, int count) {
+        List<T> result = new ArrayList<>(Math.min(count, 128));
+        int skipped = 0;
+        for (S item : source) {
+            if (skipped < offset) {
+                if (matches.test(item)) {
+                    skipped++;
+                }
+                continue;
+            }
+            T value = snapshotIf.apply(item);
+            if (value == null) {
+                continue;
+            }
+            result.add(value);
+            if (result.size() >= count) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private BigDecimal[] balance(String asset) {
+        return balances.computeIfAbsent(asset, code -> new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO});
+    }
+
+    private void credit(String asset, BigDecimal amount) {
+        synchronized (balances) {
+            BigDecimal[] balance = balance(asset);
+            balance[0] = balance[0].add(amount);
+        }
+    }
+
+    private void releaseOnHold(String asset, BigDecimal amount) {
+        synchronized (balances) {
+            BigDecimal[] balance = balance(asset);
+            balance[1] = balance[1].subtract(amount);
+        }
+    }
+
+    private void requireAsset(String asset) {
+        if (asset == null || !Currencies.isCryptocurrency(asset)) {
+            throw new SimulatorException(400, "ASSET_INVALID");
+        }
+    }
+
+    private static void requirePositive(BigDecimal amount) {
+        if (amount == null || amount.signum() <= 0) {
+            throw new SimulatorException(400, "AMOUNT_INVALID");
+        }
+    }
+
+    /**
+     * Случайное блуждание курсов не чаще одного шага в секунду.
+     */
+    private void tickRates() {
+        long now = clock.millis();
+        if (now - lastRateTick < RATE_TICK.toMillis()) {
+            return;
+        }
+        synchronized (rates) {
+            if (now - lastRateTick < RATE_TICK.toMillis()) {
+                return;
+            }
+            lastRateTick = now;
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            rates.replaceAll((code, rate) -> code.startsWith("USD") ? rate
+                    : rate.multiply(BigDecimal.valueOf(1 + random.nextGaussian() * 0.001), RATE_PRECISION));
+        }
+    }
+
+    private static ExchangeRate rate(String source, String target, BigDecimal rate) {
+        return ExchangeRate.builder()
+                .isValid(true)
+                .isCrypto(true)
+                .isFiat(false)
+                .source(source)
+                .target(target)
+                .rate(rate)
+                .build();
+    }
+
+    private static BigDecimal initialRate(String code) {
+        switch (code) {
+            case "USDT":
+            case "USDC":
+                return BigDecimal.ONE;
+            case "BTC":
+                return new BigDecimal("65000");
+            case "ETH":
+                return new BigDecimal("3200");
+            case "BNB":
+                return new BigDecimal("580");
+            case "SOL":
+                return new BigDecimal("150");
+            case "LTC":
+                return new BigDecimal("80");
+            case "TON":
+                return new BigDecimal("5.5");
+            case "TRX":
+                return new BigDecimal("0.12");
+            default:
+                return new BigDecimal("0.01");
+        }
+    }
+
+    /**
+     * Сущность с запланированным переходом состояния.
+     */
+    private interface Scheduled {
+        /**
+         * Применяет переходы, срок которых наступил.
+         *
+         * @param now текущее время
+         */
+        void advance(LocalDateTime now);
+    }
+
+    /**
+     * Запланированный переход, упорядоченный по времени.
+     */
+    private static final class Transition implements Comparable<Transition> {
+        private final LocalDateTime at;
+        private final Scheduled target;
+
+        Transition(LocalDateTime at, Scheduled target) {
+            this.at = at;
+            this.target = target;
+        }
+
+        @Override
+        public int compareTo(Transition other) {
+            return at.compareTo(other.at);
+        }
+    }
+
+    /**
+     * Изменяемое состояние счета с запланированным моментом оплаты.
+     */
+    private final class SimInvoice implements Scheduled {
+        private final Invoice invoice;
+        private final LocalDateTime payAt;
+
+        SimInvoice(Invoice invoice, LocalDateTime payAt) {
+            this.invoice = invoice;
+            this.payAt = payAt;
+        }
+
+        @Override
+        public synchronized void advance(LocalDateTime now) {
+            if ("active".equals(invoice.getStatus())) {
+                if (payAt != null && !now.isBefore(payAt) && payAt.isBefore(invoice.getExpirationDate())) {
+                    markPaid(payAt);
+                } else if (!now.isBefore(invoice.getExpirationDate())) {
+                    invoice.setStatus("expired");
+                    reindex(invoicesByStatus, invoice.getInvoiceId(), this, "active", "expired");
+                }
+            }
+        }
+
+        synchronized Invoice snapshot(LocalDateTime now) {
+            advance(now);
+            return copy(invoice);
+        }
+
+        synchronized boolean matches(LocalDateTime now, Predicate<Invoice> filter) {
+            advance(now);
+            return filter.test(invoice);
+        }
+
+        synchronized Invoice snapshotIf(LocalDateTime now, Predicate<Invoice> filter) {
+            advance(now);
+            return filter.test(invoice) ? copy(invoice) : null;
+        }
+
+        synchronized boolean pay(LocalDateTime now) {
+            advance(now);
+            if (!"active".equals(invoice.getStatus())) {
+                return false;
+            }
+            markPaid(now);
+            return true;
+        }
+
+        private void markPaid(LocalDateTime paidAt) {
+            invoice.setStatus("paid");
+            invoice.setPaidAt(paidAt);
+            invoice.setPaidBtnUser(Invoice.PaidBtnUser.builder()
+                    .userId(ThreadLocalRandom.current().nextLong(100_000, 10_000_000))
+                    .firstName("Simulated")
+                    .build());
+            credit(invoice.getAsset(), invoice.getAmount());
+            reindex(invoicesByStatus, invoice.getInvoiceId(), this, "active", "paid");
+        }
+
+        private Invoice copy(Invoice source) {
+            return new Invoice(source.getInvoiceId(), source.getHash(), source.getAsset(), source.getAmount(),
+                    source.getFiatCurrency(), source.getFiatAmount(), source.getDescription(),
+                    source.getBotInvoiceUrl(), source.getPayUrl(), source.getStatus(), source.getCreatedAt(),
+                    source.getExpirationDate(), source.getPaidAt(), source.getPaidBtnUser(),
+                    source.getAllowedPaymentMethods());
+        }
+    }
+
+    /**
+     * Изменяемое состояние чека с запланированным моментом активации.
+     */
+    private final class SimCheck implements Scheduled {
+        private final Check check;
+        private final LocalDateTime activateAt;
+
+        SimCheck(Check check, LocalDateTime activateAt) {
+            this.check = check;
+            this.activateAt = activateAt;
+        }
+
+        @Override
+        public synchronized void advance(LocalDateTime now) {
+            if ("active".equals(check.getStatus()) && activateAt != null && !now.isBefore(activateAt)) {
+                markActivated(activateAt);
+            }
+        }
+
+        synchronized Check snapshot(LocalDateTime now) {
+            advance(now);
+            return copy();
+        }
+
+        synchronized boolean matches(LocalDateTime now, Predicate<Check> filter) {
+            advance(now);
+            return filter.test(check);
+        }
+
+        synchronized Check snapshotIf(LocalDateTime now, Predicate<Check> filter) {
+            advance(now);
+            return filter.test(check) ? copy() : null;
+        }
+
+        synchronized boolean activate(LocalDateTime now) {
+            advance(now);
+            if (!"active".equals(check.getStatus())) {
+                return false;
+            }
+            markActivated(now);
+            return true;
+        }
+
+        private void markActivated(LocalDateTime activatedAt) {
+            check.setStatus("activated");
+            check.setActivatedAt(activatedAt);
+            releaseOnHold(check.getAsset(), check.getAmount());
+            reindex(checksByStatus, check.getCheckId(), this, "active", "activated");
+        }
+
+        private Check copy() {
+            return new Check(check.getCheckId(), check.getHash(), check.getAsset(), check.getAmount(),
+                    check.getBotCheckUrl(), check.getStatus(), check.getCreatedAt(), check.getActivatedAt());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package me.theahks.cryptopay.transport;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Транспорт без сети: запросы передаются обработчику в том же процессе.
+ * Позволяет измерить накладные расходы клиента отдельно от сети, например в паре с
+ * {@link me.theahks.cryptopay.simulator.CryptoPaySimulator#asTransport()}.
+ */
+public class InProcessTransport implements Transport {
+    private final Handler handler;
+
+    /**
+     * Создает транспорт с указанным обработчиком.
+     *
+     * @param handler обработчик запросов
+     */
+    public InProcessTransport(Handler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public TransportResponse execute(TransportRequest request) throws IOException {
+        return handler.handle(request);
+    }
+
+    @Override
+    public CompletableFuture<TransportResponse> executeAsync(TransportRequest request) {
+        try {
+            return CompletableFuture.completedFuture(handler.handle(request));
+        } catch (IOException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Обработчик запросов в том же процессе.
+     */
+    @FunctionalInterface
+    public interface Handler {
+        /**
+         * Обрабатывает запрос.
+         *
+         * @param request запрос
+         * @return ответ
+         * @throws IOException для имитации сетевой ошибки
+         */
+        TransportResponse handle(TransportRequest request) throws IOException;
+    }
+}
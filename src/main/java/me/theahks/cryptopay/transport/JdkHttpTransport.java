@@ -0,0 +1,147 @@
+package me.theahks.cryptopay.transport;
+
+import me.theahks.cryptopay.util.Deadline;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Транспорт на основе {@link java.net.http.HttpClient} из JDK.
+ * Поддерживает HTTP/2 с мультиплексированием запросов в одном соединении и неблокирующие вызовы.
+ */
+public class JdkHttpTransport implements Transport {
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient httpClient;
+
+    /**
+     * Создает транспорт, предпочитающий HTTP/2.
+     */
+    public JdkHttpTransport() {
+        this(HttpClient.Version.HTTP_2);
+    }
+
+    /**
+     * Создает транспорт с указанной версией протокола.
+     *
+     * @param version предпочитаемая версия HTTP
+     */
+    public JdkHttpTransport(HttpClient.Version version) {
+        this(HttpClient.newBuilder()
+                .version(version)
+                .connectTimeout(TIMEOUT)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build());
+    }
+
+    /**
+     * Создает транспорт поверх готового клиента JDK.
+     *
+     * @param httpClient клиент JDK
+     */
+    public JdkHttpTransport(HttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    @Override
+    public TransportResponse execute(TransportRequest request) throws IOException {
+        Deadline deadline = request.getDeadline();
+        if (deadline == null) {
+            try {
+                return toResponse(httpClient.send(toRequest(request), HttpResponse.BodyHandlers.ofByteArray()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("HTTP-запрос прерван");
+            }
+        }
+        // Синхронный send нельзя прервать извне, поэтому при сроке запрос выполняется асинхронно
+        CompletableFuture<HttpResponse<byte[]>> call =
+                httpClient.sendAsync(toRequest(request), HttpResponse.BodyHandlers.ofByteArray());
+        try (Deadline.Registration ignored = deadline.onCancel(() -> call.cancel(true))) {
+            return toResponse(call.get());
+        } catch (InterruptedException e) {
+            call.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("HTTP-запрос прерван");
+        } catch (CancellationException e) {
+            throw new InterruptedIOException("HTTP-запрос отменен");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+    }
+
+    @Override
+    public CompletableFuture<TransportResponse> executeAsync(TransportRequest request) {
+        return httpClient.sendAsync(toRequest(request), HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(JdkHttpTransport::toResponse);
+    }
+
+    /**
+     * Разрешает DNS и параллельно выполняет HEAD-запросы к серверу, оставляя соединения в пуле.
+     */
+    @Override
+    public void warmUp(String url, int connections) throws IOException {
+        URI uri = URI.create(url);
+        InetAddress.getAllByName(uri.getHost());
+
+        HttpRequest head = HttpRequest.newBuilder(uri)
+                .timeout(TIMEOUT)
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .build();
+        CompletableFuture<?>[] calls = new CompletableFuture<?>[connections];
+        for (int i = 0; i < connections; i++) {
+            calls[i] = httpClient.sendAsync(head, HttpResponse.BodyHandlers.discarding());
+        }
+        try {
+            CompletableFuture.allOf(calls).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Прогрев соединений прерван");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+    }
+
+    private static HttpRequest toRequest(TransportRequest request) {
+        Duration timeout = TIMEOUT;
+        if (request.getDeadline() != null && request.getDeadline().remainingNanos() < TIMEOUT.toNanos()) {
+            timeout = Duration.ofNanos(Math.max(1, request.getDeadline().remainingNanos()));
+        }
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(request.getUrl())).timeout(timeout);
+        request.getHeaders().forEach(builder::header);
+        if ("POST".equals(request.getHttpMethod())) {
+            if (request.getContentType() != null) {
+                builder.header("Content-Type", request.getContentType());
+            }
+            builder.POST(request.getBody() != null
+                    ? HttpRequest.BodyPublishers.ofByteArray(request.getBody())
+                    : HttpRequest.BodyPublishers.noBody());
+        } else {
+            builder.GET();
+        }
+        return builder.build();
+    }
+
+    private static TransportResponse toResponse(HttpResponse<byte[]> response) {
+        Map<String, String> headers = new HashMap<>();
+        for (Map.Entry<String, List<String>> header : response.headers().map().entrySet()) {
+            if (!header.getValue().isEmpty()) {
+                headers.put(header.getKey().toLowerCase(Locale.ROOT), header.getValue().get(0));
+            }
+        }
+        return new TransportResponse(response.statusCode(), "", response.body(), headers);
+    }
+}
@@ -0,0 +1,139 @@
+package me.theahks.cryptopay.transport;
+
+import me.theahks.cryptopay.util.CallTrace;
+import me.theahks.cryptopay.util.Deadline;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Транспорт на основе OkHttp. Используется по умолчанию.
+ */
+public class OkHttpTransport implements Transport {
+    private static final int TIMEOUT_SECONDS = 30;
+    private static final byte[] EMPTY = new byte[0];
+
+    private final OkHttpClient httpClient;
+
+    /**
+     * Создает транспорт с таймаутами по умолчанию.
+     *
+     * @param tracing включает заполнение сетевых фаз {@link CallTrace} через EventListener
+     */
+    public OkHttpTransport(boolean tracing) {
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectTimeout(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .readTimeout(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .writeTimeout(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        if (tracing) {
+            builder.eventListenerFactory(TracingEventListener.FACTORY);
+        }
+        this.httpClient = builder.build();
+    }
+
+    /**
+     * Создает транспорт поверх готового клиента OkHttp.
+     *
+     * @param httpClient клиент OkHttp
+     */
+    public OkHttpTransport(OkHttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    @Override
+    public TransportResponse execute(TransportRequest request) throws IOException {
+        Request.Builder builder = new Request.Builder()
+                .url(request.getUrl())
+                .tag(CallTrace.class, request.getTrace());
+        request.getHeaders().forEach(builder::header);
+        if ("POST".equals(request.getHttpMethod())) {
+            MediaType contentType = request.getContentType() != null ? MediaType.parse(request.getContentType()) : null;
+            builder.post(RequestBody.create(request.getBody() != null ? request.getBody() : EMPTY, contentType));
+        } else {
+            builder.get();
+        }
+
+        Call call = httpClient.newCall(builder.build());
+        Deadline deadline = request.getDeadline();
+        if (deadline == null) {
+            return execute(call);
+        }
+        // Таймаут всего вызова ограничивается оставшимся сроком, а отмена срока прерывает запрос
+        call.timeout().timeout(Math.max(1, deadline.remainingNanos()), TimeUnit.NANOSECONDS);
+        try (Deadline.Registration ignored = deadline.onCancel(call::cancel)) {
+            return execute(call);
+        }
+    }
+
+    private static TransportResponse execute(Call call) throws IOException {
+        try (Response response = call.execute()) {
+            ResponseBody body = response.body();
+            Map<String, String> headers = new HashMap<>();
+            for (String name : response.headers().names()) {
+                headers.put(name.toLowerCase(Locale.ROOT), response.header(name));
+            }
+            return new TransportResponse(response.code(), response.message(),
+                    body != null ? body.bytes() : EMPTY, headers);
+        }
+    }
+
+    /**
+     * Разрешает DNS и параллельно выполняет HEAD-запросы к серверу, оставляя соединения в пуле.
+     * Статус ответов не важен: запросы нужны только для установки соединений и TLS-рукопожатия.
+     */
+    @Override
+    public void warmUp(String url, int connections) throws IOException {
+        HttpUrl httpUrl = HttpUrl.get(url);
+        httpClient.dns().lookup(httpUrl.host());
+
+        CountDownLatch done = new CountDownLatch(connections);
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        for (int i = 0; i < connections; i++) {
+            httpClient.newCall(new Request.Builder().url(httpUrl).head().build()).enqueue(new Callback() {
+                @Override
+                public void onResponse(Call call, Response response) {
+                    response.close();
+                    done.countDown();
+                }
+
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    failure.compareAndSet(null, e);
+                    done.countDown();
+                }
+            });
+        }
+        try {
+            if (!done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new InterruptedIOException("Истекло время прогрева соединений");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Прогрев соединений прерван");
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    @Override
+    public void close() {
+        httpClient.dispatcher().executorService().shutdown();
+        httpClient.connectionPool().evictAll();
+    }
+}
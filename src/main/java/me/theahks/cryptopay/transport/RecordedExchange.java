@@ -0,0 +1,107 @@
+package me.theahks.cryptopay.transport;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Один записанный обмен с API: запрос, ответ и время.
+ * Токен API и другие заголовки запроса не записываются.
+ */
+@Getter
+@AllArgsConstructor
+public class RecordedExchange {
+    /**
+     * Смещение начала вызова от начала записи в наносекундах.
+     */
+    private final long offsetNanos;
+
+    /**
+     * Длительность вызова в наносекундах.
+     */
+    private final long durationNanos;
+
+    /**
+     * HTTP-метод.
+     */
+    private final String httpMethod;
+
+    /**
+     * Имя метода API.
+     */
+    private final String apiMethod;
+
+    /**
+     * Параметры строки запроса.
+     */
+    private final Map<String, String> queryParams;
+
+    /**
+     * Тело запроса или null.
+     */
+    private final byte[] requestBody;
+
+    /**
+     * HTTP-статус ответа или 0, если запрос завершился ошибкой ввода-вывода.
+     */
+    private final int status;
+
+    /**
+     * Сообщение статуса или текст ошибки ввода-вывода.
+     */
+    private final String message;
+
+    /**
+     * Заголовки ответа.
+     */
+    private final Map<String, String> responseHeaders;
+
+    /**
+     * Тело ответа.
+     */
+    private final byte[] responseBody;
+
+    /**
+     * Проверяет, завершился ли вызов ошибкой ввода-вывода.
+     *
+     * @return true, если ответ не был получен
+     */
+    public boolean isFailed() {
+        return status == 0;
+    }
+
+    /**
+     * Читает все обмены из файла записи.
+     *
+     * @param file файл, созданный {@link RecordingTransport}
+     * @return обмены в порядке записи
+     * @throws IOException если файл не удалось прочитать
+     */
+    public static List<RecordedExchange> readAll(Path file) throws IOException {
+        List<RecordedExchange> exchanges = new ArrayList<>();
+        try (InputStream raw = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(raw)))) {
+            RecordingFormat.readHeader(in);
+            while (true) {
+                try {
+                    exchanges.add(RecordingFormat.read(in));
+                } catch (EOFException e) {
+                    // Запись могла оборваться на середине, если процесс был остановлен
+                    break;
+                }
+            }
+        }
+        return exchanges;
+    }
+}
@@ -0,0 +1,100 @@
+package me.theahks.cryptopay.transport;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Компактный двоичный формат файла записи (поверх GZIP).
+ */
+final class RecordingFormat {
+    private static final int MAGIC = 0x43505243; // "CPRC"
+    private static final int VERSION = 1;
+
+    private RecordingFormat() {}
+
+    static void writeHeader(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+    }
+
+    static void readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Файл не является записью CryptoPay");
+        }
+        int version = in.readUnsignedShort();
+        if (version != VERSION) {
+            throw new IOException("Неподдерживаемая версия записи: " + version);
+        }
+    }
+
+    static void write(DataOutputStream out, RecordedExchange exchange) throws IOException {
+        out.writeLong(exchange.getOffsetNanos());
+        out.writeLong(exchange.getDurationNanos());
+        out.writeUTF(exchange.getHttpMethod());
+        out.writeUTF(exchange.getApiMethod());
+        writeMap(out, exchange.getQueryParams());
+        writeBytes(out, exchange.getRequestBody());
+        out.writeShort(exchange.getStatus());
+        out.writeUTF(exchange.getMessage() != null ? exchange.getMessage() : "");
+        writeMap(out, exchange.getResponseHeaders());
+        writeBytes(out, exchange.getResponseBody());
+    }
+
+    static RecordedExchange read(DataInputStream in) throws IOException {
+        long offsetNanos = in.readLong();
+        long durationNanos = in.readLong();
+        String httpMethod = in.readUTF();
+        String apiMethod = in.readUTF();
+        Map<String, String> queryParams = readMap(in);
+        byte[] requestBody = readBytes(in);
+        int status = in.readUnsignedShort();
+        String message = in.readUTF();
+        Map<String, String> responseHeaders = readMap(in);
+        byte[] responseBody = readBytes(in);
+        return new RecordedExchange(offsetNanos, durationNanos, httpMethod, apiMethod, queryParams, requestBody,
+                status, message, responseHeaders, responseBody);
+    }
+
+    private static void writeMap(DataOutputStream out, Map<String, String> map) throws IOException {
+        out.writeShort(map.size());
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeUTF(entry.getValue());
+        }
+    }
+
+    private static Map<String, String> readMap(DataInputStream in) throws IOException {
+        int size = in.readUnsignedShort();
+        if (size == 0) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            map.put(in.readUTF(), in.readUTF());
+        }
+        return map;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,88 @@
+package me.theahks.cryptopay.transport;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Транспорт-обертка, записывающий каждый обмен с API в компактный файл для последующего воспроизведения.
+ * <p>
+ * Записываются метод, параметры, тело запроса, ответ и время вызова; заголовки запроса (включая токен API)
+ * не записываются. Ошибки записи не влияют на выполнение запросов.
+ */
+@Slf4j
+public class RecordingTransport implements Transport {
+    private final Transport delegate;
+    private final DataOutputStream out;
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * Создает записывающий транспорт.
+     *
+     * @param delegate транспорт, выполняющий реальные запросы
+     * @param file файл записи (перезаписывается)
+     * @throws IOException если файл не удалось открыть
+     */
+    public RecordingTransport(Transport delegate, Path file) throws IOException {
+        this.delegate = delegate;
+        // syncFlush позволяет прочитать запись, даже если процесс завершится без close()
+        this.out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(file), true)));
+        RecordingFormat.writeHeader(out);
+    }
+
+    @Override
+    public TransportResponse execute(TransportRequest request) throws IOException {
+        long start = System.nanoTime();
+        try {
+            TransportResponse response = delegate.execute(request);
+            record(request, start, response.getCode(), response.getMessage(), response);
+            return response;
+        } catch (IOException e) {
+            record(request, start, 0, String.valueOf(e.getMessage()), null);
+            throw e;
+        }
+    }
+
+    private void record(TransportRequest request, long start, int status, String message,
+                        TransportResponse response) {
+        RecordedExchange exchange = new RecordedExchange(
+                start - startNanos,
+                System.nanoTime() - start,
+                request.getHttpMethod(),
+                request.getApiMethod(),
+                request.getQueryParams(),
+                request.getBody(),
+                status,
+                message,
+                response != null ? response.getHeaders() : Collections.emptyMap(),
+                response != null ? response.getBody() : null);
+        synchronized (out) {
+            try {
+                RecordingFormat.write(out, exchange);
+                out.flush();
+            } catch (IOException e) {
+                log.warn("Не удалось записать обмен {} в файл записи", request.getApiMethod(), e);
+            }
+        }
+    }
+
+    @Override
+    public void warmUp(String url, int connections) throws IOException {
+        delegate.warmUp(url, connections);
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (out) {
+            out.close();
+        }
+        delegate.close();
+    }
+}
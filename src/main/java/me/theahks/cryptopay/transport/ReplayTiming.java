@@ -0,0 +1,16 @@
+package me.theahks.cryptopay.transport;
+
+/**
+ * Режим соблюдения времени при воспроизведении записи.
+ */
+public enum ReplayTiming {
+    /**
+     * Сохранять исходные интервалы между вызовами и исходные задержки ответов.
+     */
+    ORIGINAL,
+
+    /**
+     * Выполнять вызовы и отдавать ответы без задержек.
+     */
+    AS_FAST_AS_POSSIBLE
+}
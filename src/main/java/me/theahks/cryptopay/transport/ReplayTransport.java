@@ -0,0 +1,105 @@
+package me.theahks.cryptopay.transport;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Транспорт, отвечающий записанными ответами без обращения к сети.
+ * <p>
+ * Запрос сопоставляется с записью по HTTP-методу, имени метода API, параметрам и телу;
+ * одинаковые запросы получают записанные ответы по кругу в исходном порядке. Если точного
+ * совпадения нет, используется любой записанный ответ того же метода API.
+ */
+public class ReplayTransport implements Transport {
+    private final Map<String, Responses> exact = new HashMap<>();
+    private final Map<String, Responses> byMethod = new HashMap<>();
+    private final ReplayTiming timing;
+
+    /**
+     * Создает транспорт по записанным обменам.
+     *
+     * @param exchanges записанные обмены
+     * @param timing режим соблюдения задержек ответов
+     */
+    public ReplayTransport(List<RecordedExchange> exchanges, ReplayTiming timing) {
+        this.timing = timing;
+        for (RecordedExchange exchange : exchanges) {
+            exact.computeIfAbsent(key(exchange.getHttpMethod(), exchange.getApiMethod(),
+                    exchange.getQueryParams(), exchange.getRequestBody()), k -> new Responses()).add(exchange);
+            byMethod.computeIfAbsent(exchange.getApiMethod(), k -> new Responses()).add(exchange);
+        }
+    }
+
+    /**
+     * Создает транспорт по файлу записи.
+     *
+     * @param file файл, созданный {@link RecordingTransport}
+     * @param timing режим соблюдения задержек ответов
+     * @return транспорт воспроизведения
+     * @throws IOException если файл не удалось прочитать
+     */
+    public static ReplayTransport fromFile(Path file, ReplayTiming timing) throws IOException {
+        return new ReplayTransport(RecordedExchange.readAll(file), timing);
+    }
+
+    @Override
+    public TransportResponse execute(TransportRequest request) throws IOException {
+        Responses responses = exact.get(key(request.getHttpMethod(), request.getApiMethod(),
+                request.getQueryParams(), request.getBody()));
+        if (responses == null) {
+            responses = byMethod.get(request.getApiMethod());
+        }
+        if (responses == null) {
+            throw new IOException("Нет записанного ответа для метода " + request.getApiMethod());
+        }
+
+        RecordedExchange exchange = responses.next();
+        if (timing == ReplayTiming.ORIGINAL && exchange.getDurationNanos() > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(exchange.getDurationNanos());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Воспроизведение прервано");
+            }
+        }
+        if (exchange.isFailed()) {
+            throw new IOException(exchange.getMessage());
+        }
+        return new TransportResponse(exchange.getStatus(), exchange.getMessage(), exchange.getResponseBody(),
+                exchange.getResponseHeaders());
+    }
+
+    private static String key(String httpMethod, String apiMethod, Map<String, String> query, byte[] body) {
+        StringBuilder key = new StringBuilder(httpMethod).append(' ').append(apiMethod)
+                .append(' ').append(new TreeMap<>(query));
+        if (body != null) {
+            key.append(' ').append(new String(body, StandardCharsets.UTF_8));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Записанные ответы, выдаваемые по кругу.
+     */
+    private static final class Responses {
+        private final List<RecordedExchange> exchanges = new ArrayList<>();
+        private final AtomicInteger cursor = new AtomicInteger();
+
+        void add(RecordedExchange exchange) {
+            exchanges.add(exchange);
+        }
+
+        RecordedExchange next() {
+            return exchanges.get(Math.floorMod(cursor.getAndIncrement(), exchanges.size()));
+        }
+    }
+}
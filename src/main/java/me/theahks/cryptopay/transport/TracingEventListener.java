@@ -0,0 +1,110 @@
+package me.theahks.cryptopay.transport;
+
+import me.theahks.cryptopay.util.CallTrace;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Request;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+/**
+ * Слушатель событий OkHttp, заполняющий {@link CallTrace} для одного вызова.
+ * Трассировка передается через тег запроса, поэтому вызовы без тега не отслеживаются.
+ */
+class TracingEventListener extends EventListener {
+    /**
+     * Фабрика слушателей: создает слушатель только для запросов с тегом {@link CallTrace}.
+     */
+    static final EventListener.Factory FACTORY = call -> {
+        CallTrace trace = call.request().tag(CallTrace.class);
+        return trace != null ? new TracingEventListener(trace) : EventListener.NONE;
+    };
+
+    private final CallTrace trace;
+
+    private long dnsStart;
+    private long connectStart;
+    private long secureConnectStart;
+    private long requestSent;
+    private long responseBodyStart;
+    private boolean connected;
+
+    private TracingEventListener(CallTrace trace) {
+        this.trace = trace;
+    }
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+        dnsStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+        trace.setDnsNanos(trace.getDnsNanos() + System.nanoTime() - dnsStart);
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        connectStart = System.nanoTime();
+        connected = true;
+    }
+
+    @Override
+    public void secureConnectStart(Call call) {
+        secureConnectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectEnd(Call call, Handshake handshake) {
+        trace.setTlsNanos(trace.getTlsNanos() + System.nanoTime() - secureConnectStart);
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        trace.setConnectNanos(trace.getConnectNanos() + System.nanoTime() - connectStart);
+    }
+
+    @Override
+    public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy,
+                              Protocol protocol, IOException ioe) {
+        trace.setConnectNanos(trace.getConnectNanos() + System.nanoTime() - connectStart);
+    }
+
+    @Override
+    public void connectionAcquired(Call call, Connection connection) {
+        trace.setConnectionReused(!connected);
+    }
+
+    @Override
+    public void requestHeadersEnd(Call call, Request request) {
+        requestSent = System.nanoTime();
+    }
+
+    @Override
+    public void requestBodyEnd(Call call, long byteCount) {
+        requestSent = System.nanoTime();
+    }
+
+    @Override
+    public void responseHeadersStart(Call call) {
+        trace.setTtfbNanos(System.nanoTime() - requestSent);
+    }
+
+    @Override
+    public void responseBodyStart(Call call) {
+        responseBodyStart = System.nanoTime();
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+        trace.setBodyReadNanos(System.nanoTime() - responseBodyStart);
+    }
+}
@@ -0,0 +1,61 @@
+package me.theahks.cryptopay.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Транспорт, выполняющий HTTP-обмен с CryptoBot API.
+ * <p>
+ * Отвечает только за передачу байтов: сериализация, проверка статуса и десериализация
+ * выполняются в {@link me.theahks.cryptopay.util.HttpClient}. Реализации должны быть потокобезопасными.
+ */
+public interface Transport extends Closeable {
+
+    /**
+     * Выполняет запрос и полностью читает тело ответа.
+     *
+     * @param request запрос
+     * @return ответ
+     * @throws IOException если запрос не удалось выполнить
+     */
+    TransportResponse execute(TransportRequest request) throws IOException;
+
+    /**
+     * Выполняет запрос асинхронно. Реализация по умолчанию выполняет {@link #execute}
+     * в общем пуле; транспорты с собственной асинхронной моделью переопределяют этот метод.
+     *
+     * @param request запрос
+     * @return будущий ответ; при ошибке ввода-вывода завершается {@link UncheckedIOException}
+     */
+    default CompletableFuture<TransportResponse> executeAsync(TransportRequest request) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return execute(request);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Заранее разрешает DNS и открывает соединения с сервером, чтобы первый вызов API
+     * не тратил время на установку соединения. По умолчанию ничего не делает.
+     *
+     * @param url адрес сервера API
+     * @param connections желаемое количество открытых соединений
+     * @throws IOException если сервер недоступен
+     */
+    default void warmUp(String url, int connections) throws IOException {
+    }
+
+    /**
+     * Освобождает ресурсы транспорта. По умолчанию ничего не делает.
+     *
+     * @throws IOException если при закрытии возникла ошибка
+     */
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,64 @@
+package me.theahks.cryptopay.transport;
+
+import me.theahks.cryptopay.util.CallTrace;
+import me.theahks.cryptopay.util.Deadline;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Запрос к API на уровне транспорта.
+ */
+@Getter
+@Builder
+public class TransportRequest {
+    /**
+     * HTTP-метод: "GET" или "POST".
+     */
+    private final String httpMethod;
+
+    /**
+     * Имя метода API, например "getInvoices".
+     */
+    private final String apiMethod;
+
+    /**
+     * Полный URL запроса, включая строку запроса.
+     */
+    private final String url;
+
+    /**
+     * Параметры строки запроса (уже включены в {@link #url}).
+     */
+    @Builder.Default
+    private final Map<String, String> queryParams = Collections.emptyMap();
+
+    /**
+     * Заголовки запроса.
+     */
+    @Builder.Default
+    private final Map<String, String> headers = Collections.emptyMap();
+
+    /**
+     * Тело запроса или null для запросов без тела.
+     */
+    private final byte[] body;
+
+    /**
+     * Тип содержимого тела запроса или null.
+     */
+    private final String contentType;
+
+    /**
+     * Трассировка вызова или null, если трассировка выключена.
+     */
+    private final CallTrace trace;
+
+    /**
+     * Крайний срок вызова или null, если срок не задан. Транспорты ограничивают им время запроса
+     * и прерывают запрос при отмене.
+     */
+    private final Deadline deadline;
+}
@@ -0,0 +1,65 @@
+package me.theahks.cryptopay.transport;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Ответ API на уровне транспорта с полностью прочитанным телом.
+ */
+@Getter
+@AllArgsConstructor
+public class TransportResponse {
+    /**
+     * HTTP-статус.
+     */
+    private final int code;
+
+    /**
+     * Текстовое сообщение статуса (может быть пустым).
+     */
+    private final String message;
+
+    /**
+     * Тело ответа (пустой массив, если тела нет).
+     */
+    private final byte[] body;
+
+    /**
+     * Заголовки ответа (по одному значению на имя, имена в нижнем регистре).
+     */
+    private final Map<String, String> headers;
+
+    /**
+     * Создает ответ без заголовков.
+     *
+     * @param code HTTP-статус
+     * @param message сообщение статуса
+     * @param body тело ответа
+     */
+    public TransportResponse(int code, String message, byte[] body) {
+        this(code, message, body, Collections.emptyMap());
+    }
+
+    /**
+     * Проверяет, является ли статус успешным (2xx).
+     *
+     * @return true для статусов 200–299
+     */
+    public boolean isSuccessful() {
+        return code >= 200 && code < 300;
+    }
+
+    /**
+     * Возвращает значение заголовка без учета регистра имени.
+     *
+     * @param name имя заголовка
+     * @return значение или null
+     */
+    public String header(String name) {
+        return headers.get(name.toLowerCase(Locale.ROOT));
+    }
+}
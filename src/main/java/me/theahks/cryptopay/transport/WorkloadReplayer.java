@@ -0,0 +1,173 @@
+package me.theahks.cryptopay.transport;
+
+import me.theahks.cryptopay.model.ApiResponse;
+import me.theahks.cryptopay.model.Asset;
+import me.theahks.cryptopay.model.Balance;
+import me.theahks.cryptopay.model.Check;
+import me.theahks.cryptopay.model.ExchangeRate;
+import me.theahks.cryptopay.model.Invoice;
+import me.theahks.cryptopay.model.Transfer;
+import me.theahks.cryptopay.util.HttpClient;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Воспроизводит записанную нагрузку через {@link HttpClient}: те же методы, параметры и тела запросов,
+ * с исходными интервалами между вызовами или с максимальной скоростью.
+ * <p>
+ * Для работы без сети клиент должен использовать {@link ReplayTransport}. Ответы десериализуются
+ * в те же модели, что и в {@code CryptoPay}, поэтому измеряется полный путь обработки вызова.
+ */
+@Slf4j
+public class WorkloadReplayer {
+    private static final TypeReference<ApiResponse<JsonNode>> GENERIC = new TypeReference<ApiResponse<JsonNode>>() {};
+    private static final Map<String, TypeReference<?>> RESPONSE_TYPES = ImmutableMap.<String, TypeReference<?>>builder()
+            .put("getMe", new TypeReference<ApiResponse<Map<String, Object>>>() {})
+            .put("createInvoice", new TypeReference<ApiResponse<Invoice>>() {})
+            .put("getInvoice", new TypeReference<ApiResponse<Invoice>>() {})
+            .put("getInvoices", new TypeReference<ApiResponse<List<Invoice>>>() {})
+            .put("createCheck", new TypeReference<ApiResponse<Check>>() {})
+            .put("getCheck", new TypeReference<ApiResponse<Check>>() {})
+            .put("getChecks", new TypeReference<ApiResponse<List<Check>>>() {})
+            .put("transfer", new TypeReference<ApiResponse<Transfer>>() {})
+            .put("getTransfers", new TypeReference<ApiResponse<List<Transfer>>>() {})
+            .put("getBalance", new TypeReference<ApiResponse<List<Balance>>>() {})
+            .put("getExchangeRates", new TypeReference<ApiResponse<List<ExchangeRate>>>() {})
+            .put("getCurrencies", new TypeReference<ApiResponse<List<Asset>>>() {})
+            .build();
+
+    private final HttpClient httpClient;
+    private final List<RecordedExchange> exchanges;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Создает воспроизводитель нагрузки.
+     *
+     * @param httpClient клиент, через который выполняются вызовы
+     * @param exchanges записанные обмены
+     */
+    public WorkloadReplayer(HttpClient httpClient, List<RecordedExchange> exchanges) {
+        this.httpClient = Preconditions.checkNotNull(httpClient, "HttpClient не может быть null");
+        this.exchanges = exchanges;
+    }
+
+    /**
+     * Воспроизводит нагрузку и ждет завершения всех вызовов.
+     *
+     * @param timing соблюдать исходные интервалы или выполнять вызовы без пауз
+     * @param concurrency число параллельных потоков
+     * @return итог воспроизведения
+     * @throws InterruptedException если поток был прерван
+     */
+    public Report replay(ReplayTiming timing, int concurrency) throws InterruptedException {
+        Preconditions.checkArgument(concurrency > 0, "Число потоков должно быть положительным");
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        LongAdder failures = new LongAdder();
+        LongAdder latencyNanos = new LongAdder();
+        List<Future<?>> futures = new ArrayList<>(exchanges.size());
+        long start = System.nanoTime();
+        try {
+            for (RecordedExchange exchange : exchanges) {
+                if (timing == ReplayTiming.ORIGINAL) {
+                    long wait = exchange.getOffsetNanos() - (System.nanoTime() - start);
+                    if (wait > 0) {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    }
+                }
+                futures.add(executor.submit(() -> {
+                    long callStart = System.nanoTime();
+                    try {
+                        call(exchange);
+                    } catch (RuntimeException e) {
+                        failures.increment();
+                        log.debug("Воспроизведенный вызов {} завершился ошибкой", exchange.getApiMethod(), e);
+                    } finally {
+                        latencyNanos.add(System.nanoTime() - callStart);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    failures.increment();
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return Report.builder()
+                .calls(futures.size())
+                .failures(failures.sum())
+                .wallNanos(System.nanoTime() - start)
+                .totalLatencyNanos(latencyNanos.sum())
+                .build();
+    }
+
+    private void call(RecordedExchange exchange) {
+        TypeReference<?> type = RESPONSE_TYPES.getOrDefault(exchange.getApiMethod(), GENERIC);
+        if ("POST".equals(exchange.getHttpMethod())) {
+            httpClient.post(exchange.getApiMethod(), body(exchange.getRequestBody()), type);
+        } else {
+            httpClient.get(exchange.getApiMethod(), exchange.getQueryParams(), type);
+        }
+    }
+
+    private JsonNode body(byte[] requestBody) {
+        if (requestBody == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(requestBody);
+        } catch (IOException e) {
+            throw new IllegalStateException("Некорректное тело записанного запроса", e);
+        }
+    }
+
+    /**
+     * Итог воспроизведения нагрузки.
+     */
+    @Getter
+    @Builder
+    public static class Report {
+        private final long calls;
+        private final long failures;
+        private final long wallNanos;
+        private final long totalLatencyNanos;
+
+        /**
+         * Пропускная способность в вызовах в секунду.
+         *
+         * @return вызовов в секунду
+         */
+        public double getThroughput() {
+            return wallNanos == 0 ? 0 : calls * 1e9 / wallNanos;
+        }
+
+        /**
+         * Средняя задержка вызова в наносекундах.
+         *
+         * @return средняя задержка
+         */
+        public long getAverageLatencyNanos() {
+            return calls == 0 ? 0 : totalLatencyNanos / calls;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package me.theahks.cryptopay.util;
+
+import com.google.common.base.Preconditions;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Параметры вызовов API, действующие в текущем потоке.
+ * Позволяет переопределить приоритет и задать крайний срок вызовов без изменения сигнатур методов клиента.
+ */
+public final class CallContext {
+    private static final ThreadLocal<Priority> PRIORITY = new ThreadLocal<>();
+    private static final ThreadLocal<Deadline> DEADLINE = new ThreadLocal<>();
+
+    private CallContext() {
+    }
+
+    /**
+     * Возвращает приоритет, заданный для текущего потока.
+     *
+     * @return приоритет или null, если используется приоритет метода по умолчанию
+     */
+    public static Priority currentPriority() {
+        return PRIORITY.get();
+    }
+
+    /**
+     * Выполняет действие с заданным приоритетом всех вызовов API в текущем потоке.
+     *
+     * @param priority приоритет
+     * @param action действие
+     * @param <T> тип результата
+     * @return результат действия
+     */
+    public static <T> T withPriority(Priority priority, Supplier<T> action) {
+        Preconditions.checkNotNull(priority, "Приоритет не может быть null");
+        Priority previous = PRIORITY.get();
+        PRIORITY.set(priority);
+        try {
+            return action.get();
+        } finally {
+            if (previous != null) {
+                PRIORITY.set(previous);
+            } else {
+                PRIORITY.remove();
+            }
+        }
+    }
+
+    /**
+     * Возвращает крайний срок, заданный для текущего потока.
+     *
+     * @return срок или null, если вызовы не ограничены сроком
+     */
+    public static Deadline currentDeadline() {
+        return DEADLINE.get();
+    }
+
+    /**
+     * Выполняет действие, ограничивая все вызовы API в текущем потоке заданным сроком.
+     * Срок заменяет внешний; чтобы учесть внешний срок, создайте срок через {@link Deadline#after(Duration, Deadline)}.
+     *
+     * @param deadline срок
+     * @param action действие
+     * @param <T> тип результата
+     * @return результат действия
+     */
+    public static <T> T withDeadline(Deadline deadline, Supplier<T> action) {
+        Preconditions.checkNotNull(deadline, "Срок не может быть null");
+        Deadline previous = DEADLINE.get();
+        DEADLINE.set(deadline);
+        try {
+            return action.get();
+        } finally {
+            if (previous != null) {
+                DEADLINE.set(previous);
+            } else {
+                DEADLINE.remove();
+            }
+        }
+    }
+
+    /**
+     * Оборачивает действие так, чтобы в другом потоке (например, в пуле исполнителя) оно выполнялось
+     * с приоритетом и сроком, заданными в текущем потоке на момент вызова этого метода.
+     *
+     * @param action действие
+     * @param <T> тип результата
+     * @return действие с перенесенными параметрами вызовов
+     */
+    public static <T> Supplier<T> capture(Supplier<T> action) {
+        Priority priority = PRIORITY.get();
+        Deadline deadline = DEADLINE.get();
+        Supplier<T> withCapturedDeadline = deadline != null ? () -> withDeadline(deadline, action) : action;
+        return priority != null ? () -> withPriority(priority, withCapturedDeadline) : withCapturedDeadline;
+    }
+
+    /**
+     * Выполняет действие, ограничивая все вызовы API в текущем потоке временем timeout,
+     * но не дольше внешнего срока, если он задан.
+     *
+     * @param timeout время на выполнение вызовов
+     * @param action действие
+     * @param <T> тип результата
+     * @return результат действия
+     */
+    public static <T> T withTimeout(Duration timeout, Supplier<T> action) {
+        return withDeadline(Deadline.after(timeout, DEADLINE.get()), action);
+    }
+}
@@ -0,0 +1,92 @@
+package me.theahks.cryptopay.util;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбивка времени выполнения одного вызова API по фазам соединения.
+ * Заполняется только при включенной трассировке: сетевые фазы — транспортом,
+ * время десериализации и общее время — клиентом.
+ */
+@Getter
+@Setter
+public class CallTrace {
+    /**
+     * Имя метода API.
+     */
+    private final String method;
+
+    /**
+     * Время разрешения DNS в наносекундах (0, если DNS не запрашивался).
+     */
+    private long dnsNanos;
+
+    /**
+     * Время установки TCP-соединения в наносекундах, включая TLS.
+     */
+    private long connectNanos;
+
+    /**
+     * Время TLS-рукопожатия в наносекундах.
+     */
+    private long tlsNanos;
+
+    /**
+     * Было ли переиспользовано соединение из пула.
+     */
+    private boolean connectionReused;
+
+    /**
+     * Время от отправки запроса до получения первого байта ответа в наносекундах.
+     */
+    private long ttfbNanos;
+
+    /**
+     * Время чтения тела ответа в наносекундах.
+     */
+    private long bodyReadNanos;
+
+    /**
+     * Время десериализации ответа в наносекундах.
+     */
+    private long deserializationNanos;
+
+    /**
+     * Общее время вызова в наносекундах.
+     */
+    private long totalNanos;
+
+    /**
+     * Признак успешного завершения вызова.
+     */
+    private boolean success;
+
+    /**
+     * Создает пустую трассировку для указанного метода API.
+     *
+     * @param method имя метода API
+     */
+    public CallTrace(String method) {
+        this.method = method;
+    }
+
+    @Override
+    public String toString() {
+        return "CallTrace{" + method
+                + ", total=" + millis(totalNanos)
+                + ", dns=" + millis(dnsNanos)
+                + ", connect=" + millis(connectNanos)
+                + ", tls=" + millis(tlsNanos)
+                + ", reused=" + connectionReused
+                + ", ttfb=" + millis(ttfbNanos)
+                + ", bodyRead=" + millis(bodyReadNanos)
+                + ", deserialization=" + millis(deserializationNanos)
+                + ", success=" + success + "}";
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3fms", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,160 @@
+package me.theahks.cryptopay.util;
+
+import me.theahks.cryptopay.exception.CircuitOpenException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+
+/**
+ * Автомат защиты одного метода API.
+ * <p>
+ * В замкнутом состоянии результаты последних вызовов накапливаются в кольцевом окне. Когда доля ошибок
+ * или медленных вызовов превышает порог, автомат размыкается и вызовы сразу завершаются
+ * {@link CircuitOpenException}. По истечении времени размыкания пропускается ограниченное число пробных
+ * вызовов: если все они успешны, автомат замыкается, иначе снова размыкается.
+ */
+@Slf4j
+public class CircuitBreaker {
+    /**
+     * Состояние автомата.
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    private final String apiMethod;
+    private final CircuitBreakerConfig config;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final byte[] window;
+
+    private State state = State.CLOSED;
+    private int position;
+    private int recorded;
+    private int failures;
+    private int slowCalls;
+    private long openedAt;
+    private int probesStarted;
+    private int probesSucceeded;
+
+    /**
+     * Создает автомат защиты для метода API.
+     *
+     * @param apiMethod имя метода API
+     * @param config настройки автомата
+     */
+    public CircuitBreaker(String apiMethod, CircuitBreakerConfig config) {
+        this.apiMethod = apiMethod;
+        this.config = config;
+        this.slowCallNanos = config.getSlowCallDuration().toNanos();
+        this.openNanos = config.getOpenDuration().toNanos();
+        this.window = new byte[config.getWindowSize()];
+    }
+
+    /**
+     * Проверяет, можно ли выполнить вызов.
+     *
+     * @throws CircuitOpenException если автомат разомкнут или все пробные вызовы уже выполняются
+     */
+    public synchronized void acquirePermission() {
+        if (state == State.OPEN) {
+            long remaining = openedAt + openNanos - System.nanoTime();
+            if (remaining > 0) {
+                throw new CircuitOpenException(apiMethod, Duration.ofNanos(remaining));
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesStarted >= config.getHalfOpenCalls()) {
+                throw new CircuitOpenException(apiMethod, Duration.ZERO);
+            }
+            probesStarted++;
+        }
+    }
+
+    /**
+     * Учитывает результат вызова, для которого было получено разрешение.
+     *
+     * @param durationNanos длительность вызова в наносекундах
+     * @param failed признак ошибки, говорящей о недоступности API
+     */
+    public synchronized void onResult(long durationNanos, boolean failed) {
+        boolean slow = durationNanos >= slowCallNanos;
+        if (state == State.HALF_OPEN) {
+            if (failed || slow) {
+                open();
+            } else if (++probesSucceeded >= config.getHalfOpenCalls()) {
+                transition(State.CLOSED);
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            return;
+        }
+
+        byte outcome = (byte) ((failed ? FAILED : 0) | (slow ? SLOW : 0));
+        if (recorded == window.length) {
+            byte evicted = window[position];
+            failures -= evicted & FAILED;
+            slowCalls -= (evicted & SLOW) >> 1;
+        } else {
+            recorded++;
+        }
+        window[position] = outcome;
+        position = (position + 1) % window.length;
+        failures += outcome & FAILED;
+        slowCalls += (outcome & SLOW) >> 1;
+
+        if (recorded >= config.getMinimumCalls()
+                && (failures >= config.getFailureRateThreshold() * recorded
+                || slowCalls >= config.getSlowCallRateThreshold() * recorded)) {
+            open();
+        }
+    }
+
+    /**
+     * Освобождает разрешение вызова, прерванного по его собственному сроку или отмене. Такой вызов
+     * ничего не говорит о доступности API, поэтому не попадает в окно, а в полуоткрытом состоянии
+     * освобождает место пробного вызова.
+     */
+    public synchronized void onAbandoned() {
+        if (state == State.HALF_OPEN && probesStarted > 0) {
+            probesStarted--;
+        }
+    }
+
+    /**
+     * Возвращает текущее состояние автомата.
+     *
+     * @return состояние
+     */
+    public synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    private void open() {
+        openedAt = System.nanoTime();
+        transition(State.OPEN);
+    }
+
+    private void transition(State next) {
+        log.warn("Автомат защиты метода {}: {} -> {}", apiMethod, state, next);
+        state = next;
+        probesStarted = 0;
+        probesSucceeded = 0;
+        if (next == State.CLOSED) {
+            recorded = 0;
+            position = 0;
+            failures = 0;
+            slowCalls = 0;
+        }
+    }
+}
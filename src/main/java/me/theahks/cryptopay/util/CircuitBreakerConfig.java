@@ -0,0 +1,93 @@
+package me.theahks.cryptopay.util;
+
+import com.google.common.base.Preconditions;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Настройки автомата защиты вызовов API. Автомат создается отдельно для каждого метода API.
+ */
+@Getter
+public class CircuitBreakerConfig {
+    private static final int DEFAULT_WINDOW_SIZE = 50;
+    private static final int DEFAULT_MINIMUM_CALLS = 10;
+    private static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+    private static final double DEFAULT_SLOW_CALL_RATE_THRESHOLD = 0.8;
+    private static final Duration DEFAULT_SLOW_CALL_DURATION = Duration.ofSeconds(5);
+    private static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(30);
+    private static final int DEFAULT_HALF_OPEN_CALLS = 3;
+
+    /**
+     * Количество последних вызовов, по которым считаются доли ошибок и медленных вызовов.
+     */
+    private final int windowSize;
+
+    /**
+     * Минимальное количество вызовов в окне, после которого автомат может разомкнуться.
+     */
+    private final int minimumCalls;
+
+    /**
+     * Доля ошибок (сетевых, 5xx и 429), при которой автомат размыкается.
+     */
+    private final double failureRateThreshold;
+
+    /**
+     * Доля медленных вызовов, при которой автомат размыкается.
+     */
+    private final double slowCallRateThreshold;
+
+    /**
+     * Длительность, начиная с которой вызов считается медленным.
+     */
+    private final Duration slowCallDuration;
+
+    /**
+     * Время в разомкнутом состоянии до перехода к пробным вызовам.
+     */
+    private final Duration openDuration;
+
+    /**
+     * Количество успешных пробных вызовов, после которого автомат замыкается.
+     */
+    private final int halfOpenCalls;
+
+    /**
+     * Создает настройки автомата защиты.
+     *
+     * @param windowSize размер окна последних вызовов (по умолчанию 50)
+     * @param minimumCalls минимальное количество вызовов в окне, не больше размера окна (по умолчанию 10)
+     * @param failureRateThreshold доля ошибок от 0 до 1 (по умолчанию 0.5)
+     * @param slowCallRateThreshold доля медленных вызовов от 0 до 1 (по умолчанию 0.8)
+     * @param slowCallDuration длительность медленного вызова (по умолчанию 5 с)
+     * @param openDuration время в разомкнутом состоянии (по умолчанию 30 с)
+     * @param halfOpenCalls количество пробных вызовов (по умолчанию 3)
+     */
+    @Builder
+    public CircuitBreakerConfig(Integer windowSize, Integer minimumCalls, Double failureRateThreshold,
+                                Double slowCallRateThreshold, Duration slowCallDuration, Duration openDuration,
+                                Integer halfOpenCalls) {
+        this.windowSize = windowSize != null ? windowSize : DEFAULT_WINDOW_SIZE;
+        this.minimumCalls = minimumCalls != null ? minimumCalls : Math.min(DEFAULT_MINIMUM_CALLS, this.windowSize);
+        this.failureRateThreshold = failureRateThreshold != null ? failureRateThreshold : DEFAULT_FAILURE_RATE_THRESHOLD;
+        this.slowCallRateThreshold = slowCallRateThreshold != null ? slowCallRateThreshold
+                : DEFAULT_SLOW_CALL_RATE_THRESHOLD;
+        this.slowCallDuration = slowCallDuration != null ? slowCallDuration : DEFAULT_SLOW_CALL_DURATION;
+        this.openDuration = openDuration != null ? openDuration : DEFAULT_OPEN_DURATION;
+        this.halfOpenCalls = halfOpenCalls != null ? halfOpenCalls : DEFAULT_HALF_OPEN_CALLS;
+
+        Preconditions.checkArgument(this.windowSize > 0, "Размер окна должен быть положительным");
+        Preconditions.checkArgument(this.minimumCalls > 0 && this.minimumCalls <= this.windowSize,
+                "Минимальное количество вызовов должно быть от 1 до размера окна");
+        Preconditions.checkArgument(this.failureRateThreshold >= 0 && this.failureRateThreshold <= 1,
+                "Доля ошибок должна быть от 0 до 1");
+        Preconditions.checkArgument(this.slowCallRateThreshold >= 0 && this.slowCallRateThreshold <= 1,
+                "Доля медленных вызовов должна быть от 0 до 1");
+        Preconditions.checkArgument(!this.slowCallDuration.isNegative() && !this.slowCallDuration.isZero(),
+                "Длительность медленного вызова должна быть положительной");
+        Preconditions.checkArgument(!this.openDuration.isNegative(), "Время размыкания не может быть отрицательным");
+        Preconditions.checkArgument(this.halfOpenCalls > 0, "Количество пробных вызовов должно быть положительным");
+    }
+}
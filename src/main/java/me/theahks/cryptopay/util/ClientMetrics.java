@@ -0,0 +1,136 @@
+package me.theahks.cryptopay.util;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Накопительные метрики вызовов API одного клиента.
+ * Разбивка по фазам соединения собирается только при включенной трассировке.
+ */
+public class ClientMetrics {
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder tracedCalls = new LongAdder();
+    private final LongAdder reusedConnections = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder dnsNanos = new LongAdder();
+    private final LongAdder connectNanos = new LongAdder();
+    private final LongAdder tlsNanos = new LongAdder();
+    private final LongAdder ttfbNanos = new LongAdder();
+    private final LongAdder bodyReadNanos = new LongAdder();
+    private final LongAdder deserializationNanos = new LongAdder();
+
+    /**
+     * Учитывает завершенный вызов без трассировки.
+     *
+     * @param success признак успешного завершения
+     */
+    void recordCall(boolean success) {
+        calls.increment();
+        if (!success) {
+            failures.increment();
+        }
+    }
+
+    /**
+     * Учитывает завершенный вызов вместе с его трассировкой.
+     *
+     * @param trace трассировка вызова
+     */
+    void record(CallTrace trace) {
+        recordCall(trace.isSuccess());
+        tracedCalls.increment();
+        if (trace.isConnectionReused()) {
+            reusedConnections.increment();
+        }
+        totalNanos.add(trace.getTotalNanos());
+        dnsNanos.add(trace.getDnsNanos());
+        connectNanos.add(trace.getConnectNanos());
+        tlsNanos.add(trace.getTlsNanos());
+        ttfbNanos.add(trace.getTtfbNanos());
+        bodyReadNanos.add(trace.getBodyReadNanos());
+        deserializationNanos.add(trace.getDeserializationNanos());
+    }
+
+    /**
+     * Возвращает текущий снимок метрик.
+     *
+     * @return снимок метрик
+     */
+    public Snapshot snapshot() {
+        return Snapshot.builder()
+                .calls(calls.sum())
+                .failures(failures.sum())
+                .tracedCalls(tracedCalls.sum())
+                .reusedConnections(reusedConnections.sum())
+                .totalNanos(totalNanos.sum())
+                .dnsNanos(dnsNanos.sum())
+                .connectNanos(connectNanos.sum())
+                .tlsNanos(tlsNanos.sum())
+                .ttfbNanos(ttfbNanos.sum())
+                .bodyReadNanos(bodyReadNanos.sum())
+                .deserializationNanos(deserializationNanos.sum())
+                .build();
+    }
+
+    /**
+     * Снимок накопленных метрик. Суммы времени указаны в наносекундах.
+     */
+    @Getter
+    @Builder
+    public static class Snapshot {
+        private final long calls;
+        private final long failures;
+        private final long tracedCalls;
+        private final long reusedConnections;
+        private final long totalNanos;
+        private final long dnsNanos;
+        private final long connectNanos;
+        private final long tlsNanos;
+        private final long ttfbNanos;
+        private final long bodyReadNanos;
+        private final long deserializationNanos;
+
+        /**
+         * Доля трассированных вызовов, выполненных на переиспользованном соединении.
+         *
+         * @return доля от 0 до 1 или 0, если трассированных вызовов не было
+         */
+        public double getConnectionReuseRatio() {
+            return tracedCalls == 0 ? 0 : reusedConnections / (double) tracedCalls;
+        }
+
+        /**
+         * Среднее общее время трассированного вызова в наносекундах.
+         *
+         * @return среднее время или 0, если трассированных вызовов не было
+         */
+        public long getAverageTotalNanos() {
+            return tracedCalls == 0 ? 0 : totalNanos / tracedCalls;
+        }
+
+        /**
+         * Складывает два снимка, например метрики нескольких клиентов.
+         *
+         * @param other другой снимок
+         * @return сумма снимков
+         */
+        public Snapshot plus(Snapshot other) {
+            return Snapshot.builder()
+                    .calls(calls + other.calls)
+                    .failures(failures + other.failures)
+                    .tracedCalls(tracedCalls + other.tracedCalls)
+                    .reusedConnections(reusedConnections + other.reusedConnections)
+                    .totalNanos(totalNanos + other.totalNanos)
+                    .dnsNanos(dnsNanos + other.dnsNanos)
+                    .connectNanos(connectNanos + other.connectNanos)
+                    .tlsNanos(tlsNanos + other.tlsNanos)
+                    .ttfbNanos(ttfbNanos + other.ttfbNanos)
+                    .bodyReadNanos(bodyReadNanos + other.bodyReadNanos)
+                    .deserializationNanos(deserializationNanos + other.deserializationNanos)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package me.theahks.cryptopay.util;
+
+import me.theahks.cryptopay.exception.DeadlineExceededException;
+import com.google.common.base.Preconditions;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Крайний срок и отмена группы вызовов API.
+ * <p>
+ * Срок отсчитывается по {@link System#nanoTime()}. Дочерний срок истекает не позже родительского и
+ * отменяется вместе с ним. Отмена ({@link #cancel()}) может выполняться из любого потока: выполняющиеся
+ * HTTP-запросы прерываются, а ожидающие в очереди вызовы завершаются {@link DeadlineExceededException}.
+ */
+@Slf4j
+public final class Deadline {
+    private final long deadlineNanos;
+    private final Deadline parent;
+    private final Set<Runnable> listeners = new LinkedHashSet<>();
+    private volatile boolean cancelled;
+
+    private Deadline(long deadlineNanos, Deadline parent) {
+        this.deadlineNanos = parent != null && parent.deadlineNanos - deadlineNanos < 0
+                ? parent.deadlineNanos : deadlineNanos;
+        this.parent = parent;
+    }
+
+    /**
+     * Создает срок, истекающий через заданное время.
+     *
+     * @param timeout время до истечения срока
+     * @return срок
+     */
+    public static Deadline after(Duration timeout) {
+        return after(timeout, null);
+    }
+
+    /**
+     * Создает срок, истекающий через заданное время, но не позже родительского.
+     *
+     * @param timeout время до истечения срока
+     * @param parent родительский срок (может быть null)
+     * @return срок
+     */
+    public static Deadline after(Duration timeout, Deadline parent) {
+        Preconditions.checkNotNull(timeout, "Время до истечения срока не может быть null");
+        return new Deadline(System.nanoTime() + saturatedNanos(timeout), parent);
+    }
+
+    /**
+     * Возвращает оставшееся время.
+     *
+     * @return оставшееся время в наносекундах; 0, если срок истек или отменен
+     */
+    public long remainingNanos() {
+        if (isCancelled()) {
+            return 0;
+        }
+        return Math.max(0, deadlineNanos - System.nanoTime());
+    }
+
+    /**
+     * Возвращает оставшееся время.
+     *
+     * @return оставшееся время; {@link Duration#ZERO}, если срок истек или отменен
+     */
+    public Duration remaining() {
+        return Duration.ofNanos(remainingNanos());
+    }
+
+    /**
+     * Проверяет, истек ли срок или отменены ли вызовы.
+     *
+     * @return true, если новые вызовы начинать нельзя
+     */
+    public boolean isExpired() {
+        return remainingNanos() == 0;
+    }
+
+    /**
+     * Проверяет, отменены ли вызовы этим сроком или родительским.
+     *
+     * @return true, если срок отменен
+     */
+    public boolean isCancelled() {
+        return cancelled || parent != null && parent.isCancelled();
+    }
+
+    /**
+     * Выбрасывает исключение, если срок истек или отменен.
+     *
+     * @param apiMethod имя метода API для сообщения об ошибке
+     * @throws DeadlineExceededException если срок истек или отменен
+     */
+    public void check(String apiMethod) {
+        if (isExpired()) {
+            throw new DeadlineExceededException(apiMethod, isCancelled());
+        }
+    }
+
+    /**
+     * Отменяет все вызовы этого срока и дочерних сроков. Повторная отмена ничего не делает.
+     */
+    public void cancel() {
+        List<Runnable> toNotify;
+        synchronized (listeners) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            toNotify = new ArrayList<>(listeners);
+            listeners.clear();
+        }
+        for (Runnable listener : toNotify) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                log.warn("Ошибка в обработчике отмены вызова", e);
+            }
+        }
+    }
+
+    /**
+     * Регистрирует действие, выполняемое при отмене этого срока или родительского. Если срок уже
+     * отменен, действие выполняется сразу.
+     *
+     * @param listener действие при отмене
+     * @return регистрация, закрытие которой снимает действие
+     */
+    public Registration onCancel(Runnable listener) {
+        Preconditions.checkNotNull(listener, "Действие при отмене не может быть null");
+        List<Deadline> registered = new ArrayList<>();
+        for (Deadline deadline = this; deadline != null; deadline = deadline.parent) {
+            boolean added;
+            synchronized (deadline.listeners) {
+                added = !deadline.cancelled && deadline.listeners.add(listener);
+            }
+            if (!added) {
+                unregister(registered, listener);
+                listener.run();
+                return () -> {
+                };
+            }
+            registered.add(deadline);
+        }
+        return () -> unregister(registered, listener);
+    }
+
+    private static void unregister(List<Deadline> registered, Runnable listener) {
+        for (Deadline deadline : registered) {
+            synchronized (deadline.listeners) {
+                deadline.listeners.remove(listener);
+            }
+        }
+    }
+
+    private static long saturatedNanos(Duration timeout) {
+        try {
+            return Math.max(0, timeout.toNanos());
+        } catch (ArithmeticException e) {
+            return timeout.isNegative() ? 0 : Long.MAX_VALUE / 2;
+        }
+    }
+
+    /**
+     * Регистрация действия при отмене.
+     */
+    @FunctionalInterface
+    public interface Registration extends AutoCloseable {
+        /**
+         * Снимает действие при отмене.
+         */
+        @Override
+        void close();
+    }
+}
@@ -1,29 +1,66 @@
 package me.theahks.cryptopay.util;
 
 import me.theahks.cryptopay.exception.CryptoPayApiException;
+import me.theahks.cryptopay.exception.DeadlineExceededException;
+import me.theahks.cryptopay.jfr.ApiCallEvent;
+import me.theahks.cryptopay.model.ApiResponse;
+import me.theahks.cryptopay.transport.OkHttpTransport;
+import me.theahks.cryptopay.transport.Transport;
+import me.theahks.cryptopay.transport.TransportRequest;
+import me.theahks.cryptopay.transport.TransportResponse;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.RateLimiter;
+import lombok.Builder;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
-import okhttp3.*;
+import okhttp3.HttpUrl;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Утилитный класс для выполнения HTTP-запросов к CryptoBot API.
+ * Сетевой обмен делегируется {@link Transport}; по умолчанию используется {@link OkHttpTransport}.
  */
 @Slf4j
 public class HttpClient {
-    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
-    private static final int TIMEOUT_SECONDS = 30;
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final String TOKEN_HEADER = "Crypto-Pay-API-Token";
+    private static final byte[] PRIMING_RESPONSE = "{\"ok\":true,\"result\":null}".getBytes(StandardCharsets.UTF_8);
+    private static final TypeReference<ApiResponse<JsonNode>> ERROR_RESPONSE = new TypeReference<ApiResponse<JsonNode>>() {};
+    private static final LogThrottle ERROR_LOG = new LogThrottle(Duration.ofSeconds(10));
 
-    private final OkHttpClient httpClient;
+    private final Transport transport;
     private final ObjectMapper objectMapper;
-    private final String apiToken;
     private final String baseUrl;
+    private final Map<String, String> headers;
+    private final boolean tracing;
+    private final Consumer<CallTrace> traceListener;
+    private final RequestDispatcher dispatcher;
+    private final RateLimiter rateLimiter;
+    private final CircuitBreakerConfig circuitBreakerConfig;
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    /**
+     * Накопительные метрики вызовов этого клиента.
+     */
+    @Getter
+    private final ClientMetrics metrics = new ClientMetrics();
 
     /**
      * Создает экземпляр HttpClient с заданным API токеном и базовым URL.
@@ -32,22 +69,95 @@ public class HttpClient {
      * @param baseUrl базовый URL API
      */
     public HttpClient(String apiToken, String baseUrl) {
+        this(apiToken, baseUrl, null, false, null, null, null, 0);
+    }
+
+    /**
+     * Создает экземпляр HttpClient с заданным API токеном, базовым URL, транспортом, настройками трассировки
+     * и диспетчером запросов.
+     *
+     * @param apiToken токен API
+     * @param baseUrl базовый URL API
+     * @param transport транспорт (по умолчанию {@link OkHttpTransport})
+     * @param tracing включает разбивку времени вызовов по фазам соединения
+     * @param traceListener получатель трассировок завершенных вызовов (может быть null)
+     * @param dispatcher диспетчер одновременных вызовов с полосами приоритета (null — количество
+     *                   одновременных вызовов не ограничивается)
+     * @param circuitBreaker настройки автоматов защиты методов API (null — автоматы отключены)
+     * @param rateLimit допустимое количество запросов в секунду (0 — без ограничения)
+     */
+    @Builder
+    public HttpClient(String apiToken, String baseUrl, Transport transport, boolean tracing,
+                      Consumer<CallTrace> traceListener, RequestDispatcher dispatcher,
+                      CircuitBreakerConfig circuitBreaker, double rateLimit) {
         Preconditions.checkNotNull(apiToken, "API токен не может быть null");
         Preconditions.checkNotNull(baseUrl, "Базовый URL не может быть null");
-        
-        this.apiToken = apiToken;
+        Preconditions.checkArgument(rateLimit >= 0, "Лимит запросов не может быть отрицательным");
+
         this.baseUrl = baseUrl;
-        
-        this.httpClient = new OkHttpClient.Builder()
-                .connectTimeout(TIMEOUT_SECONDS, TimeUnit.SECONDS)
-                .readTimeout(TIMEOUT_SECONDS, TimeUnit.SECONDS)
-                .writeTimeout(TIMEOUT_SECONDS, TimeUnit.SECONDS)
-                .build();
-                
+        this.headers = ImmutableMap.of(TOKEN_HEADER, apiToken);
+        this.tracing = tracing;
+        this.traceListener = traceListener;
+        this.transport = transport != null ? transport : new OkHttpTransport(tracing);
+        this.dispatcher = dispatcher;
+        this.circuitBreakerConfig = circuitBreaker;
+        this.rateLimiter = rateLimit > 0 ? RateLimiter.create(rateLimit) : null;
+
         this.objectMapper = new ObjectMapper();
         JsonUtils.configureObjectMapper(this.objectMapper);
     }
 
+    /**
+     * Возвращает состояние автомата защиты метода API.
+     *
+     * @param apiMethod имя метода API
+     * @return состояние или null, если автоматы защиты отключены
+     */
+    public CircuitBreaker.State getCircuitState(String apiMethod) {
+        CircuitBreaker breaker = circuitBreaker(apiMethod);
+        return breaker != null ? breaker.getState() : null;
+    }
+
+    /**
+     * Разрешает DNS и открывает соединения с сервером API через транспорт.
+     *
+     * @param connections желаемое количество открытых соединений
+     * @throws CryptoPayApiException если сервер недоступен
+     */
+    public void warmUpConnections(int connections) {
+        try {
+            transport.warmUp(baseUrl, connections);
+        } catch (IOException e) {
+            throw new CryptoPayApiException("Ошибка при прогреве соединений", e);
+        }
+    }
+
+    /**
+     * Заранее строит десериализаторы указанных типов ответов, чтобы первый вызов не тратил на это время.
+     *
+     * @param types типы ответов
+     */
+    public void primeResponseTypes(TypeReference<?>... types) {
+        for (TypeReference<?> type : types) {
+            try {
+                objectMapper.readValue(PRIMING_RESPONSE, type);
+            } catch (IOException e) {
+                log.debug("Не удалось подготовить десериализатор {}", type.getType(), e);
+            }
+        }
+    }
+
+    /**
+     * Заранее строит сериализаторы указанных типов тел запросов.
+     *
+     * @param types типы тел запросов
+     */
+    public void primeRequestTypes(Class<?>... types) {
+        for (Class<?> type : types) {
+            objectMapper.writerFor(type);
+        }
+    }
+
     /**
      * Выполняет GET-запрос к указанному методу API.
      *
@@ -59,19 +169,46 @@ public class HttpClient {
      * @throws CryptoPayApiException если возникла ошибка при выполнении запроса
      */
     public <T> T get(String method, Map<String, String> params, TypeReference<T> typeReference) {
+        return executeRequest(getRequest(method, params), body -> objectMapper.readValue(body, typeReference));
+    }
+
+    /**
+     * Выполняет GET-запрос к указанному методу API и возвращает тело ответа без десериализации.
+     *
+     * @param method имя метода API
+     * @param params параметры запроса
+     * @return тело ответа в JSON
+     * @throws CryptoPayApiException если возникла ошибка при выполнении запроса
+     */
+    public byte[] getRaw(String method, Map<String, String> params) {
+        return executeRequest(getRequest(method, params), body -> body);
+    }
+
+    /**
+     * Возвращает ObjectMapper клиента, например для разбора тел, полученных через {@link #getRaw}.
+     *
+     * @return настроенный ObjectMapper
+     */
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    private TransportRequest getRequest(String method, Map<String, String> params) {
         HttpUrl.Builder urlBuilder = Objects.requireNonNull(HttpUrl.parse(baseUrl + method)).newBuilder();
-        
+
         if (params != null && !params.isEmpty()) {
             params.forEach(urlBuilder::addQueryParameter);
         }
-        
-        Request request = new Request.Builder()
-                .url(urlBuilder.build())
-                .header("Crypto-Pay-API-Token", apiToken)
-                .get()
+
+        return TransportRequest.builder()
+                .httpMethod("GET")
+                .apiMethod(method)
+                .url(urlBuilder.build().toString())
+                .queryParams(params != null ? params : Collections.emptyMap())
+                .headers(headers)
+                .trace(tracing ? new CallTrace(method) : null)
+                .deadline(CallContext.currentDeadline())
                 .build();
-        
-        return executeRequest(request, typeReference);
     }
 
     /**
@@ -86,23 +223,18 @@ public class HttpClient {
      */
     public <T> T post(String method, Object body, TypeReference<T> typeReference) {
         try {
-            String url = baseUrl + method;
-            
-            RequestBody requestBody = null;
-            if (body != null) {
-                String jsonBody = objectMapper.writeValueAsString(body);
-                requestBody = RequestBody.create(jsonBody, JSON);
-            } else {
-                requestBody = RequestBody.create("", null);
-            }
-            
-            Request request = new Request.Builder()
-                    .url(url)
-                    .header("Crypto-Pay-API-Token", apiToken)
-                    .post(requestBody)
+            TransportRequest request = TransportRequest.builder()
+                    .httpMethod("POST")
+                    .apiMethod(method)
+                    .url(baseUrl + method)
+                    .headers(headers)
+                    .body(body != null ? objectMapper.writeValueAsBytes(body) : null)
+                    .contentType(body != null ? JSON : null)
+                    .trace(tracing ? new CallTrace(method) : null)
+                    .deadline(CallContext.currentDeadline())
                     .build();
-            
-            return executeRequest(request, typeReference);
+
+            return executeRequest(request, responseBody -> objectMapper.readValue(responseBody, typeReference));
         } catch (IOException e) {
             throw new CryptoPayApiException("Ошибка при сериализации тела запроса", e);
         }
@@ -110,35 +242,276 @@ public class HttpClient {
 
     /**
      * Выполняет HTTP-запрос и обрабатывает ответ.
+     * Приоритет берется из {@link CallContext}, а если он не задан — из {@link Priority#forMethod(String)}.
+     * Если задан лимит частоты, разрешение ожидается до занятия места в диспетчере; это ожидание
+     * учитывается как время в очереди, а не как время сети, и не влияет на автомат защиты.
+     * Если в {@link CallContext} задан крайний срок, вызов не начинается после его истечения, а ожидание
+     * разрешения и места в очереди диспетчера ограничено оставшимся временем.
+     * При включенной записи JFR каждый вызов оформляется событием {@link ApiCallEvent}.
      *
-     * @param request HTTP-запрос
-     * @param typeReference ссылка на тип возвращаемого результата
+     * @param request запрос транспорта
+     * @param reader чтение результата из тела ответа
      * @param <T> тип возвращаемого результата
      * @return результат запроса
      * @throws CryptoPayApiException если возникла ошибка при выполнении запроса
+     * @throws DeadlineExceededException если срок вызова истек или вызов отменен
      */
-    private <T> T executeRequest(Request request, TypeReference<T> typeReference) {
-        try (Response response = httpClient.newCall(request).execute()) {
-            if (!response.isSuccessful()) {
-                throw new CryptoPayApiException(
-                        "Ошибка HTTP запроса: " + response.code() + " " + response.message(), null, null);
+    private <T> T executeRequest(TransportRequest request, BodyReader<T> reader) {
+        ApiCallEvent event = new ApiCallEvent();
+        if (!event.isEnabled()) {
+            return dispatch(request, reader, null);
+        }
+        event.begin();
+        try {
+            T result = dispatch(request, reader, event);
+            event.setSuccess(true);
+            return result;
+        } catch (RuntimeException e) {
+            Integer errorCode = e instanceof CryptoPayApiException ? ((CryptoPayApiException) e).getErrorCode() : null;
+            String errorName = e instanceof CryptoPayApiException ? ((CryptoPayApiException) e).getErrorName() : null;
+            event.setErrorCode(errorCode != null ? errorCode : 0);
+            event.setErrorName(errorName != null ? errorName : e.getClass().getSimpleName());
+            throw e;
+        } finally {
+            event.setEndpoint(request.getApiMethod());
+            event.setHttpMethod(request.getHttpMethod());
+            event.setBytesOut(request.getBody() != null ? request.getBody().length : 0);
+            event.commit();
+        }
+    }
+
+    private <T> T dispatch(TransportRequest request, BodyReader<T> reader, ApiCallEvent event) {
+        Priority priority = CallContext.currentPriority();
+        if (priority == null) {
+            priority = Priority.forMethod(request.getApiMethod());
+        }
+        Deadline deadline = request.getDeadline();
+        long queueStart = event != null ? System.nanoTime() : 0;
+        if (deadline == null) {
+            if (rateLimiter != null) {
+                rateLimiter.acquire();
             }
-            
-            ResponseBody responseBody = response.body();
-            if (responseBody == null) {
-                throw new CryptoPayApiException("Пустой ответ от сервера", null, null);
+            if (dispatcher != null) {
+                dispatcher.acquire(priority);
             }
-            
-            String responseString = responseBody.string();
-            log.debug("Ответ API: {}", responseString);
-            
-            try {
-                return objectMapper.readValue(responseString, typeReference);
-            } catch (IOException e) {
-                throw new CryptoPayApiException("Ошибка при десериализации ответа: " + responseString, e);
+        } else {
+            deadline.check(request.getApiMethod());
+            // Разрешение, которое не успеет освободиться до срока, не ожидается
+            boolean acquired = (rateLimiter == null
+                    || rateLimiter.tryAcquire(deadline.remainingNanos(), TimeUnit.NANOSECONDS))
+                    && (dispatcher == null || dispatcher.tryAcquire(priority, deadline));
+            if (!acquired) {
+                if (event != null) {
+                    event.setQueueTime(System.nanoTime() - queueStart);
+                }
+                throw new DeadlineExceededException(request.getApiMethod(), deadline.isCancelled());
             }
+        }
+        if (event != null) {
+            event.setQueueTime(System.nanoTime() - queueStart);
+        }
+        try {
+            return executeTraced(request, reader, event);
+        } finally {
+            if (dispatcher != null) {
+                dispatcher.release(priority);
+            }
+        }
+    }
+
+    private <T> T executeTraced(TransportRequest request, BodyReader<T> reader, ApiCallEvent event) {
+        CallTrace trace = request.getTrace();
+        long start = trace != null ? System.nanoTime() : 0;
+        boolean success = false;
+        try {
+            T result = doExecute(request, trace, reader, event);
+            success = true;
+            return result;
+        } finally {
+            if (trace != null) {
+                trace.setTotalNanos(System.nanoTime() - start);
+                trace.setSuccess(success);
+                metrics.record(trace);
+                notifyTraceListener(trace);
+            } else {
+                metrics.recordCall(success);
+            }
+        }
+    }
+
+    private <T> T doExecute(TransportRequest request, CallTrace trace, BodyReader<T> reader, ApiCallEvent event) {
+        Deadline deadline = request.getDeadline();
+        if (deadline != null) {
+            deadline.check(request.getApiMethod());
+        }
+        CircuitBreaker breaker = circuitBreaker(request.getApiMethod());
+        if (breaker != null) {
+            breaker.acquirePermission();
+        }
+
+        TransportResponse response;
+        long start = System.nanoTime();
+        boolean unavailable = true;
+        boolean abandoned = false;
+        try {
+            response = transport.execute(request);
+            unavailable = response.getCode() >= 500 || response.getCode() == 429;
         } catch (IOException e) {
+            if (deadline != null && deadline.isExpired()) {
+                // Запрос прерван сроком или отменой вызывающего, а не отказом API
+                abandoned = true;
+                throw new DeadlineExceededException(request.getApiMethod(), deadline.isCancelled(), e);
+            }
             throw new CryptoPayApiException("Ошибка при выполнении HTTP-запроса", e);
+        } finally {
+            long networkNanos = System.nanoTime() - start;
+            if (breaker != null) {
+                if (abandoned) {
+                    breaker.onAbandoned();
+                } else {
+                    breaker.onResult(networkNanos, unavailable);
+                }
+            }
+            if (event != null) {
+                event.setNetworkTime(networkNanos);
+            }
+        }
+        if (event != null) {
+            event.setStatus(response.getCode());
+            event.setBytesIn(response.getBody() != null ? response.getBody().length : 0);
+        }
+
+        if (!response.isSuccessful()) {
+            throw apiError(request.getApiMethod(), response);
+        }
+
+        byte[] responseBody = response.getBody();
+        if (responseBody == null || responseBody.length == 0) {
+            throw new CryptoPayApiException("Пустой ответ от сервера", null, null);
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Ответ API: {}", new String(responseBody, StandardCharsets.UTF_8));
+        }
+
+        long deserializationStart = trace != null || event != null ? System.nanoTime() : 0;
+        try {
+            return reader.read(responseBody);
+        } catch (IOException e) {
+            throw new CryptoPayApiException(
+                    "Ошибка при десериализации ответа: " + new String(responseBody, StandardCharsets.UTF_8), e);
+        } finally {
+            if (trace != null || event != null) {
+                long deserializationNanos = System.nanoTime() - deserializationStart;
+                if (trace != null) {
+                    trace.setDeserializationNanos(deserializationNanos);
+                }
+                if (event != null) {
+                    event.setDeserializationTime(deserializationNanos);
+                }
+            }
+        }
+    }
+
+    /**
+     * Проверяет разобранный ответ API и выбрасывает типизированное исключение, если API сообщил об ошибке
+     * в успешном HTTP-ответе. Ошибка сопоставляется и записывается в журнал так же, как неуспешный HTTP-ответ.
+     *
+     * @param response ответ API
+     * @throws CryptoPayApiException если ответ содержит ошибку (типизированное исключение без стека вызовов)
+     */
+    public void checkResponse(ApiResponse<?> response) {
+        if (!response.isSuccess()) {
+            throw apiError(null, response, null, null, null);
+        }
+    }
+
+    /**
+     * Строит типизированное исключение по неуспешному HTTP-ответу: код и имя ошибки берутся из тела ответа,
+     * а время до повтора — из заголовка Retry-After.
+     */
+    private CryptoPayApiException apiError(String apiMethod, TransportResponse response) {
+        String message = response.getMessage() != null && !response.getMessage().isEmpty()
+                ? response.getMessage() : null;
+        ApiResponse<JsonNode> envelope = null;
+        byte[] body = response.getBody();
+        if (body != null && body.length > 0) {
+            try {
+                envelope = objectMapper.readValue(body, ERROR_RESPONSE);
+            } catch (IOException e) {
+                // Тело ошибки не в формате API (например, страница прокси): остается HTTP-статус
+            }
+        }
+        return apiError(apiMethod, envelope, response.getCode(), message, retryAfter(response.header("Retry-After")));
+    }
+
+    /**
+     * Сопоставляет ошибку API типизированному исключению и записывает ее в журнал с ограничением частоты.
+     * Код и имя ошибки берутся из конверта ответа, а если их там нет — из HTTP-статуса и его описания.
+     */
+    private CryptoPayApiException apiError(String apiMethod, ApiResponse<?> envelope, Integer httpCode,
+                                           String httpMessage, Duration retryAfter) {
+        Integer errorCode = httpCode;
+        String errorName = httpMessage;
+        if (envelope != null && envelope.getError() != null) {
+            errorCode = envelope.getError().getCode() != null ? envelope.getError().getCode() : errorCode;
+            errorName = envelope.getError().getName() != null ? envelope.getError().getName() : errorName;
+        } else if (envelope != null) {
+            errorCode = envelope.getErrorCode() != null ? envelope.getErrorCode() : errorCode;
+            errorName = envelope.getDescription() != null ? envelope.getDescription() : errorName;
+        }
+        CryptoPayApiException error = CryptoPayApiException.fromApiError(errorCode, errorName, retryAfter);
+        long suppressed = ERROR_LOG.tryAcquire(errorCode + ":" + errorName);
+        if (suppressed != LogThrottle.SUPPRESSED) {
+            log.warn("Ошибка API{}: {} (пропущено повторов: {})",
+                    apiMethod != null ? " " + apiMethod : "", error.getMessage(), suppressed);
+        }
+        return error;
+    }
+
+    /**
+     * Разбирает заголовок Retry-After: число секунд или дату HTTP.
+     */
+    private static Duration retryAfter(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException e) {
+            try {
+                Duration delay = Duration.between(Instant.now(),
+                        ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant());
+                return delay.isNegative() ? Duration.ZERO : delay;
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Чтение результата из тела ответа.
+     */
+    @FunctionalInterface
+    private interface BodyReader<T> {
+        T read(byte[] body) throws IOException;
+    }
+
+    private CircuitBreaker circuitBreaker(String apiMethod) {
+        if (circuitBreakerConfig == null) {
+            return null;
+        }
+        return circuitBreakers.computeIfAbsent(apiMethod, method -> new CircuitBreaker(method, circuitBreakerConfig));
+    }
+
+    private void notifyTraceListener(CallTrace trace) {
+        if (traceListener == null) {
+            return;
+        }
+        try {
+            traceListener.accept(trace);
+        } catch (RuntimeException e) {
+            log.warn("Ошибка в обработчике трассировки вызова {}", trace.getMethod(), e);
         }
     }
-} 
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package me.theahks.cryptopay.util;
 
+import me.theahks.cryptopay.json.CryptoPayJsonModule;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
@@ -14,11 +15,13 @@ public final class JsonUtils {
     
     /**
      * Настраивает ObjectMapper для корректной работы с CryptoBot API.
+     * Модели читаются потоковыми десериализаторами {@link CryptoPayJsonModule}.
      * 
      * @param objectMapper ObjectMapper для настройки
      */
     public static void configureObjectMapper(ObjectMapper objectMapper) {
         objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.registerModule(new CryptoPayJsonModule());
         objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
         objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
     }
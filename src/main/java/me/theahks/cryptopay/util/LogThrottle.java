@@ -0,0 +1,64 @@
+package me.theahks.cryptopay.util;
+
+import com.google.common.base.Preconditions;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ограничение частоты повторяющихся сообщений журнала: по каждому ключу пропускается не больше одного
+ * сообщения за интервал, а количество подавленных сообщений сообщается вместе со следующим пропущенным.
+ * <p>
+ * Проверка не блокирует потоки и не выделяет память для уже известных ключей.
+ */
+public final class LogThrottle {
+    /**
+     * Результат проверки для подавленного сообщения.
+     */
+    public static final long SUPPRESSED = -1;
+
+    private final long intervalNanos;
+    private final ConcurrentMap<String, Window> windows = new ConcurrentHashMap<>();
+
+    /**
+     * Создает ограничение с заданным интервалом.
+     *
+     * @param interval минимальный интервал между сообщениями с одним ключом
+     */
+    public LogThrottle(Duration interval) {
+        Preconditions.checkArgument(interval != null && !interval.isNegative(), "Интервал не может быть отрицательным");
+        this.intervalNanos = interval.toNanos();
+    }
+
+    /**
+     * Проверяет, можно ли записать сообщение с заданным ключом.
+     *
+     * @param key ключ сообщения, например имя метода и ошибки
+     * @return количество подавленных с прошлой записи сообщений или {@link #SUPPRESSED}, если сообщение
+     *         записывать не нужно
+     */
+    public long tryAcquire(String key) {
+        Window window = windows.get(key);
+        if (window == null) {
+            window = windows.computeIfAbsent(key, k -> new Window(System.nanoTime() - intervalNanos));
+        }
+        long now = System.nanoTime();
+        long last = window.lastLogged.get();
+        if (now - last >= intervalNanos && window.lastLogged.compareAndSet(last, now)) {
+            return window.suppressed.getAndSet(0);
+        }
+        window.suppressed.incrementAndGet();
+        return SUPPRESSED;
+    }
+
+    private static final class Window {
+        private final AtomicLong lastLogged;
+        private final AtomicLong suppressed = new AtomicLong();
+
+        Window(long lastLogged) {
+            this.lastLogged = new AtomicLong(lastLogged);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package me.theahks.cryptopay.util;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * Хэш-таблица с ключами long и значениями int без упаковки в объекты.
+ * <p>
+ * Используется открытая адресация с линейным пробированием; таблица увеличивается вдвое при заполнении
+ * больше чем наполовину. Удаление не поддерживается. Экземпляр не потокобезопасен.
+ */
+public final class LongIntHashMap {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final long EMPTY = 0;
+
+    private final int missingValue;
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private boolean hasZeroKey;
+    private int zeroValue;
+
+    /**
+     * Создает таблицу.
+     *
+     * @param missingValue значение, возвращаемое для отсутствующих ключей
+     */
+    public LongIntHashMap(int missingValue) {
+        this(DEFAULT_CAPACITY, missingValue);
+    }
+
+    /**
+     * Создает таблицу, рассчитанную на заданное количество ключей без увеличения.
+     *
+     * @param expectedSize ожидаемое количество ключей
+     * @param missingValue значение, возвращаемое для отсутствующих ключей
+     */
+    public LongIntHashMap(int expectedSize, int missingValue) {
+        Preconditions.checkArgument(expectedSize >= 0, "Ожидаемый размер не может быть отрицательным");
+        this.missingValue = missingValue;
+        int capacity = Integer.highestOneBit(Math.max(DEFAULT_CAPACITY, expectedSize) * 2 - 1) << 1;
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Возвращает значение по ключу.
+     *
+     * @param key ключ
+     * @return значение или missingValue, если ключа нет
+     */
+    public int get(long key) {
+        if (key == EMPTY) {
+            return hasZeroKey ? zeroValue : missingValue;
+        }
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key) {
+                return values[slot];
+            }
+            if (current == EMPTY) {
+                return missingValue;
+            }
+        }
+    }
+
+    /**
+     * Проверяет наличие ключа.
+     *
+     * @param key ключ
+     * @return true, если ключ есть в таблице
+     */
+    public boolean containsKey(long key) {
+        if (key == EMPTY) {
+            return hasZeroKey;
+        }
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key) {
+                return true;
+            }
+            if (current == EMPTY) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Сохраняет значение по ключу.
+     *
+     * @param key ключ
+     * @param value значение
+     * @return предыдущее значение или missingValue, если ключа не было
+     */
+    public int put(long key, int value) {
+        if (key == EMPTY) {
+            int previous = hasZeroKey ? zeroValue : missingValue;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return previous;
+        }
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key) {
+                int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            if (current == EMPTY) {
+                keys[slot] = key;
+                values[slot] = value;
+                if (++size > keys.length / 2) {
+                    resize();
+                }
+                return missingValue;
+            }
+        }
+    }
+
+    /**
+     * Сохраняет значение, если ключа еще нет.
+     *
+     * @param key ключ
+     * @param value значение
+     * @return текущее значение или missingValue, если значение сохранено
+     */
+    public int putIfAbsent(long key, int value) {
+        if (containsKey(key)) {
+            return get(key);
+        }
+        put(key, value);
+        return missingValue;
+    }
+
+    /**
+     * Возвращает количество ключей.
+     *
+     * @return количество ключей
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Удаляет все ключи, сохраняя емкость таблицы.
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        hasZeroKey = false;
+        size = 0;
+    }
+
+    /**
+     * Передает все пары в порядке хранения.
+     *
+     * @param consumer получатель пар
+     */
+    public void forEach(EntryConsumer consumer) {
+        if (hasZeroKey) {
+            consumer.accept(EMPTY, zeroValue);
+        }
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                consumer.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != EMPTY) {
+                int slot = slot(key);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Получатель пар ключ-значение.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, int value);
+    }
+}
@@ -0,0 +1,34 @@
+package me.theahks.cryptopay.util;
+
+/**
+ * Приоритет вызова API в диспетчере запросов.
+ */
+public enum Priority {
+    /**
+     * Платежные и пользовательские вызовы (создание счетов и чеков, переводы, чтение одной сущности).
+     * Обслуживаются в первую очередь.
+     */
+    INTERACTIVE,
+
+    /**
+     * Фоновые вызовы (списки, выгрузки, сверка). Используют свободную емкость.
+     */
+    BACKGROUND;
+
+    /**
+     * Возвращает приоритет по умолчанию для метода API.
+     *
+     * @param apiMethod имя метода API
+     * @return {@link #BACKGROUND} для списочных методов, иначе {@link #INTERACTIVE}
+     */
+    public static Priority forMethod(String apiMethod) {
+        switch (apiMethod) {
+            case "getInvoices":
+            case "getChecks":
+            case "getTransfers":
+                return BACKGROUND;
+            default:
+                return INTERACTIVE;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package me.theahks.cryptopay.util;
+
+import me.theahks.cryptopay.exception.CryptoPayApiException;
+import com.google.common.base.Preconditions;
+import lombok.Builder;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Диспетчер одновременных вызовов API с полосами приоритета.
+ * <p>
+ * У каждой полосы собственный лимит одновременных вызовов и своя очередь ожидания, а общий лимит
+ * ограничивает суммарное количество вызовов. Когда освобождается место, его в первую очередь получают
+ * ожидающие интерактивные вызовы; фоновые вызовы занимают только свободную емкость, поэтому
+ * массовая выгрузка не задерживает создание счетов и переводы.
+ */
+public class RequestDispatcher {
+    private static final int DEFAULT_MAX_CONCURRENCY = 32;
+
+    private final int maxConcurrency;
+    private final int[] laneLimits = new int[Priority.values().length];
+    private final int[] running = new int[Priority.values().length];
+    private final int[] waiting = new int[Priority.values().length];
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition[] conditions = new Condition[Priority.values().length];
+    private int totalRunning;
+
+    /**
+     * Создает диспетчер с лимитами по умолчанию.
+     */
+    public RequestDispatcher() {
+        this(0, 0, 0);
+    }
+
+    /**
+     * Создает диспетчер с заданными лимитами.
+     *
+     * @param maxConcurrency общий лимит одновременных вызовов (по умолчанию 32)
+     * @param interactiveConcurrency лимит интерактивной полосы (по умолчанию равен общему)
+     * @param backgroundConcurrency лимит фоновой полосы (по умолчанию половина общего)
+     */
+    @Builder
+    public RequestDispatcher(int maxConcurrency, int interactiveConcurrency, int backgroundConcurrency) {
+        Preconditions.checkArgument(maxConcurrency >= 0 && interactiveConcurrency >= 0 && backgroundConcurrency >= 0,
+                "Лимиты не могут быть отрицательными");
+        this.maxConcurrency = maxConcurrency > 0 ? maxConcurrency : DEFAULT_MAX_CONCURRENCY;
+        laneLimits[Priority.INTERACTIVE.ordinal()] = interactiveConcurrency > 0
+                ? Math.min(interactiveConcurrency, this.maxConcurrency) : this.maxConcurrency;
+        laneLimits[Priority.BACKGROUND.ordinal()] = backgroundConcurrency > 0
+                ? Math.min(backgroundConcurrency, this.maxConcurrency) : Math.max(1, this.maxConcurrency / 2);
+        for (int i = 0; i < conditions.length; i++) {
+            conditions[i] = lock.newCondition();
+        }
+    }
+
+    /**
+     * Ожидает свободного места в полосе и занимает его.
+     *
+     * @param priority приоритет вызова
+     * @throws CryptoPayApiException если ожидание прервано
+     */
+    public void acquire(Priority priority) {
+        int lane = priority.ordinal();
+        lock.lock();
+        try {
+            waiting[lane]++;
+            try {
+                while (!canRun(priority)) {
+                    conditions[lane].await();
+                }
+            } finally {
+                waiting[lane]--;
+            }
+            running[lane]++;
+            totalRunning++;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CryptoPayApiException("Ожидание в очереди запросов прервано", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ожидает свободного места в полосе не дольше срока и занимает его. Отмена срока прекращает ожидание.
+     *
+     * @param priority приоритет вызова
+     * @param deadline срок вызова
+     * @return true, если место занято, и false, если срок истек или отменен раньше
+     * @throws CryptoPayApiException если ожидание прервано
+     */
+    public boolean tryAcquire(Priority priority, Deadline deadline) {
+        int lane = priority.ordinal();
+        lock.lock();
+        try {
+            if (canRun(priority) && !deadline.isExpired()) {
+                running[lane]++;
+                totalRunning++;
+                return true;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        try (Deadline.Registration ignored = deadline.onCancel(this::wakeUp)) {
+            lock.lock();
+            try {
+                waiting[lane]++;
+                try {
+                    while (!canRun(priority)) {
+                        long remaining = deadline.remainingNanos();
+                        if (remaining == 0) {
+                            return false;
+                        }
+                        conditions[lane].awaitNanos(remaining);
+                    }
+                } finally {
+                    waiting[lane]--;
+                }
+                if (deadline.isExpired()) {
+                    // Место не занято: его может получить следующий ожидающий вызов
+                    wakeUpLocked();
+                    return false;
+                }
+                running[lane]++;
+                totalRunning++;
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CryptoPayApiException("Ожидание в очереди запросов прервано", e);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Освобождает место, занятое вызовом.
+     *
+     * @param priority приоритет вызова
+     */
+    public void release(Priority priority) {
+        lock.lock();
+        try {
+            running[priority.ordinal()]--;
+            totalRunning--;
+            wakeUpLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Возвращает общий лимит одновременных вызовов.
+     *
+     * @return лимит одновременных вызовов
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Возвращает количество выполняющихся вызовов в полосе.
+     *
+     * @param priority приоритет
+     * @return количество выполняющихся вызовов
+     */
+    public int getRunning(Priority priority) {
+        lock.lock();
+        try {
+            return running[priority.ordinal()];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Возвращает количество вызовов, ожидающих в очереди полосы.
+     *
+     * @param priority приоритет
+     * @return количество ожидающих вызовов
+     */
+    public int getQueued(Priority priority) {
+        lock.lock();
+        try {
+            return waiting[priority.ordinal()];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void wakeUp() {
+        lock.lock();
+        try {
+            wakeUpLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void wakeUpLocked() {
+        for (Condition condition : conditions) {
+            condition.signalAll();
+        }
+    }
+
+    private boolean canRun(Priority priority) {
+        if (totalRunning >= maxConcurrency || running[priority.ordinal()] >= laneLimits[priority.ordinal()]) {
+            return false;
+        }
+        if (priority == Priority.BACKGROUND) {
+            // Свободное место уступаем ожидающему интерактивному вызову, если его полоса не заполнена
+            int interactive = Priority.INTERACTIVE.ordinal();
+            return waiting[interactive] == 0 || running[interactive] >= laneLimits[interactive];
+        }
+        return true;
+    }
+}
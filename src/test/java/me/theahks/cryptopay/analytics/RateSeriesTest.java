@@ -0,0 +1,59 @@
+package me.theahks.cryptopay.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RateSeriesTest {
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    void emptySeriesReturnsZeros() {
+        RateSeries series = new RateSeries("TON", "USD", 4);
+
+        RateSeries.Stats stats = series.getStats();
+        assertEquals(0, stats.getSize());
+        assertEquals(0, stats.getMean());
+        assertEquals(0, stats.getVolatility());
+    }
+
+    @Test
+    void windowMatchesLastSamplesAfterEviction() {
+        int capacity = 5;
+        RateSeries series = new RateSeries("TON", "USD", capacity);
+        // Минимум и максимум уходят из окна раньше остальных отсчетов
+        double[] rates = {1.0, 9.0, 4.0, 5.0, 3.0, 6.0, 2.5, 4.5, 7.0, 3.5, 5.5, 4.0};
+
+        for (int i = 0; i < rates.length; i++) {
+            series.add(1000L * i, rates[i]);
+
+            int from = Math.max(0, i + 1 - capacity);
+            double[] window = Arrays.copyOfRange(rates, from, i + 1);
+            RateSeries.Stats stats = series.getStats();
+            assertEquals(window.length, stats.getSize(), "отсчет " + i);
+            assertEquals(1000L * from, stats.getFirstTimestamp(), "отсчет " + i);
+            assertEquals(1000L * i, stats.getTimestamp(), "отсчет " + i);
+            assertEquals(rates[i], stats.getLast(), "отсчет " + i);
+            assertEquals(Arrays.stream(window).average().orElse(0), stats.getMean(), EPSILON, "отсчет " + i);
+            assertEquals(Arrays.stream(window).min().orElse(0), stats.getMin(), "отсчет " + i);
+            assertEquals(Arrays.stream(window).max().orElse(0), stats.getMax(), "отсчет " + i);
+            assertEquals(volatility(window), stats.getVolatility(), EPSILON, "отсчет " + i);
+        }
+    }
+
+    private static double volatility(double[] window) {
+        int count = window.length - 1;
+        if (count < 2) {
+            return 0;
+        }
+        double[] returns = new double[count];
+        for (int i = 0; i < count; i++) {
+            returns[i] = Math.log(window[i + 1] / window[i]);
+        }
+        double mean = Arrays.stream(returns).average().orElse(0);
+        double squares = Arrays.stream(returns).map(r -> (r - mean) * (r - mean)).sum();
+        return Math.sqrt(squares / (count - 1));
+    }
+}
@@ -0,0 +1,125 @@
+package me.theahks.cryptopay.events;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventDispatcherTest {
+    private static final long TIMEOUT_SECONDS = 10;
+
+    @Test
+    void deliversAllEventsInOrderAcrossWrap() {
+        List<CryptoPayEvent> published = events(100);
+        List<CryptoPayEvent> first = Collections.synchronizedList(new ArrayList<>());
+        List<CryptoPayEvent> second = Collections.synchronizedList(new ArrayList<>());
+        List<Long> sequences = Collections.synchronizedList(new ArrayList<>());
+
+        EventDispatcher dispatcher = EventDispatcher.builder()
+                .bufferSize(4)
+                .handlers(List.of(
+                        (event, sequence, endOfBatch) -> {
+                            first.add(event);
+                            sequences.add(sequence);
+                        },
+                        (event, sequence, endOfBatch) -> second.add(event)))
+                .build();
+        // Пакеты больше буфера публикуются частями
+        dispatcher.publishAll(published.subList(0, 10));
+        for (CryptoPayEvent event : published.subList(10, 50)) {
+            dispatcher.publish(event);
+        }
+        dispatcher.publishAll(published.subList(50, 100));
+        dispatcher.close();
+
+        assertEquals(published, first);
+        assertEquals(published, second);
+        for (int i = 0; i < sequences.size(); i++) {
+            assertEquals(i, sequences.get(i).longValue());
+        }
+    }
+
+    @Test
+    void publishWaitsForSlowestHandler() throws Exception {
+        List<CryptoPayEvent> published = events(5);
+        List<CryptoPayEvent> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        EventDispatcher dispatcher = EventDispatcher.builder()
+                .bufferSize(4)
+                .handlers(List.of((event, sequence, endOfBatch) -> {
+                    started.countDown();
+                    release.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                    received.add(event);
+                }))
+                .build();
+        for (CryptoPayEvent event : published.subList(0, 4)) {
+            dispatcher.publish(event);
+        }
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(4, dispatcher.getBacklog());
+
+        // Обработчик держит первую ячейку, поэтому пятое событие ждет ее освобождения
+        CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> dispatcher.publish(published.get(4)));
+        assertThrows(TimeoutException.class, () -> blocked.get(200, TimeUnit.MILLISECONDS));
+        assertFalse(blocked.isDone());
+        assertEquals(4, dispatcher.getBacklog());
+
+        release.countDown();
+        blocked.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        dispatcher.close();
+
+        assertEquals(published, received);
+        assertEquals(0, dispatcher.getBacklog());
+    }
+
+    @Test
+    void handlerFailureDoesNotStopDelivery() {
+        List<CryptoPayEvent> published = events(3);
+        List<CryptoPayEvent> received = Collections.synchronizedList(new ArrayList<>());
+
+        EventDispatcher dispatcher = EventDispatcher.builder()
+                .bufferSize(2)
+                .handlers(List.of((event, sequence, endOfBatch) -> {
+                    received.add(event);
+                    if (sequence == 0) {
+                        throw new IllegalStateException("сбой обработчика");
+                    }
+                }))
+                .build();
+        dispatcher.publishAll(published);
+        dispatcher.close();
+
+        assertEquals(published, received);
+    }
+
+    @Test
+    void rejectsPublishAfterClose() {
+        EventDispatcher dispatcher = EventDispatcher.builder()
+                .handlers(List.of((event, sequence, endOfBatch) -> { }))
+                .build();
+        dispatcher.close();
+
+        assertThrows(IllegalStateException.class, () -> dispatcher.publish(events(1).get(0)));
+    }
+
+    private static List<CryptoPayEvent> events(int count) {
+        List<CryptoPayEvent> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            events.add(new TransferCreatedEvent(Instant.ofEpochSecond(i), null));
+        }
+        return events;
+    }
+}
@@ -0,0 +1,69 @@
+package me.theahks.cryptopay.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongIntHashMapTest {
+    private static final int MISSING = -1;
+
+    @Test
+    void storesZeroKeySeparately() {
+        LongIntHashMap map = new LongIntHashMap(MISSING);
+
+        assertFalse(map.containsKey(0));
+        assertEquals(MISSING, map.get(0));
+        assertEquals(MISSING, map.put(0, 7));
+        assertTrue(map.containsKey(0));
+        assertEquals(7, map.get(0));
+        assertEquals(7, map.put(0, 8));
+        assertEquals(8, map.putIfAbsent(0, 9));
+        assertEquals(8, map.get(0));
+        assertEquals(1, map.size());
+
+        map.clear();
+        assertFalse(map.containsKey(0));
+        assertEquals(MISSING, map.get(0));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void keepsEntriesAcrossResize() {
+        LongIntHashMap map = new LongIntHashMap(MISSING);
+        Map<Long, Integer> expected = new HashMap<>();
+        map.put(0, 100);
+        expected.put(0L, 100);
+        // Начальная емкость 32, поэтому таблица увеличивается несколько раз
+        for (int i = 1; i <= 1000; i++) {
+            long key = i % 2 == 0 ? i * 1_000_003L : -i;
+            assertEquals(MISSING, map.put(key, i));
+            expected.put(key, i);
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue().intValue(), map.get(entry.getKey()), "ключ " + entry.getKey());
+        }
+        assertEquals(MISSING, map.get(1));
+        assertFalse(map.containsKey(Long.MAX_VALUE));
+
+        Map<Long, Integer> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(expected, visited);
+    }
+
+    @Test
+    void putIfAbsentKeepsExistingValue() {
+        LongIntHashMap map = new LongIntHashMap(MISSING);
+
+        assertEquals(MISSING, map.putIfAbsent(42, 1));
+        assertEquals(1, map.putIfAbsent(42, 2));
+        assertEquals(1, map.get(42));
+        assertEquals(1, map.size());
+    }
+}